@@ -0,0 +1,161 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.helger.jcodemodel.AbstractCodeWriter;
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.writer.FileCodeWriter;
+import com.helger.jcodemodel.writer.InMemoryCodeWriter;
+import com.helger.jcodemodel.writer.NioFileCodeWriter;
+import com.helger.jcodemodel.writer.ParallelZipCodeWriter;
+import com.helger.jcodemodel.writer.ZipCodeWriter;
+
+/**
+ * Measures the complete {@link JCodeModel#build(AbstractCodeWriter)} including
+ * encoding and writing into different targets.
+ *
+ * @author Philip Helger
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Fork (1)
+@Warmup (iterations = 3)
+@Measurement (iterations = 5)
+public class BuildBenchmark
+{
+  public static enum ETarget
+  {
+    MEMORY,
+    ZIP,
+    PARALLEL_ZIP,
+    FILE,
+    NIO_FILE;
+  }
+
+  @Param ({ "100" })
+  public int m_nClassesPerPackage;
+
+  @Param ({ "MEMORY", "ZIP", "PARALLEL_ZIP", "FILE", "NIO_FILE" })
+  public ETarget m_eTarget;
+
+  @Param ({ "false", "true" })
+  public boolean m_bDirectUTF8Encoding;
+
+  private JCodeModel m_aCodeModel;
+  private File m_aTargetDir;
+
+  @Setup
+  public void setup () throws IOException
+  {
+    m_aCodeModel = new SyntheticModelGenerator (5, m_nClassesPerPackage, 10, 20).createModel ();
+    m_aTargetDir = Files.createTempDirectory ("jcm-bench").toFile ();
+  }
+
+  private static void _deleteRecursive (@Nonnull final File aFile)
+  {
+    final File [] aChildren = aFile.listFiles ();
+    if (aChildren != null)
+      for (final File aChild : aChildren)
+        _deleteRecursive (aChild);
+    aFile.delete ();
+  }
+
+  @TearDown
+  public void tearDown ()
+  {
+    _deleteRecursive (m_aTargetDir);
+  }
+
+  @Nonnull
+  private AbstractCodeWriter _createCodeWriter () throws IOException
+  {
+    switch (m_eTarget)
+    {
+      case MEMORY:
+        return new InMemoryCodeWriter (StandardCharsets.UTF_8, "\n");
+      case ZIP:
+        return new ZipCodeWriter (NullCodeWriter.getNullOutputStream (), StandardCharsets.UTF_8, "\n");
+      case PARALLEL_ZIP:
+        return new ParallelZipCodeWriter (NullCodeWriter.getNullOutputStream (),
+                                          ForkJoinPool.commonPool (),
+                                          StandardCharsets.UTF_8,
+                                          "\n");
+      case FILE:
+        return new FileCodeWriter (m_aTargetDir, StandardCharsets.UTF_8, "\n");
+      case NIO_FILE:
+        return new NioFileCodeWriter (m_aTargetDir.toPath (), StandardCharsets.UTF_8, "\n");
+      default:
+        throw new IllegalStateException ("Unsupported target " + m_eTarget);
+    }
+  }
+
+  @Benchmark
+  public void build () throws IOException
+  {
+    final AbstractCodeWriter aWriter = _createCodeWriter ();
+    // All targets use UTF-8, so the direct encoding applies to all of them
+    aWriter.setDirectUTF8Encoding (m_bDirectUTF8Encoding);
+    m_aCodeModel.build (aWriter);
+  }
+}
@@ -0,0 +1,209 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.helger.jcodemodel.util.JavaUnicodeEscapeWriter;
+import com.helger.jcodemodel.util.UTF8EscapeByteArrayWriter;
+import com.helger.jcodemodel.util.UnicodeEscapeWriter;
+import com.helger.jcodemodel.writer.InMemoryCodeWriter;
+
+/**
+ * Compares the writer stacks used to encode and escape the created source
+ * code: the former per-char escape writer between a {@link BufferedWriter}
+ * and an {@link OutputStreamWriter}, the bulk {@link JavaUnicodeEscapeWriter}
+ * in the same stack and the {@link UTF8EscapeByteArrayWriter} used for the
+ * direct UTF-8 encoding. The rendered sources of a synthetic model are written
+ * token by token, like the formatter does.
+ *
+ * @author Philip Helger
+ */
+@State (Scope.Thread)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Fork (1)
+@Warmup (iterations = 3)
+@Measurement (iterations = 5)
+public class EscapeWriterBenchmark
+{
+  /**
+   * The per-char escape writer formerly used by
+   * {@link com.helger.jcodemodel.AbstractCodeWriter}, kept as the reference.
+   */
+  private static final class LegacyJavaUnicodeEscapeWriter extends UnicodeEscapeWriter
+  {
+    private static final BitSet ESCAPE = new BitSet (128);
+
+    static
+    {
+      for (int i = 0; i < 0x20; i++)
+        if (i != '\t' && i != '\r' && i != '\n')
+          ESCAPE.set (i, true);
+    }
+
+    private final CharsetEncoder m_aEncoder;
+
+    LegacyJavaUnicodeEscapeWriter (@Nonnull final OutputStreamWriter aNext)
+    {
+      super (aNext);
+      m_aEncoder = Charset.forName (aNext.getEncoding ()).newEncoder ();
+    }
+
+    @Override
+    protected boolean requireEscaping (final int ch)
+    {
+      // control characters
+      if (ESCAPE.get (ch))
+        return true;
+
+      // check ASCII chars, for better performance
+      if (ch < 0x80)
+        return false;
+
+      return !m_aEncoder.canEncode ((char) ch);
+    }
+  }
+
+  private static final OutputStream NULL_OS = new OutputStream ()
+  {
+    @Override
+    public void write (final int b)
+    {}
+
+    @Override
+    public void write (@Nonnull final byte [] b, final int off, final int len)
+    {}
+  };
+
+  /** Replace some ASCII characters to measure the escaping of other chars */
+  @Param ({ "false", "true" })
+  public boolean m_bNonASCII;
+
+  private String [] m_aTokens;
+  private UTF8EscapeByteArrayWriter m_aByteArrayWriter;
+
+  @Setup
+  public void setup () throws IOException
+  {
+    final InMemoryCodeWriter aCW = new InMemoryCodeWriter (StandardCharsets.UTF_8, "\n");
+    new SyntheticModelGenerator (1, 20, 10, 20).createModel ().build (aCW);
+
+    // Split into words and separators, like the formatter prints them
+    final List <String> aTokens = new ArrayList <> ();
+    for (final Map.Entry <String, byte []> aEntry : aCW.getAllFiles ().entrySet ())
+    {
+      String sSource = new String (aEntry.getValue (), StandardCharsets.UTF_8);
+      if (m_bNonASCII)
+      {
+        // An encodable char and one that is escaped in the Java source
+        sSource = sSource.replace ('x', '\u00e4').replace ('q', '\u0007');
+      }
+      for (final String sToken : sSource.split ("(?<=\\W)|(?=\\W)"))
+        aTokens.add (sToken);
+    }
+    m_aTokens = aTokens.toArray (new String [aTokens.size ()]);
+    m_aByteArrayWriter = new UTF8EscapeByteArrayWriter ();
+  }
+
+  private void _writeAll (@Nonnull final Writer aWriter) throws IOException
+  {
+    for (final String sToken : m_aTokens)
+      aWriter.write (sToken);
+  }
+
+  @Benchmark
+  public void legacyEscapeWriterStack () throws IOException
+  {
+    try (final Writer aWriter = new BufferedWriter (new LegacyJavaUnicodeEscapeWriter (new OutputStreamWriter (NULL_OS,
+                                                                                                                StandardCharsets.UTF_8))))
+    {
+      _writeAll (aWriter);
+    }
+  }
+
+  @Benchmark
+  public void escapeWriterStack () throws IOException
+  {
+    try (final Writer aWriter = new BufferedWriter (new JavaUnicodeEscapeWriter (new OutputStreamWriter (NULL_OS,
+                                                                                                          StandardCharsets.UTF_8),
+                                                                                 StandardCharsets.UTF_8)))
+    {
+      _writeAll (aWriter);
+    }
+  }
+
+  @Benchmark
+  public int utf8ByteArrayWriter () throws IOException
+  {
+    final UTF8EscapeByteArrayWriter aWriter = m_aByteArrayWriter;
+    aWriter.reset ();
+    _writeAll (aWriter);
+    NULL_OS.write (aWriter.directGetBuffer (), 0, aWriter.size ());
+    return aWriter.size ();
+  }
+}
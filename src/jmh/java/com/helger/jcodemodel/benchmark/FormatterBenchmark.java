@@ -0,0 +1,111 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.helger.jcodemodel.JCodeModel;
+
+/**
+ * Measures the rendering of all classes through the
+ * {@link com.helger.jcodemodel.JFormatter} into a null writer, so that neither
+ * encoding nor I/O is included.
+ *
+ * @author Philip Helger
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Fork (1)
+@Warmup (iterations = 3)
+@Measurement (iterations = 5)
+public class FormatterBenchmark
+{
+  @Param ({ "10", "100" })
+  public int m_nClassesPerPackage;
+
+  @Param ({ "10" })
+  public int m_nMethodsPerClass;
+
+  @Param ({ "20" })
+  public int m_nStatementsPerMethod;
+
+  @Param ({ "false", "true" })
+  public boolean m_bCompact;
+
+  private JCodeModel m_aCodeModel;
+
+  @Setup
+  public void setup ()
+  {
+    m_aCodeModel = new SyntheticModelGenerator (5,
+                                                m_nClassesPerPackage,
+                                                m_nMethodsPerClass,
+                                                m_nStatementsPerMethod).createModel ();
+    m_aCodeModel.setBuildingCompactSources (m_bCompact);
+  }
+
+  @Benchmark
+  public void renderSequential () throws IOException
+  {
+    m_aCodeModel.build (new NullCodeWriter ());
+  }
+
+  @Benchmark
+  public void renderParallel () throws IOException
+  {
+    final NullCodeWriter aWriter = new NullCodeWriter ();
+    m_aCodeModel.build (aWriter, aWriter, Runtime.getRuntime ().availableProcessors ());
+  }
+}
@@ -0,0 +1,119 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.helger.jcodemodel.JClassAlreadyExistsException;
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JDefinedClass;
+import com.helger.jcodemodel.JFormatter;
+import com.helger.jcodemodel.util.NullWriter;
+
+/**
+ * Measures the single calls of the {@link JFormatter} that are executed for
+ * every token. Run with <code>-prof gc</code> to verify that
+ * <code>gc.alloc.rate.norm</code> is 0 B/op for all of them.
+ *
+ * @author Philip Helger
+ */
+@State (Scope.Thread)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Fork (1)
+@Warmup (iterations = 3)
+@Measurement (iterations = 5)
+public class FormatterHotPathBenchmark
+{
+  private JFormatter m_aFormatter;
+  private JDefinedClass m_aClass;
+
+  @Setup
+  public void setup () throws JClassAlreadyExistsException
+  {
+    m_aFormatter = new JFormatter (NullWriter.getInstance (), JFormatter.DEFAULT_INDENT_SPACE, "\n");
+    m_aClass = new JCodeModel ()._class ("org.example.Foo");
+  }
+
+  @Benchmark
+  public JFormatter printChar ()
+  {
+    return m_aFormatter.print ('a').print (';');
+  }
+
+  @Benchmark
+  public JFormatter printString ()
+  {
+    return m_aFormatter.print ("return").print ("value");
+  }
+
+  @Benchmark
+  public JFormatter type ()
+  {
+    return m_aFormatter.type (m_aClass);
+  }
+
+  @Benchmark
+  public JFormatter indentedLine ()
+  {
+    return m_aFormatter.indent ()
+                       .indent ()
+                       .indent ()
+                       .print ("x")
+                       .print ('=')
+                       .print ("1")
+                       .newline ()
+                       .outdent ()
+                       .outdent ()
+                       .outdent ();
+  }
+}
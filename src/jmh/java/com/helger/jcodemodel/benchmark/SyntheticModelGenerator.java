@@ -0,0 +1,198 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import com.helger.jcodemodel.AbstractJClass;
+import com.helger.jcodemodel.AbstractJType;
+import com.helger.jcodemodel.JBlock;
+import com.helger.jcodemodel.JClassAlreadyExistsException;
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JDefinedClass;
+import com.helger.jcodemodel.JExpr;
+import com.helger.jcodemodel.JFieldVar;
+import com.helger.jcodemodel.JForLoop;
+import com.helger.jcodemodel.JMethod;
+import com.helger.jcodemodel.JMod;
+import com.helger.jcodemodel.JVar;
+import com.helger.jcodemodel.util.JCValueEnforcer;
+
+/**
+ * Creates synthetic code models of a configurable size for the benchmarks.
+ * The same settings and seed always create the same model.
+ *
+ * @author Philip Helger
+ */
+public final class SyntheticModelGenerator
+{
+  public static final long DEFAULT_SEED = 20130101L;
+
+  private final int m_nPackages;
+  private final int m_nClassesPerPackage;
+  private final int m_nMethodsPerClass;
+  private final int m_nStatementsPerMethod;
+  private final long m_nSeed;
+
+  public SyntheticModelGenerator (@Nonnegative final int nPackages,
+                                  @Nonnegative final int nClassesPerPackage,
+                                  @Nonnegative final int nMethodsPerClass,
+                                  @Nonnegative final int nStatementsPerMethod)
+  {
+    this (nPackages, nClassesPerPackage, nMethodsPerClass, nStatementsPerMethod, DEFAULT_SEED);
+  }
+
+  public SyntheticModelGenerator (@Nonnegative final int nPackages,
+                                  @Nonnegative final int nClassesPerPackage,
+                                  @Nonnegative final int nMethodsPerClass,
+                                  @Nonnegative final int nStatementsPerMethod,
+                                  final long nSeed)
+  {
+    JCValueEnforcer.isGT0 (nPackages, "Packages");
+    JCValueEnforcer.isGT0 (nClassesPerPackage, "ClassesPerPackage");
+    JCValueEnforcer.isGE0 (nMethodsPerClass, "MethodsPerClass");
+    JCValueEnforcer.isGE0 (nStatementsPerMethod, "StatementsPerMethod");
+    m_nPackages = nPackages;
+    m_nClassesPerPackage = nClassesPerPackage;
+    m_nMethodsPerClass = nMethodsPerClass;
+    m_nStatementsPerMethod = nStatementsPerMethod;
+    m_nSeed = nSeed;
+  }
+
+  /**
+   * @return The fully qualified names of all classes of the model, in creation
+   *         order.
+   */
+  @Nonnull
+  public List <String> getAllClassNames ()
+  {
+    final List <String> ret = new ArrayList <> (m_nPackages * m_nClassesPerPackage);
+    for (int nPkg = 0; nPkg < m_nPackages; ++nPkg)
+      for (int nClass = 0; nClass < m_nClassesPerPackage; ++nClass)
+        ret.add ("org.example.gen.p" + nPkg + ".Type" + nClass);
+    return ret;
+  }
+
+  /**
+   * @return A new code model. Never <code>null</code>.
+   */
+  @Nonnull
+  public JCodeModel createModel ()
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final Random aRandom = new Random (m_nSeed);
+
+    // Some referenced types, including names that collide with generated
+    // classes and with each other to exercise the import resolution
+    final AbstractJClass [] aRefTypes = new AbstractJClass [] { cm.ref (String.class),
+                                                                cm.ref (Integer.class),
+                                                                cm.ref (BigDecimal.class),
+                                                                cm.ref (Date.class),
+                                                                cm.ref (java.sql.Date.class),
+                                                                cm.ref (List.class).narrow (String.class),
+                                                                cm.ref (Map.class).narrow (String.class, Long.class) };
+
+    // Create all classes first, so they can reference each other
+    final List <JDefinedClass> aClasses = new ArrayList <> ();
+    try
+    {
+      for (final String sClassName : getAllClassNames ())
+        aClasses.add (cm._class (sClassName));
+    }
+    catch (final JClassAlreadyExistsException ex)
+    {
+      throw new IllegalStateException (ex);
+    }
+
+    for (final JDefinedClass aClass : aClasses)
+    {
+      aClass.javadoc ().add ("Generated class " + aClass.name ());
+      final JDefinedClass aOther = aClasses.get (aRandom.nextInt (aClasses.size ()));
+      final JFieldVar aOtherField = aClass.field (JMod.PRIVATE, aOther, "m_aOther");
+      final JFieldVar aCounter = aClass.field (JMod.PRIVATE, cm.INT, "m_nCounter");
+
+      for (int nMethod = 0; nMethod < m_nMethodsPerClass; ++nMethod)
+      {
+        final AbstractJType aRetType = aRefTypes[aRandom.nextInt (aRefTypes.length)];
+        final JMethod aMethod = aClass.method (JMod.PUBLIC, aRetType, "method" + nMethod);
+        final JVar aParam = aMethod.param (cm.INT, "nValue");
+        final JBlock aBody = aMethod.body ();
+        for (int nStmt = 0; nStmt < m_nStatementsPerMethod; ++nStmt)
+        {
+          switch (aRandom.nextInt (4))
+          {
+            case 0:
+            {
+              final AbstractJClass aType = aRefTypes[aRandom.nextInt (aRefTypes.length)];
+              aBody.decl (aType, "v" + nStmt, JExpr._null ());
+              break;
+            }
+            case 1:
+              aBody.assign (aCounter, aCounter.plus (aParam).plus (nStmt));
+              break;
+            case 2:
+            {
+              final JForLoop aLoop = aBody._for ();
+              final JVar aIndex = aLoop.init (cm.INT, "i" + nStmt, JExpr.lit (0));
+              aLoop.test (aIndex.lt (aParam));
+              aLoop.update (JExpr.incr (aIndex));
+              aLoop.body ().invoke (aOtherField, "hashCode");
+              break;
+            }
+            default:
+              aBody._if (aParam.eq (JExpr.lit (nStmt)))._then ().assign (aOtherField, JExpr._new (aOther));
+              break;
+          }
+        }
+        aBody._return (JExpr._null ());
+      }
+    }
+    return cm;
+  }
+}
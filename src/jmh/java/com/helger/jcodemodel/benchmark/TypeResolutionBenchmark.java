@@ -0,0 +1,144 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.helger.jcodemodel.AbstractJClass;
+import com.helger.jcodemodel.AbstractJType;
+import com.helger.jcodemodel.JCodeModel;
+
+/**
+ * Measures {@link JCodeModel#parseType(String)} and
+ * {@link JCodeModel#ref(String)} for existing, generated and unknown classes,
+ * as well as the names of the resolved types, as queried by the formatter.
+ *
+ * @author Philip Helger
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Fork (1)
+@Warmup (iterations = 3)
+@Measurement (iterations = 5)
+public class TypeResolutionBenchmark
+{
+  private static final String [] TYPES = new String [] { "int",
+                                                         "java.lang.String",
+                                                         "java.lang.String[]",
+                                                         "java.util.List<java.lang.String>",
+                                                         "java.util.Map<java.lang.String,java.util.List<java.lang.Integer[]>>",
+                                                         "java.util.Comparator<? super java.lang.CharSequence[]>[]" };
+
+  private static final String [] EXISTING_CLASSES = new String [] { "java.lang.String",
+                                                                    "java.util.ArrayList",
+                                                                    "java.util.concurrent.ConcurrentHashMap",
+                                                                    "java.math.BigDecimal" };
+
+  private JCodeModel m_aCodeModel;
+  private List <String> m_aGeneratedClasses;
+  private final List <AbstractJType> m_aParsedTypes = new ArrayList <> ();
+
+  @Setup
+  public void setup ()
+  {
+    final SyntheticModelGenerator aGenerator = new SyntheticModelGenerator (5, 20, 1, 1);
+    m_aCodeModel = aGenerator.createModel ();
+    m_aGeneratedClasses = aGenerator.getAllClassNames ();
+    for (final String sType : TYPES)
+      m_aParsedTypes.add (m_aCodeModel.parseType (sType));
+    for (final String sClass : EXISTING_CLASSES)
+      m_aParsedTypes.add (m_aCodeModel.ref (sClass));
+  }
+
+  @Benchmark
+  public void parseType (final Blackhole aBH)
+  {
+    for (final String sType : TYPES)
+      aBH.consume (m_aCodeModel.parseType (sType));
+  }
+
+  @Benchmark
+  public void refExistingClass (final Blackhole aBH)
+  {
+    for (final String sClass : EXISTING_CLASSES)
+      aBH.consume (m_aCodeModel.ref (sClass));
+  }
+
+  @Benchmark
+  public void refGeneratedClass (final Blackhole aBH)
+  {
+    for (final String sClass : m_aGeneratedClasses)
+      aBH.consume (m_aCodeModel.ref (sClass));
+  }
+
+  @Benchmark
+  public void typeNames (final Blackhole aBH)
+  {
+    for (final AbstractJType aType : m_aParsedTypes)
+    {
+      aBH.consume (aType.name ());
+      aBH.consume (aType.fullName ());
+      if (aType instanceof AbstractJClass)
+        aBH.consume (((AbstractJClass) aType)._package ());
+    }
+  }
+
+  @Benchmark
+  public void refUnknownClass (final Blackhole aBH)
+  {
+    aBH.consume (m_aCodeModel.ref ("org.example.unknown.DoesNotExist"));
+  }
+}
@@ -47,14 +47,17 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
-import java.nio.charset.CharsetEncoder;
-import java.util.BitSet;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import com.helger.jcodemodel.util.CountingOutputStream;
 import com.helger.jcodemodel.util.JCValueEnforcer;
-import com.helger.jcodemodel.util.UnicodeEscapeWriter;
+import com.helger.jcodemodel.util.JavaUnicodeEscapeWriter;
+import com.helger.jcodemodel.util.UTF8EscapeByteArrayWriter;
 
 /**
  * Receives generated code and writes to the appropriate storage.
@@ -63,39 +66,41 @@ import com.helger.jcodemodel.util.UnicodeEscapeWriter;
  */
 public abstract class AbstractCodeWriter implements Closeable
 {
-  private static final class JavaUnicodeEscapeWriter extends UnicodeEscapeWriter
+  /**
+   * Counts the bytes of a source file and informs the build listener when the
+   * file is closed.
+   */
+  private static final class MeasuringOutputStream extends CountingOutputStream
   {
-    private static final BitSet ESCAPE = new BitSet (128);
+    private final IJBuildListener m_aListener;
+    private final JPackage m_aPackage;
+    private final String m_sFilename;
+    private JavaUnicodeEscapeWriter m_aEscapeWriter;
+    private boolean m_bClosed = false;
 
-    static
+    MeasuringOutputStream (@Nonnull final OutputStream aOS,
+                           @Nonnull final IJBuildListener aListener,
+                           @Nonnull final JPackage aPackage,
+                           @Nonnull final String sFilename)
     {
-      for (int i = 0; i < 0x20; i++)
-        if (i != '\t' && i != '\r' && i != '\n')
-          ESCAPE.set (i, true);
-    }
-
-    // can't change this signature to Encoder because
-    // we can't have Encoder in method signature
-    private final CharsetEncoder _encoder;
-
-    private JavaUnicodeEscapeWriter (@Nonnull final OutputStreamWriter bw)
-    {
-      super (bw);
-      _encoder = Charset.forName (bw.getEncoding ()).newEncoder ();
+      super (aOS);
+      m_aListener = aListener;
+      m_aPackage = aPackage;
+      m_sFilename = sFilename;
     }
 
     @Override
-    protected boolean requireEscaping (final int ch)
+    public void close () throws IOException
     {
-      // control characters
-      if (ESCAPE.get (ch))
-        return true;
-
-      // check ASCII chars, for better performance
-      if (ch < 0x80)
-        return false;
-
-      return !_encoder.canEncode ((char) ch);
+      if (!m_bClosed)
+      {
+        m_bClosed = true;
+        super.close ();
+        m_aListener.onSourceFileWritten (m_aPackage,
+                                         m_sFilename,
+                                         getByteCount (),
+                                         m_aEscapeWriter.getEscapedCharCount ());
+      }
     }
   }
 
@@ -105,6 +110,21 @@ public abstract class AbstractCodeWriter implements Closeable
   private final Charset m_aEncoding;
   private final String m_sNewLine;
 
+  /**
+   * Encode source files directly into a byte array instead of using the
+   * writer stack.
+   */
+  private boolean m_bDirectUTF8Encoding = false;
+
+  /** The byte array that is reused for the direct encoding. */
+  private final AtomicReference <byte []> m_aSourceBuffer = new AtomicReference <> ();
+
+  /** The optional listener to be informed about written source files. */
+  private IJBuildListener m_aBuildListener;
+
+  /** The estimated size of the next file in bytes. 0 means unknown. */
+  private int m_nSizeHint = 0;
+
   @Nonnull
   protected static String getDefaultNewLine ()
   {
@@ -153,6 +173,105 @@ public abstract class AbstractCodeWriter implements Closeable
     return m_sNewLine;
   }
 
+  /**
+   * @return <code>true</code> if the direct UTF-8 encoding of source files is
+   *         enabled, <code>false</code> if not. Disabled by default.
+   * @see #setDirectUTF8Encoding(boolean)
+   */
+  public final boolean isDirectUTF8Encoding ()
+  {
+    return m_bDirectUTF8Encoding;
+  }
+
+  /**
+   * Enable or disable the direct UTF-8 encoding of source files. If enabled,
+   * {@link #openSource(JPackage, String)} encodes and escapes the source code
+   * directly into a reusable byte array. The stream is opened via
+   * {@link #openBinary(JPackage, String)} right away and the complete file is
+   * passed to it with a single write, when the returned writer is closed. This
+   * avoids the intermediate writer layers. The created bytes are identical to
+   * the ones created without this option.
+   *
+   * @param bDirectUTF8Encoding
+   *        <code>true</code> to enable, <code>false</code> to disable.
+   * @return this for chaining
+   * @throws IllegalStateException
+   *         If enabled and the encoding of this writer is not UTF-8
+   */
+  @Nonnull
+  public AbstractCodeWriter setDirectUTF8Encoding (final boolean bDirectUTF8Encoding)
+  {
+    if (bDirectUTF8Encoding)
+    {
+      final Charset aCharset = m_aEncoding != null ? m_aEncoding : Charset.defaultCharset ();
+      if (!aCharset.equals (StandardCharsets.UTF_8))
+        throw new IllegalStateException ("Direct encoding requires UTF-8 but encoding is " + aCharset.name ());
+    }
+    m_bDirectUTF8Encoding = bDirectUTF8Encoding;
+    return this;
+  }
+
+  /**
+   * @return The listener that is informed about written source files. May be
+   *         <code>null</code>.
+   */
+  @Nullable
+  public IJBuildListener getBuildListener ()
+  {
+    return m_aBuildListener;
+  }
+
+  /**
+   * Set the listener that is informed about all source files written by
+   * {@link #openSource(JPackage, String)}. This is done automatically by
+   * {@link JCodeModel#build(AbstractCodeWriter, AbstractCodeWriter)} for the
+   * duration of the build, if a listener is registered at the code model. The
+   * previously set listener is restored afterwards.
+   *
+   * @param aBuildListener
+   *        The listener to use. May be <code>null</code>.
+   * @return this for chaining
+   */
+  @Nonnull
+  public AbstractCodeWriter setBuildListener (@Nullable final IJBuildListener aBuildListener)
+  {
+    m_aBuildListener = aBuildListener;
+    return this;
+  }
+
+  /**
+   * @return The estimated size in bytes of the file that is opened next. 0 if
+   *         unknown. Implementations of {@link #openBinary(JPackage, String)}
+   *         may use it to presize their buffers.
+   * @see #setSizeHint(int)
+   * @since 3.0.0
+   */
+  @Nonnegative
+  public int getSizeHint ()
+  {
+    return m_nSizeHint;
+  }
+
+  /**
+   * Set the estimated size of the file that is opened next. This is done
+   * automatically by {@link JCodeModel#build(AbstractCodeWriter, AbstractCodeWriter)}
+   * for all source files, based on {@link JDefinedClass#estimateSourceSize()}.
+   * The hint is reset when the next source file was opened. It is only a hint -
+   * the file may be smaller or larger.
+   *
+   * @param nSizeHint
+   *        The estimated size in bytes. 0 means unknown. Must be &ge; 0.
+   * @return this for chaining
+   * @since 3.0.0
+   */
+  @Nonnull
+  public AbstractCodeWriter setSizeHint (@Nonnegative final int nSizeHint)
+  {
+    JCValueEnforcer.isGE0 (nSizeHint, "SizeHint");
+    m_nSizeHint = nSizeHint;
+    return this;
+  }
+
   /**
    * Called by CodeModel to store the specified file. The callee must allocate a
    * storage to store the specified file. <br>
@@ -189,23 +308,90 @@ public abstract class AbstractCodeWriter implements Closeable
   @Nonnull
   public SourcePrintWriter openSource (@Nonnull final JPackage pkg, @Nonnull final String sFilename) throws IOException
   {
-    final OutputStream os = openBinary (pkg, sFilename);
-    final OutputStreamWriter bw = m_aEncoding != null ? new OutputStreamWriter (os, m_aEncoding)
-                                                      : new OutputStreamWriter (os);
+    if (m_bDirectUTF8Encoding)
+      return new SourcePrintWriter (_createDirectUTF8Writer (pkg, sFilename), m_sNewLine);
 
-    // create writer
-    Writer aWriter;
+    final Charset aCharset = m_aEncoding != null ? m_aEncoding : Charset.defaultCharset ();
+    final IJBuildListener aListener = m_aBuildListener;
+    if (aListener == null)
+    {
+      final OutputStream os = _openBinaryWithSizeHint (pkg, sFilename);
+      final OutputStreamWriter bw = new OutputStreamWriter (os, aCharset);
+
+      // create writer
+      final Writer aWriter = new JavaUnicodeEscapeWriter (bw, aCharset);
+
+      // Ensure result is buffered
+      return new SourcePrintWriter (new BufferedWriter (aWriter), m_sNewLine);
+    }
+
+    // Same as above but count the bytes and escaped chars
+    final MeasuringOutputStream os = new MeasuringOutputStream (_openBinaryWithSizeHint (pkg, sFilename),
+                                                                aListener,
+                                                                pkg,
+                                                                sFilename);
+    os.m_aEscapeWriter = new JavaUnicodeEscapeWriter (new OutputStreamWriter (os, aCharset), aCharset);
+    return new SourcePrintWriter (new BufferedWriter (os.m_aEscapeWriter), m_sNewLine);
+  }
+
+  @Nonnull
+  private OutputStream _openBinaryWithSizeHint (@Nonnull final JPackage pkg,
+                                                @Nonnull final String sFilename) throws IOException
+  {
     try
     {
-      aWriter = new JavaUnicodeEscapeWriter (bw);
+      return openBinary (pkg, sFilename);
     }
-    catch (final Throwable t)
+    finally
     {
-      aWriter = new UnicodeEscapeWriter (bw);
+      // The hint is only valid for a single file
+      m_nSizeHint = 0;
     }
+  }
+
+  @Nonnull
+  private Writer _createDirectUTF8Writer (@Nonnull final JPackage pkg,
+                                          @Nonnull final String sFilename) throws IOException
+  {
+    final int nSizeHint = m_nSizeHint;
+
+    // Open the target right away like the writer stack, so that errors are
+    // not swallowed by SourcePrintWriter.close
+    final OutputStream aOS = _openBinaryWithSizeHint (pkg, sFilename);
+
+    // Reuse the buffer of the last file, if available and large enough
+    byte [] aBuf = m_aSourceBuffer.getAndSet (null);
+    if (aBuf == null || aBuf.length < nSizeHint)
+      aBuf = new byte [Math.max (UTF8EscapeByteArrayWriter.DEFAULT_INITIAL_CAPACITY, nSizeHint)];
+    return new UTF8EscapeByteArrayWriter (aBuf)
+    {
+      private boolean m_bClosed = false;
+
+      @Override
+      public void close () throws IOException
+      {
+        if (!m_bClosed)
+        {
+          m_bClosed = true;
+          final int nBytes = size ();
+          final int nEscapedChars = getEscapedCharCount ();
+          try (final OutputStream os = aOS)
+          {
+            os.write (directGetBuffer (), 0, nBytes);
+          }
+          finally
+          {
+            // Return buffer to the pool
+            reset ();
+            m_aSourceBuffer.set (directGetBuffer ());
+          }
 
-    // Ensure result is buffered
-    return new SourcePrintWriter (new BufferedWriter (aWriter), m_sNewLine);
+          final IJBuildListener aListener = m_aBuildListener;
+          if (aListener != null)
+            aListener.onSourceFileWritten (pkg, sFilename, nBytes, nEscapedChars);
+        }
+      }
+    };
   }
 
   /**
@@ -41,6 +41,7 @@
 package com.helger.jcodemodel;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.helger.jcodemodel.util.JCNameUtilities;
 import com.helger.jcodemodel.util.JCValueEnforcer;
@@ -83,6 +84,41 @@ public abstract class AbstractJAnnotationValueOwned extends AbstractJAnnotationV
     }
   }
 
+  /**
+   * The class containing the annotated declaration. May be <code>null</code>.
+   */
+  private JDefinedClass m_aOwningClass;
+
+  /**
+   * @return The class containing the annotated declaration. May be
+   *         <code>null</code>.
+   */
+  @Nullable
+  final JDefinedClass getOwningClass ()
+  {
+    return m_aOwningClass;
+  }
+
+  /**
+   * @param aOwningClass
+   *        The class containing the annotated declaration. It is marked as
+   *        modified whenever this value changes. May be <code>null</code>.
+   * @see JDefinedClass#markModified()
+   */
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    m_aOwningClass = aOwningClass;
+  }
+
+  /**
+   * Mark the owning class as modified, if there is one.
+   */
+  final void markOwningClassModified ()
+  {
+    if (m_aOwningClass != null)
+      m_aOwningClass.markModified ();
+  }
+
   @Nonnull
   public AbstractJAnnotationValue wrap (@Nonnull final Enum <?> aEnumConstant)
   {
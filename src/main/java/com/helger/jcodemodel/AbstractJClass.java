@@ -67,7 +67,10 @@ public abstract class AbstractJClass extends AbstractJType
   public static final JTypeVar [] EMPTY_ARRAY = new JTypeVar [0];
 
   private final JCodeModel m_aOwner;
-  private JArrayClass m_aArrayClass;
+  // Lazily created derived types. Classes may be used by multiple threads.
+  private volatile JArrayClass m_aArrayClass;
+  private volatile JTypeWildcard m_aWildcardExtends;
+  private volatile JTypeWildcard m_aWildcardSuper;
 
   protected AbstractJClass (@Nonnull final JCodeModel aOwner)
   {
@@ -243,9 +246,18 @@ public abstract class AbstractJClass extends AbstractJType
   @Nonnull
   public JArrayClass array ()
   {
-    if (m_aArrayClass == null)
-      m_aArrayClass = new JArrayClass (owner (), this);
-    return m_aArrayClass;
+    JArrayClass ret = m_aArrayClass;
+    if (ret == null)
+      synchronized (this)
+      {
+        ret = m_aArrayClass;
+        if (ret == null)
+        {
+          ret = new JArrayClass (owner (), this);
+          m_aArrayClass = ret;
+        }
+      }
+    return ret;
   }
 
   /**
@@ -286,7 +298,7 @@ public abstract class AbstractJClass extends AbstractJType
   @Nonnull
   public JNarrowedClass narrow (final AbstractJClass clazz)
   {
-    return new JNarrowedClass (this, clazz);
+    return m_aOwner.internType (new JNarrowedClass (this, clazz));
   }
 
   @Nonnull
@@ -298,13 +310,13 @@ public abstract class AbstractJClass extends AbstractJType
   @Nonnull
   public AbstractJClass narrow (@Nonnull final AbstractJClass... clazz)
   {
-    return new JNarrowedClass (this, Arrays.asList (clazz.clone ()));
+    return m_aOwner.internType (new JNarrowedClass (this, Arrays.asList (clazz.clone ())));
   }
 
   @Nonnull
   public AbstractJClass narrow (@Nonnull final List <? extends AbstractJClass> clazz)
   {
-    return new JNarrowedClass (this, new ArrayList <AbstractJClass> (clazz));
+    return m_aOwner.internType (new JNarrowedClass (this, new ArrayList <AbstractJClass> (clazz)));
   }
 
   /**
@@ -314,7 +326,7 @@ public abstract class AbstractJClass extends AbstractJType
   @Nonnull
   public AbstractJClass narrowEmpty ()
   {
-    return new JNarrowedClass (this, new ArrayList <AbstractJClass> ());
+    return m_aOwner.internType (new JNarrowedClass (this, new ArrayList <AbstractJClass> ()));
   }
 
   /**
@@ -381,7 +393,22 @@ public abstract class AbstractJClass extends AbstractJType
   @Nonnull
   public final JTypeWildcard wildcard (@Nonnull final EBoundMode eMode)
   {
-    return new JTypeWildcard (this, eMode);
+    // Cached like the array class
+    JTypeWildcard ret = eMode == EBoundMode.SUPER ? m_aWildcardSuper : m_aWildcardExtends;
+    if (ret == null)
+      synchronized (this)
+      {
+        ret = eMode == EBoundMode.SUPER ? m_aWildcardSuper : m_aWildcardExtends;
+        if (ret == null)
+        {
+          ret = new JTypeWildcard (this, eMode);
+          if (eMode == EBoundMode.SUPER)
+            m_aWildcardSuper = ret;
+          else
+            m_aWildcardExtends = ret;
+        }
+      }
+    return ret;
   }
 
   /**
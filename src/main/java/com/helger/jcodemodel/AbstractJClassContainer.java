@@ -85,6 +85,12 @@ public abstract class AbstractJClassContainer <CLASSTYPE extends AbstractJClassC
    */
   protected Map <String, CLASSTYPE> m_aClasses;
 
+  /**
+   * The lazily created fully qualified name. Name, outer and package never
+   * change so it can be cached.
+   */
+  private String m_sFullName;
+
   /**
    * JClass constructor
    *
@@ -166,13 +172,22 @@ public abstract class AbstractJClassContainer <CLASSTYPE extends AbstractJClassC
   @Nullable
   public String fullName ()
   {
-    if (getOuter () instanceof AbstractJClassContainer <?>)
-      return ((AbstractJClassContainer <?>) getOuter ()).fullName () + '.' + name ();
-
-    final JPackage aPkg = _package ();
-    if (aPkg.isUnnamed ())
-      return name ();
-    return aPkg.name () + '.' + name ();
+    String ret = m_sFullName;
+    if (ret == null)
+    {
+      if (getOuter () instanceof AbstractJClassContainer <?>)
+        ret = ((AbstractJClassContainer <?>) getOuter ()).fullName () + '.' + name ();
+      else
+      {
+        final JPackage aPkg = _package ();
+        if (aPkg.isUnnamed ())
+          ret = name ();
+        else
+          ret = aPkg.name () + '.' + name ();
+      }
+      m_sFullName = ret;
+    }
+    return ret;
   }
 
   /**
@@ -248,6 +248,17 @@ public abstract class AbstractJType implements IJGenerable, IJOwned
     return false;
   }
 
+  /**
+   * @return <code>true</code> if {@link #name()} and {@link #fullName()} of
+   *         this type never change, so that types composed of it may cache
+   *         their names. <code>false</code> for types whose name is derived
+   *         from modifiable state.
+   */
+  /* package */boolean hasFixedName ()
+  {
+    return true;
+  }
+
   /**
    * Checks the relationship between two types.
    * <p>
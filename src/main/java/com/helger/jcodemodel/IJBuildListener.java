@@ -0,0 +1,134 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Listener that is informed about the progress of
+ * {@link JCodeModel#build(AbstractCodeWriter, AbstractCodeWriter)}, e.g. to
+ * collect metrics. Register it via
+ * {@link JCodeModel#setBuildListener(IJBuildListener)}. If no listener is
+ * registered, no measurements are taken at all.
+ * <p>
+ * When classes are rendered in parallel, {@link #onClassWritten} is invoked
+ * from the rendering threads, so implementations must be thread-safe.
+ *
+ * @author Philip Helger
+ * @since 3.0.0
+ * @see JCodeModelBuildMetrics
+ */
+public interface IJBuildListener
+{
+  /**
+   * Called before the first file is written.
+   *
+   * @param aCodeModel
+   *        The code model that is built.
+   */
+  default void onBuildStart (@Nonnull final JCodeModel aCodeModel)
+  {}
+
+  /**
+   * Called after a top-level class was rendered by the {@link JFormatter}.
+   *
+   * @param aClass
+   *        The class that was rendered.
+   * @param nCollectingNanos
+   *        Nanoseconds spent in the pass that collects the referenced types to
+   *        determine the imports.
+   * @param nPrintingNanos
+   *        Nanoseconds spent in the pass that prints the source code.
+   */
+  default void onClassWritten (@Nonnull final JDefinedClass aClass,
+                               @Nonnegative final long nCollectingNanos,
+                               @Nonnegative final long nPrintingNanos)
+  {}
+
+  /**
+   * Called after a Java source file was completely written by a code writer.
+   *
+   * @param aPackage
+   *        The package of the file.
+   * @param sFilename
+   *        The file name without the path.
+   * @param nBytes
+   *        The number of bytes passed to the code writer.
+   * @param nEscapedChars
+   *        The number of chars that were written as Java Unicode escapes.
+   */
+  default void onSourceFileWritten (@Nonnull final JPackage aPackage,
+                                    @Nonnull final String sFilename,
+                                    @Nonnegative final long nBytes,
+                                    @Nonnegative final long nEscapedChars)
+  {}
+
+  /**
+   * Called after a resource file was written.
+   *
+   * @param aPackage
+   *        The package of the file.
+   * @param sFilename
+   *        The file name without the path.
+   * @param nBytes
+   *        The number of bytes written.
+   * @param nWriteNanos
+   *        Nanoseconds spent for writing the file.
+   */
+  default void onResourceWritten (@Nonnull final JPackage aPackage,
+                                  @Nonnull final String sFilename,
+                                  @Nonnegative final long nBytes,
+                                  @Nonnegative final long nWriteNanos)
+  {}
+
+  /**
+   * Called after the build finished, even if it failed.
+   *
+   * @param aCodeModel
+   *        The code model that was built.
+   * @param nBuildNanos
+   *        Nanoseconds spent for the whole build, including closing the code
+   *        writers.
+   */
+  default void onBuildEnd (@Nonnull final JCodeModel aCodeModel, @Nonnegative final long nBuildNanos)
+  {}
+}
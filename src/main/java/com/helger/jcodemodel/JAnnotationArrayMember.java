@@ -48,6 +48,7 @@ import java.util.List;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Represents an arrays as annotation members
@@ -75,6 +76,23 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
     return _owner;
   }
 
+  @Override
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    super.setOwningClass (aOwningClass);
+    for (final AbstractJAnnotationValue aValue : _values)
+      if (aValue instanceof AbstractJAnnotationValueOwned)
+        ((AbstractJAnnotationValueOwned) aValue).setOwningClass (aOwningClass);
+  }
+
+  private void _addValue (@Nonnull final AbstractJAnnotationValue aValue)
+  {
+    _values.add (aValue);
+    if (aValue instanceof AbstractJAnnotationValueOwned)
+      ((AbstractJAnnotationValueOwned) aValue).setOwningClass (getOwningClass ());
+    markOwningClassModified ();
+  }
+
   /**
    * Adds an array member to this annotation
    *
@@ -86,7 +104,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   @Nonnull
   public JAnnotationArrayMember param (final String value)
   {
-    _values.add (wrap (value));
+    _addValue (wrap (value));
     return this;
   }
 
@@ -94,7 +112,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   public JAnnotationArrayMember params (@Nonnull final String... values)
   {
     for (final String value : values)
-      _values.add (wrap (value));
+      _addValue (wrap (value));
     return this;
   }
 
@@ -109,7 +127,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   @Nonnull
   public JAnnotationArrayMember param (final boolean value)
   {
-    _values.add (wrap (value));
+    _addValue (wrap (value));
     return this;
   }
 
@@ -117,7 +135,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   public JAnnotationArrayMember params (@Nonnull final boolean... values)
   {
     for (final boolean value : values)
-      _values.add (wrap (value));
+      _addValue (wrap (value));
     return this;
   }
 
@@ -132,7 +150,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   @Nonnull
   public JAnnotationArrayMember param (final byte value)
   {
-    _values.add (wrap (value));
+    _addValue (wrap (value));
     return this;
   }
 
@@ -140,7 +158,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   public JAnnotationArrayMember params (@Nonnull final byte... values)
   {
     for (final byte value : values)
-      _values.add (wrap (value));
+      _addValue (wrap (value));
     return this;
   }
 
@@ -155,7 +173,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   @Nonnull
   public JAnnotationArrayMember param (final char value)
   {
-    _values.add (wrap (value));
+    _addValue (wrap (value));
     return this;
   }
 
@@ -163,7 +181,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   public JAnnotationArrayMember params (@Nonnull final char... values)
   {
     for (final char value : values)
-      _values.add (wrap (value));
+      _addValue (wrap (value));
     return this;
   }
 
@@ -178,7 +196,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   @Nonnull
   public JAnnotationArrayMember param (final double value)
   {
-    _values.add (wrap (value));
+    _addValue (wrap (value));
     return this;
   }
 
@@ -186,7 +204,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   public JAnnotationArrayMember params (@Nonnull final double... values)
   {
     for (final double value : values)
-      _values.add (wrap (value));
+      _addValue (wrap (value));
     return this;
   }
 
@@ -201,7 +219,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   @Nonnull
   public JAnnotationArrayMember param (final long value)
   {
-    _values.add (wrap (value));
+    _addValue (wrap (value));
     return this;
   }
 
@@ -209,7 +227,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   public JAnnotationArrayMember params (@Nonnull final long... values)
   {
     for (final long value : values)
-      _values.add (wrap (value));
+      _addValue (wrap (value));
     return this;
   }
 
@@ -224,7 +242,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   @Nonnull
   public JAnnotationArrayMember param (final short value)
   {
-    _values.add (wrap (value));
+    _addValue (wrap (value));
     return this;
   }
 
@@ -232,7 +250,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   public JAnnotationArrayMember params (@Nonnull final short... values)
   {
     for (final short value : values)
-      _values.add (wrap (value));
+      _addValue (wrap (value));
     return this;
   }
 
@@ -247,7 +265,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   @Nonnull
   public JAnnotationArrayMember param (final int value)
   {
-    _values.add (wrap (value));
+    _addValue (wrap (value));
     return this;
   }
 
@@ -255,7 +273,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   public JAnnotationArrayMember params (@Nonnull final int... values)
   {
     for (final int value : values)
-      _values.add (wrap (value));
+      _addValue (wrap (value));
     return this;
   }
 
@@ -270,7 +288,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   @Nonnull
   public JAnnotationArrayMember param (final float value)
   {
-    _values.add (wrap (value));
+    _addValue (wrap (value));
     return this;
   }
 
@@ -278,7 +296,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   public JAnnotationArrayMember params (@Nonnull final float... values)
   {
     for (final float value : values)
-      _values.add (wrap (value));
+      _addValue (wrap (value));
     return this;
   }
 
@@ -293,7 +311,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   @Nonnull
   public JAnnotationArrayMember param (@Nonnull final Enum <?> aEnumConstant)
   {
-    _values.add (wrap (aEnumConstant));
+    _addValue (wrap (aEnumConstant));
     return this;
   }
 
@@ -301,7 +319,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   public JAnnotationArrayMember params (@Nonnull final Enum <?>... values)
   {
     for (final Enum <?> value : values)
-      _values.add (wrap (value));
+      _addValue (wrap (value));
     return this;
   }
 
@@ -316,7 +334,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   @Nonnull
   public JAnnotationArrayMember param (final JEnumConstant value)
   {
-    _values.add (wrap (value));
+    _addValue (wrap (value));
     return this;
   }
 
@@ -324,7 +342,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   public JAnnotationArrayMember params (@Nonnull final JEnumConstant... values)
   {
     for (final JEnumConstant value : values)
-      _values.add (wrap (value));
+      _addValue (wrap (value));
     return this;
   }
 
@@ -339,7 +357,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   @Nonnull
   public JAnnotationArrayMember param (final IJExpression value)
   {
-    _values.add (wrap (value));
+    _addValue (wrap (value));
     return this;
   }
 
@@ -347,7 +365,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   public JAnnotationArrayMember params (@Nonnull final IJExpression... values)
   {
     for (final IJExpression value : values)
-      _values.add (wrap (value));
+      _addValue (wrap (value));
     return this;
   }
 
@@ -362,7 +380,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   @Nonnull
   public JAnnotationArrayMember param (final Class <?> value)
   {
-    _values.add (wrap (value));
+    _addValue (wrap (value));
     return this;
   }
 
@@ -370,14 +388,14 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   public JAnnotationArrayMember params (@Nonnull final Class <?>... values)
   {
     for (final Class <?> value : values)
-      _values.add (wrap (value));
+      _addValue (wrap (value));
     return this;
   }
 
   @Nonnull
   public JAnnotationArrayMember param (final AbstractJType type)
   {
-    _values.add (wrap (type));
+    _addValue (wrap (type));
     return this;
   }
 
@@ -385,7 +403,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   public JAnnotationArrayMember params (@Nonnull final AbstractJType... values)
   {
     for (final AbstractJType value : values)
-      _values.add (wrap (value));
+      _addValue (wrap (value));
     return this;
   }
 
@@ -405,7 +423,7 @@ public class JAnnotationArrayMember extends AbstractJAnnotationValueOwned implem
   public JAnnotationUse annotate (@Nonnull final AbstractJClass clazz)
   {
     final JAnnotationUse a = new JAnnotationUse (clazz);
-    _values.add (a);
+    _addValue (a);
     return a;
   }
 
@@ -189,6 +189,16 @@ public class JAnnotationUse extends AbstractJAnnotationValueOwned
     return aParam != null ? aParam.value () : null;
   }
 
+  @Override
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    super.setOwningClass (aOwningClass);
+    if (m_aMemberValues != null)
+      for (final AbstractJAnnotationValue aValue : m_aMemberValues.values ())
+        if (aValue instanceof AbstractJAnnotationValueOwned)
+          ((AbstractJAnnotationValueOwned) aValue).setOwningClass (aOwningClass);
+  }
+
   @Nonnull
   private JAnnotationUse _addValue (@Nonnull final String sName,
                                     @Nonnull final AbstractJAnnotationValue aAnnotationValue)
@@ -202,6 +212,9 @@ public class JAnnotationUse extends AbstractJAnnotationValueOwned
       m_aMemberValues = new LinkedHashMap <> ();
     m_aMemberValues.put (sName, aAnnotationValue);
 
+    if (aAnnotationValue instanceof AbstractJAnnotationValueOwned)
+      ((AbstractJAnnotationValueOwned) aAnnotationValue).setOwningClass (getOwningClass ());
+    markOwningClassModified ();
     return this;
   }
 
@@ -41,6 +41,7 @@
 package com.helger.jcodemodel;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Anonymous class quick hack.
@@ -54,6 +55,12 @@ public class JAnonymousClass extends JDefinedClass
    */
   private final AbstractJClass m_aBaseClass;
 
+  /**
+   * The class whose code instantiates this anonymous class. May be
+   * <code>null</code>.
+   */
+  private JDefinedClass m_aEnclosingClass;
+
   protected JAnonymousClass (@Nonnull final AbstractJClass aBaseClass)
   {
     super (aBaseClass.owner (), 0, null);
@@ -69,6 +76,50 @@ public class JAnonymousClass extends JDefinedClass
     return m_aBaseClass;
   }
 
+  /**
+   * @return The class whose code instantiates this anonymous class. May be
+   *         <code>null</code> if it was not yet used in a class.
+   * @since 3.0.0
+   */
+  @Nullable
+  public JDefinedClass getEnclosingClass ()
+  {
+    return m_aEnclosingClass;
+  }
+
+  /**
+   * Set the class whose code instantiates this anonymous class. All
+   * modifications of this anonymous class mark the enclosing class as
+   * modified.
+   *
+   * @param aEnclosingClass
+   *        The enclosing class. May not be <code>null</code>.
+   */
+  void setEnclosingClass (@Nonnull final JDefinedClass aEnclosingClass)
+  {
+    // Avoid a cycle, e.g. if this class instantiates itself
+    JDefinedClass aCur = aEnclosingClass;
+    while (aCur != null)
+    {
+      if (aCur == this)
+        return;
+      final IJClassContainer <?> aOuter = aCur.getOuter ();
+      if (aOuter instanceof JDefinedClass)
+        aCur = (JDefinedClass) aOuter;
+      else
+        aCur = aCur instanceof JAnonymousClass ? ((JAnonymousClass) aCur).m_aEnclosingClass : null;
+    }
+    m_aEnclosingClass = aEnclosingClass;
+  }
+
+  @Override
+  public void markModified ()
+  {
+    super.markModified ();
+    if (m_aEnclosingClass != null)
+      m_aEnclosingClass.markModified ();
+  }
+
   @Override
   @Nonnull
   public String fullName ()
@@ -85,6 +85,12 @@ public class JArrayClass extends AbstractJClass
     return m_aComponentType.fullName () + "[]";
   }
 
+  @Override
+  boolean hasFixedName ()
+  {
+    return m_aComponentType.hasFixedName ();
+  }
+
   @Override
   @Nonnull
   public String binaryName ()
@@ -175,6 +181,6 @@ public class JArrayClass extends AbstractJClass
     if (c == m_aComponentType)
       return this;
 
-    return new JArrayClass (owner (), c);
+    return c.array ();
   }
 }
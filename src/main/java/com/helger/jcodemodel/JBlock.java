@@ -83,9 +83,83 @@ public class JBlock implements IJGenerable, IJStatement
    */
   private int m_nPos;
 
+  /**
+   * The class containing this block. It is marked as modified whenever this
+   * block or one of the contained statements changes. May be
+   * <code>null</code>.
+   */
+  private JDefinedClass m_aOwningClass;
+
   public JBlock ()
   {}
 
+  /**
+   * Set the class containing this block, so that all later changes to this
+   * block and to the contained statements mark it as modified.
+   *
+   * @param aOwningClass
+   *        The owning class. May be <code>null</code>.
+   * @see JDefinedClass#markModified()
+   */
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    m_aOwningClass = aOwningClass;
+    for (final Object aContent : m_aContentList)
+      setOwningClass (aContent, aOwningClass);
+  }
+
+  /**
+   * Pass the owning class on to a statement, declaration or expression that
+   * can be modified after it was added to a block. Anonymous classes
+   * instantiated by it are linked to the owning class as well.
+   *
+   * @param aStatementOrDeclaration
+   *        The statement, declaration or expression. May be <code>null</code>.
+   * @param aOwningClass
+   *        The owning class. May be <code>null</code>.
+   */
+  static void setOwningClass (@Nullable final Object aStatementOrDeclaration,
+                              @Nullable final JDefinedClass aOwningClass)
+  {
+    // The types are disjoint
+    if (aStatementOrDeclaration instanceof JBlock)
+      ((JBlock) aStatementOrDeclaration).setOwningClass (aOwningClass);
+    if (aStatementOrDeclaration instanceof JVar)
+      ((JVar) aStatementOrDeclaration).setOwningClass (aOwningClass);
+    if (aStatementOrDeclaration instanceof JInvocation)
+      ((JInvocation) aStatementOrDeclaration).setOwningClass (aOwningClass);
+    if (aStatementOrDeclaration instanceof JConditional)
+      ((JConditional) aStatementOrDeclaration).setOwningClass (aOwningClass);
+    if (aStatementOrDeclaration instanceof JForLoop)
+      ((JForLoop) aStatementOrDeclaration).setOwningClass (aOwningClass);
+    if (aStatementOrDeclaration instanceof JForEach)
+      ((JForEach) aStatementOrDeclaration).setOwningClass (aOwningClass);
+    if (aStatementOrDeclaration instanceof JWhileLoop)
+      ((JWhileLoop) aStatementOrDeclaration).setOwningClass (aOwningClass);
+    if (aStatementOrDeclaration instanceof JDoLoop)
+      ((JDoLoop) aStatementOrDeclaration).setOwningClass (aOwningClass);
+    if (aStatementOrDeclaration instanceof JSwitch)
+      ((JSwitch) aStatementOrDeclaration).setOwningClass (aOwningClass);
+    if (aStatementOrDeclaration instanceof JCase)
+      ((JCase) aStatementOrDeclaration).setOwningClass (aOwningClass);
+    if (aStatementOrDeclaration instanceof JTryBlock)
+      ((JTryBlock) aStatementOrDeclaration).setOwningClass (aOwningClass);
+    if (aStatementOrDeclaration instanceof JSynchronizedBlock)
+      ((JSynchronizedBlock) aStatementOrDeclaration).setOwningClass (aOwningClass);
+    if (aStatementOrDeclaration instanceof JReturn)
+      setOwningClass (((JReturn) aStatementOrDeclaration).expr (), aOwningClass);
+    if (aStatementOrDeclaration instanceof JThrow)
+      setOwningClass (((JThrow) aStatementOrDeclaration).expr (), aOwningClass);
+    if (aStatementOrDeclaration instanceof JAssignment)
+      setOwningClass (((JAssignment) aStatementOrDeclaration).rhs (), aOwningClass);
+  }
+
+  private void _markModified ()
+  {
+    if (m_aOwningClass != null)
+      m_aOwningClass.markModified ();
+  }
+
   @Deprecated
   protected JBlock (final boolean bBracesRequired, final boolean bIndentRequired)
   {
@@ -114,6 +188,7 @@ public class JBlock implements IJGenerable, IJStatement
   public JBlock virtual (final boolean bVirtualBlock)
   {
     m_bVirtualBlock = bVirtualBlock;
+    _markModified ();
     return this;
   }
 
@@ -126,6 +201,7 @@ public class JBlock implements IJGenerable, IJStatement
   public JBlock bracesRequired (final boolean bBracesRequired)
   {
     m_bBracesRequired = bBracesRequired;
+    _markModified ();
     return this;
   }
 
@@ -138,6 +214,7 @@ public class JBlock implements IJGenerable, IJStatement
   public JBlock indentRequired (final boolean bIndentRequired)
   {
     m_bIndentRequired = bIndentRequired;
+    _markModified ();
     return this;
   }
 
@@ -172,17 +249,21 @@ public class JBlock implements IJGenerable, IJStatement
       m_bIndentRequired = true;
     }
 
+    setOwningClass (aStatementOrDeclaration, m_aOwningClass);
+    _markModified ();
     return aStatementOrDeclaration;
   }
 
   public void remove (final Object o)
   {
     m_aContentList.remove (o);
+    _markModified ();
   }
 
   public void remove (@Nonnegative final int index)
   {
     m_aContentList.remove (index);
+    _markModified ();
   }
 
   /**
@@ -192,6 +273,7 @@ public class JBlock implements IJGenerable, IJStatement
   {
     m_aContentList.clear ();
     m_nPos = 0;
+    _markModified ();
   }
 
   /**
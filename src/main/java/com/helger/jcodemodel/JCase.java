@@ -63,6 +63,11 @@ public class JCase implements IJStatement
    */
   private JBlock m_aBody;
 
+  /**
+   * The class containing this statement. May be <code>null</code>.
+   */
+  private JDefinedClass m_aOwningClass;
+
   /**
    * Construct a case statement
    *
@@ -90,6 +95,24 @@ public class JCase implements IJStatement
     m_bIsDefaultCase = isDefaultCase;
   }
 
+  /**
+   * @param aOwningClass
+   *        The class containing this statement. May be <code>null</code>.
+   * @see JBlock#setOwningClass(JDefinedClass)
+   */
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    m_aOwningClass = aOwningClass;
+    if (m_aBody != null)
+      m_aBody.setOwningClass (aOwningClass);
+  }
+
+  private void _markModified ()
+  {
+    if (m_aOwningClass != null)
+      m_aOwningClass.markModified ();
+  }
+
   @Nullable
   public IJExpression label ()
   {
@@ -105,7 +128,11 @@ public class JCase implements IJStatement
   public JBlock body ()
   {
     if (m_aBody == null)
+    {
       m_aBody = new JBlock ();
+      m_aBody.setOwningClass (m_aOwningClass);
+      _markModified ();
+    }
     return m_aBody;
   }
 
@@ -41,6 +41,7 @@
 package com.helger.jcodemodel;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Catch block for a try/catch/finally statement
@@ -51,11 +52,35 @@ public class JCatchBlock implements IJGenerable
   private JVar _var;
   private final JBlock _body = new JBlock ();
 
+  /**
+   * The class containing this catch block. May be <code>null</code>.
+   */
+  private JDefinedClass m_aOwningClass;
+
   protected JCatchBlock (@Nonnull final AbstractJClass exception)
   {
     this._exception = exception;
   }
 
+  /**
+   * @param aOwningClass
+   *        The class containing this catch block. May be <code>null</code>.
+   * @see JBlock#setOwningClass(JDefinedClass)
+   */
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    m_aOwningClass = aOwningClass;
+    _body.setOwningClass (aOwningClass);
+    if (_var != null)
+      _var.setOwningClass (aOwningClass);
+  }
+
+  private void _markModified ()
+  {
+    if (m_aOwningClass != null)
+      m_aOwningClass.markModified ();
+  }
+
   @Nonnull
   public AbstractJClass exception ()
   {
@@ -68,6 +93,8 @@ public class JCatchBlock implements IJGenerable
     if (_var != null)
       throw new IllegalStateException ();
     _var = new JVar (JMods.forVar (JMod.FINAL), _exception, name, null);
+    _var.setOwningClass (m_aOwningClass);
+    _markModified ();
     return _var;
   }
 
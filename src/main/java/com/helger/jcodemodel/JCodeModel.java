@@ -42,14 +42,29 @@ package com.helger.jcodemodel;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.PrintStream;
+import java.io.StringWriter;
 import java.nio.charset.Charset;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -63,6 +78,7 @@ import com.helger.jcodemodel.meta.ErrorTypeFound;
 import com.helger.jcodemodel.meta.JCodeModelJavaxLangModelAdapter;
 import com.helger.jcodemodel.util.JCSecureLoader;
 import com.helger.jcodemodel.util.JCValueEnforcer;
+import com.helger.jcodemodel.util.NullWriter;
 import com.helger.jcodemodel.writer.FileCodeWriter;
 import com.helger.jcodemodel.writer.ProgressCodeWriter;
 
@@ -95,6 +111,18 @@ import com.helger.jcodemodel.writer.ProgressCodeWriter;
  * <p>
  * Most of the time you'd want to populate new type definitions in a
  * {@link JCodeModel}. See {@link #_class(String, EClassType)}.
+ * <h2>Threading</h2>
+ * <p>
+ * The registration operations are thread-safe: packages
+ * ({@link #_package(String)}), top-level classes
+ * ({@link JPackage#_class(int, String, EClassType)}, {@link #_class(String)}
+ * etc.), resource files and class references ({@link #ref(Class)},
+ * {@link #ref(String)}, narrowed types, error classes) may be created by
+ * multiple threads at the same time, e.g. one thread per package. A single
+ * {@link JDefinedClass} (including its inner classes, methods and fields) must
+ * only be modified by one thread at a time, and the model must not be modified
+ * while it is built. To avoid any contention, classes may also be created in
+ * separate fragments ({@link #createFragment()}) that are merged afterwards.
  */
 public final class JCodeModel
 {
@@ -133,11 +161,29 @@ public final class JCodeModel
     primitiveToBox = Collections.unmodifiableMap (m2);
   }
 
+  /**
+   * Number of classes per thread that may be rendered ahead of the code writer
+   * in {@link #build(AbstractCodeWriter, AbstractCodeWriter, int)}.
+   */
+  public static final int DEFAULT_PENDING_CLASSES_PER_THREAD = 4;
+
   /** The packages that this JCodeWriter contains. */
-  private final Map <String, JPackage> m_aPackages = new HashMap <> ();
+  private final Map <String, JPackage> m_aPackages = new ConcurrentHashMap <> ();
 
   /** All JReferencedClasses are pooled here. */
-  private final Map <Class <?>, JReferencedClass> m_aRefClasses = new HashMap <> ();
+  private final Map <Class <?>, JReferencedClass> m_aRefClasses = new ConcurrentHashMap <> ();
+
+  /**
+   * The results of {@link #ref(String)} by name, including the
+   * {@link JDirectClass}es created for classes that could not be loaded.
+   */
+  private final Map <String, AbstractJClass> m_aRefClassesByName = new ConcurrentHashMap <> ();
+
+  /**
+   * The canonical instances of all narrowed classes, so that structurally
+   * identical types are the same object.
+   */
+  private final Map <AbstractJClass, AbstractJClass> m_aInternedTypes = new ConcurrentHashMap <> ();
 
   /** Obtains a reference to the special "null" type. */
   public final JNullType NULL = new JNullType (this);
@@ -192,6 +238,30 @@ public final class JCodeModel
   /** The newline string to be used. Defaults to system default */
   private String m_sBuildingNewLine = AbstractCodeWriter.getDefaultNewLine ();
 
+  /** Use fully qualified names instead of imports when building */
+  private boolean m_bBuildingFullyQualifiedNames = false;
+
+  /** Build compact sources without comments and formatting */
+  private boolean m_bBuildingCompactSources = false;
+
+  /** The optional listener informed about the build progress */
+  private IJBuildListener m_aBuildListener;
+
+  /** The optional cache for the imports of the built classes */
+  private JImportPlanCache m_aImportPlanCache;
+
+  /** The optional cache for the source code of the built classes */
+  private JRenderedClassCache m_aRenderedClassCache;
+
+  /** The number of error classes created for this model */
+  private final AtomicInteger m_aErrorClassCount = new AtomicInteger (0);
+
+  /** Did the last build write references to error types? */
+  private final AtomicBoolean m_aBuiltErrorTypeRefs = new AtomicBoolean (false);
+
+  /** Were classes emitted since the last build? */
+  private boolean m_bEmittedSinceLastBuild = false;
+
   public JCodeModel ()
   {}
 
@@ -205,13 +275,19 @@ public final class JCodeModel
   @Nonnull
   public JPackage _package (@Nonnull final String name)
   {
-    JPackage p = m_aPackages.get (name);
-    if (p == null)
-    {
-      p = new JPackage (name, this);
-      m_aPackages.put (name, p);
-    }
-    return p;
+    // Packages may be created concurrently and resolved implicitly while
+    // classes are rendered in parallel. Existing packages are found without
+    // locking.
+    final JPackage p = m_aPackages.get (name);
+    if (p != null)
+      return p;
+    return m_aPackages.computeIfAbsent (name, x -> new JPackage (x, this));
+  }
+
+  @Nonnull
+  private JPackage [] _getAllPackages ()
+  {
+    return m_aPackages.values ().toArray (new JPackage [0]);
   }
 
   @Nonnull
@@ -355,11 +431,12 @@ public final class JCodeModel
    * Error-types represents holes or place-holders that can't be filled.
    * References to error-classes can be used in hidden class-models. Such
    * classes should never be actually written but can be somehow used during
-   * code generation. Use {@code JCodeModel#buildsErrorTypeRefs} method to test
-   * if your generated Java-sources contains references to error-types.
+   * code generation. Use {@code JCodeModel#hasBuiltErrorTypeRefs} method after
+   * building to test if your generated Java-sources contains references to
+   * error-types.
    * <p>
    * You should probably always check generated code with
-   * {@code JCodeModel#buildsErrorTypeRefs} method if you use any error-types.
+   * {@code JCodeModel#hasBuiltErrorTypeRefs} method if you use any error-types.
    * <p>
    * Most of error-types methods throws {@code JErrorClassUsedException}
    * unchecked exceptions. Be careful and use {@link AbstractJType#isError()
@@ -369,7 +446,7 @@ public final class JCodeModel
    * @param sMessage
    *        some free form text message to identify source of error
    * @return New {@link JErrorClass}
-   * @see JCodeModel#buildsErrorTypeRefs()
+   * @see JCodeModel#hasBuiltErrorTypeRefs()
    * @see JErrorClass
    */
   @Nonnull
@@ -388,11 +465,12 @@ public final class JCodeModel
    * Error-types represents holes or place-holders that can't be filled.
    * References to error-classes can be used in hidden class-models. Such
    * classes should never be actually written but can be somehow used during
-   * code generation. Use {@code JCodeModel#buildsErrorTypeRefs} method to test
-   * if your generated Java-sources contains references to error-types.
+   * code generation. Use {@code JCodeModel#hasBuiltErrorTypeRefs} method after
+   * building to test if your generated Java-sources contains references to
+   * error-types.
    * <p>
    * You should probably always check generated code with
-   * {@code JCodeModel#buildsErrorTypeRefs} method if you use any error-types.
+   * {@code JCodeModel#hasBuiltErrorTypeRefs} method if you use any error-types.
    * <p>
    * Most of error-types methods throws {@code JErrorClassUsedException}
    * unchecked exceptions. Be careful and use {@link AbstractJType#isError()
@@ -404,7 +482,7 @@ public final class JCodeModel
    * @param sMessage
    *        some free form text message to identify source of error
    * @return New {@link JErrorClass}
-   * @see JCodeModel#buildsErrorTypeRefs()
+   * @see JCodeModel#hasBuiltErrorTypeRefs()
    * @see JErrorClass
    */
   @Nonnull
@@ -414,14 +492,39 @@ public final class JCodeModel
   }
 
   /**
-   * Check if any error-types leaked into output Java-sources.
+   * Called by the constructor of {@link JErrorClass}.
+   */
+  void onErrorClassCreated ()
+  {
+    m_aErrorClassCount.incrementAndGet ();
+  }
+
+  /**
+   * Called when a class containing error types was written.
+   */
+  void onErrorTypeRefBuilt ()
+  {
+    m_aBuiltErrorTypeRefs.set (true);
+  }
+
+  /**
+   * Check if any error-types leaked into output Java-sources. If no error class
+   * was ever created for this model, this is answered without traversing the
+   * model. Otherwise all classes are traversed.
    *
    * @return <code>true</code> if so
    * @see JCodeModel#errorClass(String)
+   * @deprecated Since 3.0.0. This traverses the whole model. Build the model
+   *             and use {@link #hasBuiltErrorTypeRefs()} instead, which
+   *             answers in constant time.
    */
+  @Deprecated
   public boolean buildsErrorTypeRefs ()
   {
-    final JPackage [] pkgs = m_aPackages.values ().toArray (new JPackage [m_aPackages.size ()]);
+    if (m_aErrorClassCount.get () == 0)
+      return false;
+
+    final JPackage [] pkgs = _getAllPackages ();
     // avoid concurrent modification exception
     for (final JPackage pkg : pkgs)
     {
@@ -431,6 +534,57 @@ public final class JCodeModel
     return false;
   }
 
+  /**
+   * Check if the last build wrote any references to error-types. This includes
+   * the classes written via {@link #emit(JDefinedClass, AbstractCodeWriter)}
+   * before and after that build. This information is gathered while writing
+   * the classes, so no additional traversal of the model is required.
+   *
+   * @return <code>true</code> if so
+   * @see #errorClass(String)
+   * @since 3.0.0
+   */
+  public boolean hasBuiltErrorTypeRefs ()
+  {
+    return m_aBuiltErrorTypeRefs.get ();
+  }
+
+  /**
+   * Create a new, empty fragment of this model. Classes can be created in the
+   * fragment without any synchronization with other fragments or this model,
+   * and are added to this model by {@link #merge(JCodeModelFragment)}.
+   *
+   * @return A new fragment. Never <code>null</code>.
+   * @since 3.0.0
+   */
+  @Nonnull
+  public JCodeModelFragment createFragment ()
+  {
+    return new JCodeModelFragment (this);
+  }
+
+  /**
+   * Add all classes and resources of a fragment to this model. The fragment
+   * cannot be used any more afterwards. Merging different fragments is
+   * thread-safe. If a class of the fragment already exists in this model,
+   * nothing is merged (see {@link JCodeModelFragment} for the details).
+   *
+   * @param aFragment
+   *        The fragment to merge. Must have been created by
+   *        {@link #createFragment()} of this model.
+   * @throws JClassAlreadyExistsException
+   *         If a class of the fragment already exists in this model
+   * @throws IllegalStateException
+   *         If the fragment was already merged
+   * @since 3.0.0
+   */
+  public void merge (@Nonnull final JCodeModelFragment aFragment) throws JClassAlreadyExistsException
+  {
+    JCValueEnforcer.notNull (aFragment, "Fragment");
+    JCValueEnforcer.isTrue (aFragment.owner () == this, "The fragment belongs to a different code model");
+    aFragment.mergeIntoOwner ();
+  }
+
   /**
    * Gets a reference to the already created generated class.
    *
@@ -525,6 +679,199 @@ public final class JCodeModel
     return this;
   }
 
+  /**
+   * @return <code>true</code> if source files are built with fully qualified
+   *         names instead of imports. <code>false</code> by default.
+   * @since 3.0.0
+   */
+  public boolean isBuildingFullyQualifiedNames ()
+  {
+    return m_bBuildingFullyQualifiedNames;
+  }
+
+  /**
+   * Enable or disable building source files with fully qualified names instead
+   * of import statements. This renders each class in a single pass, which is
+   * faster and well suited for code that is only consumed by a compiler. See
+   * {@link JFormatter#setFullyQualifiedNames(boolean)} for details.
+   *
+   * @param bFullyQualifiedNames
+   *        <code>true</code> to enable, <code>false</code> to disable.
+   * @return this for chaining
+   * @since 3.0.0
+   */
+  @Nonnull
+  public JCodeModel setBuildingFullyQualifiedNames (final boolean bFullyQualifiedNames)
+  {
+    m_bBuildingFullyQualifiedNames = bFullyQualifiedNames;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if compact source files without comments,
+   *         indentation and line breaks are built. <code>false</code> by
+   *         default.
+   * @since 3.0.0
+   */
+  public boolean isBuildingCompactSources ()
+  {
+    return m_bBuildingCompactSources;
+  }
+
+  /**
+   * Enable or disable building compact source files. These contain no
+   * comments, no indentation and only the whitespace that is required to
+   * separate the tokens. This reduces the size of the created files and the
+   * time to create them and is well suited for code that is only consumed by a
+   * compiler. See {@link JFormatter#setCompact(boolean)} for details.
+   *
+   * @param bCompactSources
+   *        <code>true</code> to enable, <code>false</code> to disable.
+   * @return this for chaining
+   * @since 3.0.0
+   */
+  @Nonnull
+  public JCodeModel setBuildingCompactSources (final boolean bCompactSources)
+  {
+    m_bBuildingCompactSources = bCompactSources;
+    return this;
+  }
+
+  /**
+   * @return The cache for the imports of the built classes. May be
+   *         <code>null</code>.
+   * @since 3.0.0
+   */
+  @Nullable
+  public JImportPlanCache getImportPlanCache ()
+  {
+    return m_aImportPlanCache;
+  }
+
+  /**
+   * Set the cache for the imports of the built classes. When building this
+   * model repeatedly, the import collection pass is skipped for all classes
+   * that were not modified in between. See {@link JImportPlanCache} for the
+   * details on what is considered a modification.
+   *
+   * @param aImportPlanCache
+   *        The cache to use. May be <code>null</code> to disable caching.
+   * @return this for chaining
+   * @since 3.0.0
+   */
+  @Nonnull
+  public JCodeModel setImportPlanCache (@Nullable final JImportPlanCache aImportPlanCache)
+  {
+    m_aImportPlanCache = aImportPlanCache;
+    return this;
+  }
+
+  /**
+   * @return The cache for the source code of the built classes. May be
+   *         <code>null</code>.
+   * @since 3.0.0
+   */
+  @Nullable
+  public JRenderedClassCache getRenderedClassCache ()
+  {
+    return m_aRenderedClassCache;
+  }
+
+  /**
+   * Set the cache for the source code of the built classes. When building this
+   * model repeatedly, only the classes that were modified in between are
+   * rendered again. See {@link JRenderedClassCache} for the details on what is
+   * considered a modification.
+   *
+   * @param aRenderedClassCache
+   *        The cache to use. May be <code>null</code> to disable caching.
+   * @return this for chaining
+   * @since 3.0.0
+   */
+  @Nonnull
+  public JCodeModel setRenderedClassCache (@Nullable final JRenderedClassCache aRenderedClassCache)
+  {
+    m_aRenderedClassCache = aRenderedClassCache;
+    return this;
+  }
+
+  /**
+   * @return The listener that is informed about the progress of all builds.
+   *         May be <code>null</code>.
+   */
+  @Nullable
+  public IJBuildListener getBuildListener ()
+  {
+    return m_aBuildListener;
+  }
+
+  /**
+   * Called when a top-level class was removed from its package, to free the
+   * cached information about it.
+   *
+   * @param aClass
+   *        The removed class.
+   */
+  void onClassRemoved (@Nonnull final JDefinedClass aClass)
+  {
+    final JImportPlanCache aImportPlanCache = m_aImportPlanCache;
+    if (aImportPlanCache != null)
+      aImportPlanCache.remove (aClass);
+    final JRenderedClassCache aRenderedClassCache = m_aRenderedClassCache;
+    if (aRenderedClassCache != null)
+      aRenderedClassCache.remove (aClass);
+  }
+
+  /**
+   * Set the listener that is informed about the progress of all builds, e.g.
+   * {@link JCodeModelBuildMetrics}. While building, the listener is also set
+   * at the used code writers, to measure the written source files.
+   *
+   * @param aBuildListener
+   *        The listener to use. May be <code>null</code> to disable all
+   *        measurements.
+   * @return this for chaining
+   * @since 3.0.0
+   */
+  @Nonnull
+  public JCodeModel setBuildListener (@Nullable final IJBuildListener aBuildListener)
+  {
+    m_aBuildListener = aBuildListener;
+    return this;
+  }
+
+  private void _onBuildBegin ()
+  {
+    // Keep the information of the classes emitted before this build
+    if (!m_bEmittedSinceLastBuild)
+      m_aBuiltErrorTypeRefs.set (false);
+    m_bEmittedSinceLastBuild = false;
+  }
+
+  private long _onBuildStart (@Nonnull final IJBuildListener aListener,
+                              @Nonnull final AbstractCodeWriter source,
+                              @Nonnull final AbstractCodeWriter resource)
+  {
+    source.setBuildListener (aListener);
+    resource.setBuildListener (aListener);
+    aListener.onBuildStart (this);
+    return System.nanoTime ();
+  }
+
+  private void _onBuildEnd (@Nonnull final IJBuildListener aListener,
+                            @Nonnull final AbstractCodeWriter source,
+                            @Nullable final IJBuildListener aPrevSourceListener,
+                            @Nonnull final AbstractCodeWriter resource,
+                            @Nullable final IJBuildListener aPrevResourceListener,
+                            final long nStartNanos)
+  {
+    final long nBuildNanos = System.nanoTime () - nStartNanos;
+    // Restore the listeners the caller may have set
+    resource.setBuildListener (aPrevResourceListener);
+    source.setBuildListener (aPrevSourceListener);
+    aListener.onBuildEnd (this, nBuildNanos);
+  }
+
   /**
    * Generates Java source code. A convenience method for
    * <code>build(destDir,destDir,status)</code>.
@@ -623,20 +970,348 @@ public final class JCodeModel
   public void build (@Nonnull final AbstractCodeWriter source,
                      @Nonnull final AbstractCodeWriter resource) throws IOException
   {
+    _onBuildBegin ();
+    final IJBuildListener aListener = m_aBuildListener;
+    final IJBuildListener aPrevSourceListener = source.getBuildListener ();
+    final IJBuildListener aPrevResourceListener = resource.getBuildListener ();
+    final long nStartNanos = aListener == null ? 0 : _onBuildStart (aListener, source, resource);
     try
     {
-      final JPackage [] pkgs = m_aPackages.values ().toArray (new JPackage [m_aPackages.size ()]);
+      final JPackage [] pkgs = _getAllPackages ();
+      // One formatter for all classes
+      final JFormatter aFormatter = createBuildFormatter (new SourcePrintWriter (NullWriter.getInstance (),
+                                                                                 source.getNewLine ()));
       // avoid concurrent modification exception
       for (final JPackage pkg : pkgs)
-        pkg.build (source, resource);
+        pkg.build (source, resource, aFormatter);
     }
     finally
     {
-      source.close ();
-      resource.close ();
+      try
+      {
+        source.close ();
+        resource.close ();
+      }
+      finally
+      {
+        if (aListener != null)
+          _onBuildEnd (aListener, source, aPrevSourceListener, resource, aPrevResourceListener, nStartNanos);
+      }
+    }
+  }
+
+  /**
+   * Generates Java source code, rendering the top-level classes in parallel.
+   * The source code of the classes is created concurrently on the provided
+   * executor, but all files are handed to the code writers on the calling
+   * thread and in exactly the same order as in
+   * {@link #build(AbstractCodeWriter, AbstractCodeWriter)}. Therefore the code
+   * writers don't need to be thread-safe and the output is identical to the
+   * sequential build.
+   * <p>
+   * The model must not be modified while this method is running.
+   *
+   * @param source
+   *        Source code writer
+   * @param resource
+   *        Resource writer
+   * @param aExecutor
+   *        The executor to render the classes. May not be <code>null</code>.
+   * @param nMaxPendingClasses
+   *        The maximum number of classes that are rendered ahead of the code
+   *        writers. This limits the memory consumption. Must be &gt; 0.
+   * @throws IOException
+   *         on IO error
+   * @since 3.0.0
+   */
+  public void build (@Nonnull final AbstractCodeWriter source,
+                     @Nonnull final AbstractCodeWriter resource,
+                     @Nonnull final Executor aExecutor,
+                     @Nonnegative final int nMaxPendingClasses) throws IOException
+  {
+    JCValueEnforcer.notNull (aExecutor, "Executor");
+    JCValueEnforcer.isGT0 (nMaxPendingClasses, "MaxPendingClasses");
+
+    _onBuildBegin ();
+    final IJBuildListener aListener = m_aBuildListener;
+    final IJBuildListener aPrevSourceListener = source.getBuildListener ();
+    final IJBuildListener aPrevResourceListener = resource.getBuildListener ();
+    final long nStartNanos = aListener == null ? 0 : _onBuildStart (aListener, source, resource);
+    try
+    {
+      // Ensure the package is present before rendering starts
+      _package ("java.lang");
+
+      final JPackage [] pkgs = _getAllPackages ();
+
+      // Determine all classes to be rendered in build order
+      final List <JDefinedClass> aAllClasses = new ArrayList <> ();
+      final List <List <JDefinedClass>> aClassesPerPackage = new ArrayList <> (pkgs.length);
+      for (final JPackage pkg : pkgs)
+      {
+        final List <JDefinedClass> aClasses = pkg.getBuildableClasses ();
+        aClassesPerPackage.add (aClasses);
+        aAllClasses.addAll (aClasses);
+      }
+
+      final String sNewLine = source.getNewLine ();
+      // One renderer per concurrently running task
+      final Queue <ClassRenderer> aRendererPool = new ConcurrentLinkedQueue <> ();
+      final Deque <Future <String>> aPending = new ArrayDeque <> ();
+      final Iterator <JDefinedClass> aSubmitIt = aAllClasses.iterator ();
+      try
+      {
+        for (int nPkg = 0; nPkg < pkgs.length; ++nPkg)
+        {
+          final JPackage pkg = pkgs[nPkg];
+          for (final JDefinedClass aClass : aClassesPerPackage.get (nPkg))
+          {
+            // Keep the executor busy
+            while (aPending.size () < nMaxPendingClasses && aSubmitIt.hasNext ())
+            {
+              final JDefinedClass aClassToRender = aSubmitIt.next ();
+              final FutureTask <String> aTask = new FutureTask <> ( () -> _renderClass (aClassToRender,
+                                                                                             sNewLine,
+                                                                                             aRendererPool));
+              aExecutor.execute (aTask);
+              aPending.addLast (aTask);
+            }
+
+            pkg.writeRenderedClass (source, aClass, _getRendered (aPending.removeFirst ()));
+          }
+          pkg.buildPackageInfoAndResources (source, resource);
+        }
+      }
+      finally
+      {
+        // In case of an error
+        for (final Future <String> aFuture : aPending)
+          aFuture.cancel (true);
+      }
+    }
+    finally
+    {
+      try
+      {
+        source.close ();
+        resource.close ();
+      }
+      finally
+      {
+        if (aListener != null)
+          _onBuildEnd (aListener, source, aPrevSourceListener, resource, aPrevResourceListener, nStartNanos);
+      }
+    }
+  }
+
+  /**
+   * Generates Java source code, rendering the top-level classes in parallel
+   * using the specified number of threads. See
+   * {@link #build(AbstractCodeWriter, AbstractCodeWriter, Executor, int)} for
+   * details.
+   *
+   * @param source
+   *        Source code writer
+   * @param resource
+   *        Resource writer
+   * @param nThreads
+   *        The number of threads to be used for rendering. Must be &gt; 0.
+   * @throws IOException
+   *         on IO error
+   * @since 3.0.0
+   */
+  public void build (@Nonnull final AbstractCodeWriter source,
+                     @Nonnull final AbstractCodeWriter resource,
+                     @Nonnegative final int nThreads) throws IOException
+  {
+    JCValueEnforcer.isGT0 (nThreads, "Threads");
+
+    final ExecutorService aES = Executors.newFixedThreadPool (nThreads, r -> {
+      final Thread t = new Thread (r, "jcodemodel-build");
+      t.setDaemon (true);
+      return t;
+    });
+    try
+    {
+      build (source, resource, aES, nThreads * DEFAULT_PENDING_CLASSES_PER_THREAD);
+    }
+    finally
+    {
+      aES.shutdownNow ();
     }
   }
 
+  /**
+   * Create a new formatter with all build settings of this model applied.
+   *
+   * @param aPW
+   *        The writer to write to. May not be <code>null</code>.
+   * @return The new formatter. Never <code>null</code>.
+   */
+  @Nonnull
+  JFormatter createBuildFormatter (@Nonnull final SourcePrintWriter aPW)
+  {
+    final JFormatter f = new JFormatter (aPW, JFormatter.DEFAULT_INDENT_SPACE);
+    f.setBuildListener (m_aBuildListener);
+    f.setFullyQualifiedNames (m_bBuildingFullyQualifiedNames);
+    f.setCompact (m_bBuildingCompactSources);
+    f.setImportPlanCache (m_aImportPlanCache);
+    return f;
+  }
+
+  /**
+   * A reusable formatter rendering classes into a reusable buffer.
+   */
+  static final class ClassRenderer
+  {
+    private final StringWriter m_aSW = new StringWriter ();
+    private final SourcePrintWriter m_aPW;
+    private final JFormatter m_aFormatter;
+
+    ClassRenderer (@Nonnull final JCodeModel aOwner, @Nonnull final String sNewLine)
+    {
+      m_aPW = new SourcePrintWriter (m_aSW, sNewLine);
+      m_aFormatter = aOwner.createBuildFormatter (m_aPW);
+    }
+
+    @Nonnull
+    String render (@Nonnull final JDefinedClass aClass)
+    {
+      final StringBuffer aBuffer = m_aSW.getBuffer ();
+      aBuffer.setLength (0);
+      aBuffer.ensureCapacity (aClass.estimateSourceSize ());
+      m_aFormatter.reset (m_aPW).write (aClass);
+      return m_aSW.toString ();
+    }
+  }
+
+  /**
+   * Render the source code of a single top-level class, using the rendered
+   * class cache if present.
+   *
+   * @param aClass
+   *        The class to render
+   * @param sNewLine
+   *        The newline string to use
+   * @param aRendererPool
+   *        The optional pool of renderers to reuse. If <code>null</code> a new
+   *        renderer is used.
+   * @return The rendered source code. Never <code>null</code>.
+   */
+  @Nonnull
+  static String _renderClass (@Nonnull final JDefinedClass aClass,
+                              @Nonnull final String sNewLine,
+                              @Nullable final Queue <ClassRenderer> aRendererPool)
+  {
+    final JCodeModel aOwner = aClass.owner ();
+    final boolean bFullyQualifiedNames = aOwner.isBuildingFullyQualifiedNames ();
+    final boolean bCompact = aOwner.isBuildingCompactSources ();
+    final JRenderedClassCache aCache = aOwner.getRenderedClassCache ();
+    if (aCache != null)
+    {
+      final String sCached = aCache.getUpToDateSource (aClass, sNewLine, bFullyQualifiedNames, bCompact);
+      if (sCached != null)
+      {
+        final IJBuildListener aListener = aOwner.getBuildListener ();
+        if (aListener != null)
+          aListener.onClassWritten (aClass, 0, 0);
+        return sCached;
+      }
+    }
+
+    ClassRenderer aRenderer = aRendererPool == null ? null : aRendererPool.poll ();
+    if (aRenderer == null)
+      aRenderer = new ClassRenderer (aOwner, sNewLine);
+    final String ret = aRenderer.render (aClass);
+    if (aCache != null)
+      aCache.putSource (aClass,
+                        aRenderer.m_aFormatter.getModificationStamps (),
+                        sNewLine,
+                        bFullyQualifiedNames,
+                        bCompact,
+                        ret,
+                        aRenderer.m_aFormatter.hasWrittenErrorTypes ());
+    if (aRendererPool != null)
+      aRendererPool.offer (aRenderer);
+    return ret;
+  }
+
+  @Nonnull
+  private static String _getRendered (@Nonnull final Future <String> aFuture) throws IOException
+  {
+    try
+    {
+      return aFuture.get ();
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      throw new InterruptedIOException ("Interrupted while rendering classes");
+    }
+    catch (final ExecutionException ex)
+    {
+      final Throwable aCause = ex.getCause ();
+      if (aCause instanceof RuntimeException)
+        throw (RuntimeException) aCause;
+      if (aCause instanceof Error)
+        throw (Error) aCause;
+      throw new IOException ("Failed to render class", aCause);
+    }
+  }
+
+  /**
+   * Write the source code of a single top-level class immediately and release
+   * its body afterwards. Only a lightweight stub of the class (including its
+   * inner classes) stays in the model, so that it can still be referenced from
+   * other classes and considered for import resolution. This allows to
+   * generate models that are too large to be kept in memory completely.
+   * <p>
+   * Emitted classes are skipped by subsequent builds, so the same code writer
+   * should be used for the final {@link #build(AbstractCodeWriter)} that writes
+   * all remaining classes and closes the writer. An emitted class cannot be
+   * modified anymore - see {@link JDefinedClass#isEmitted()}.
+   *
+   * @param aClass
+   *        The top-level class to be written. May not be <code>null</code>.
+   * @param source
+   *        Source code writer. It is not closed by this method.
+   * @throws IOException
+   *         on IO error
+   * @throws IllegalArgumentException
+   *         If the class is not a top-level class of this model, is hidden or
+   *         was already emitted.
+   * @since 3.0.0
+   */
+  public void emit (@Nonnull final JDefinedClass aClass, @Nonnull final AbstractCodeWriter source) throws IOException
+  {
+    JCValueEnforcer.notNull (aClass, "Class");
+    JCValueEnforcer.notNull (source, "Source");
+    if (aClass.owner () != this)
+      throw new IllegalArgumentException ("The class " + aClass.fullName () + " belongs to a different code model");
+    if (!aClass.parentContainer ().isPackage ())
+      throw new IllegalArgumentException ("Only top-level classes can be emitted: " + aClass.fullName ());
+    if (aClass.isHidden ())
+      throw new IllegalArgumentException ("Hidden classes cannot be emitted: " + aClass.fullName ());
+    if (aClass.isEmitted ())
+      throw new IllegalArgumentException ("The class " + aClass.fullName () + " was already emitted");
+
+    final IJBuildListener aListener = m_aBuildListener;
+    final IJBuildListener aPrevListener = source.getBuildListener ();
+    if (aListener != null)
+      source.setBuildListener (aListener);
+    try
+    {
+      aClass._package ().emit (source, aClass, null);
+    }
+    finally
+    {
+      if (aListener != null)
+        source.setBuildListener (aPrevListener);
+    }
+    m_bEmittedSinceLastBuild = true;
+    aClass.releaseBody ();
+  }
+
   /**
    * @return the number of files to be generated if {@link #build} is invoked
    *         now.
@@ -645,7 +1320,7 @@ public final class JCodeModel
   public int countArtifacts ()
   {
     int r = 0;
-    final JPackage [] pkgs = m_aPackages.values ().toArray (new JPackage [m_aPackages.size ()]);
+    final JPackage [] pkgs = _getAllPackages ();
     // avoid concurrent modification exception
     for (final JPackage pkg : pkgs)
       r += pkg.countArtifacts ();
@@ -666,26 +1341,46 @@ public final class JCodeModel
   @Nonnull
   public AbstractJClass ref (@Nonnull final Class <?> clazz)
   {
-    JReferencedClass aRefClass = m_aRefClasses.get (clazz);
-    if (aRefClass == null)
+    if (clazz.isPrimitive ())
     {
-      if (clazz.isPrimitive ())
-      {
-        // Cannot return BYTE etc. because the return type does not match
-        throw new IllegalArgumentException (clazz + " is a primitive");
-      }
-
-      if (clazz.isArray ())
-      {
-        final Class <?> aComponentType = clazz.getComponentType ();
-        // Component type may be a primitive!
-        return new JArrayClass (this, _ref (aComponentType));
-      }
+      // Cannot return BYTE etc. because the return type does not match
+      throw new IllegalArgumentException (clazz + " is a primitive");
+    }
 
-      aRefClass = new JReferencedClass (this, clazz);
-      m_aRefClasses.put (clazz, aRefClass);
+    if (clazz.isArray ())
+    {
+      final Class <?> aComponentType = clazz.getComponentType ();
+      // Component type may be a primitive!
+      return _ref (aComponentType).array ();
     }
-    return aRefClass;
+
+    // Classes may be referenced concurrently
+    final JReferencedClass aRefClass = m_aRefClasses.get (clazz);
+    if (aRefClass != null)
+      return aRefClass;
+    return m_aRefClasses.computeIfAbsent (clazz, x -> new JReferencedClass (this, x));
+  }
+
+  /**
+   * Get the canonical instance of a type that is compared by value. If a
+   * structurally identical type was interned before, that instance is
+   * returned, otherwise the passed type becomes the canonical instance.
+   *
+   * @param aType
+   *        The type to intern. May not be <code>null</code>. Must not be
+   *        modified afterwards.
+   * @return The canonical instance. Never <code>null</code>.
+   * @param <T>
+   *        The type to intern
+   */
+  @Nonnull
+  @SuppressWarnings ("unchecked")
+  <T extends AbstractJClass> T internType (@Nonnull final T aType)
+  {
+    // Types may be created concurrently
+    // equals considers the implementation class, so the cast is safe
+    final AbstractJClass aExisting = m_aInternedTypes.putIfAbsent (aType, aType);
+    return aExisting != null ? (T) aExisting : aType;
   }
 
   /**
@@ -739,8 +1434,8 @@ public final class JCodeModel
    * <p>
    * Sometimes direct treatment of error-types is required. You can use
    * {@link AbstractJType#isError()} and
-   * {@link JCodeModel#buildsErrorTypeRefs()} methods to handle error-types and
-   * to prevent error-types to leak into generated code.
+   * {@link JCodeModel#hasBuiltErrorTypeRefs()} methods to handle error-types
+   * and to detect error-types that leaked into generated code.
    *
    * @param element
    *        Processable class to reference
@@ -752,7 +1447,7 @@ public final class JCodeModel
    * @see JCodeModelJavaxLangModelAdapter
    * @see #ref(TypeElement, Elements)
    * @see JErrorClass
-   * @see #buildsErrorTypeRefs()
+   * @see #hasBuiltErrorTypeRefs()
    */
   @Nonnull
   public JDefinedClass refWithErrorTypes (@Nonnull final TypeElement element,
@@ -782,7 +1477,10 @@ public final class JCodeModel
    * name. <br>
    * First, this method attempts to load the class of the given name. If that
    * fails, we assume that the class is derived straight from {@link Object},
-   * and return a {@link AbstractJClass}.
+   * and return a {@link AbstractJClass}. <br>
+   * The result is cached by name, so that each name is loaded at most once.
+   * If a class becomes loadable later on (e.g. because the context class
+   * loader was changed), call {@link #clearRefByNameCache()}.
    *
    * @param sFullyQualifiedClassName
    *        FQCN
@@ -792,6 +1490,34 @@ public final class JCodeModel
    */
   @Nonnull
   public AbstractJClass ref (@Nonnull final String sFullyQualifiedClassName)
+  {
+    // Classes may be referenced concurrently
+    final AbstractJClass ret = m_aRefClassesByName.get (sFullyQualifiedClassName);
+    if (ret != null)
+      return ret;
+
+    // Don't block other names while loading the class
+    final AbstractJClass aLoaded = _loadRef (sFullyQualifiedClassName);
+    // Another thread may have been faster
+    final AbstractJClass aExisting = m_aRefClassesByName.putIfAbsent (sFullyQualifiedClassName, aLoaded);
+    return aExisting != null ? aExisting : aLoaded;
+  }
+
+  /**
+   * Forget all results of {@link #ref(String)}, so that the next call tries to
+   * load the class again. Classes that could not be loaded before are
+   * represented by a new {@link JDirectClass} afterwards, if they still cannot
+   * be loaded.
+   *
+   * @since 3.0.0
+   */
+  public void clearRefByNameCache ()
+  {
+    m_aRefClassesByName.clear ();
+  }
+
+  @Nonnull
+  private AbstractJClass _loadRef (@Nonnull final String sFullyQualifiedClassName)
   {
     try
     {
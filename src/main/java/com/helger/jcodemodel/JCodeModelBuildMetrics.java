@@ -0,0 +1,350 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.jcodemodel.util.JCValueEnforcer;
+
+/**
+ * An {@link IJBuildListener} that sums up the metrics of one or more builds
+ * and remembers the slowest classes.
+ *
+ * @author Philip Helger
+ * @since 3.0.0
+ */
+@ThreadSafe
+public class JCodeModelBuildMetrics implements IJBuildListener
+{
+  public static final int DEFAULT_SLOWEST_CLASS_COUNT = 10;
+
+  /**
+   * The rendering times of a single class.
+   */
+  public static final class ClassTiming
+  {
+    private final String m_sClassName;
+    private final long m_nCollectingNanos;
+    private final long m_nPrintingNanos;
+
+    ClassTiming (@Nonnull final String sClassName, final long nCollectingNanos, final long nPrintingNanos)
+    {
+      m_sClassName = sClassName;
+      m_nCollectingNanos = nCollectingNanos;
+      m_nPrintingNanos = nPrintingNanos;
+    }
+
+    /**
+     * @return The fully qualified name of the class.
+     */
+    @Nonnull
+    public String getClassName ()
+    {
+      return m_sClassName;
+    }
+
+    @Nonnegative
+    public long getCollectingNanos ()
+    {
+      return m_nCollectingNanos;
+    }
+
+    @Nonnegative
+    public long getPrintingNanos ()
+    {
+      return m_nPrintingNanos;
+    }
+
+    @Nonnegative
+    public long getTotalNanos ()
+    {
+      return m_nCollectingNanos + m_nPrintingNanos;
+    }
+
+    @Override
+    public String toString ()
+    {
+      return m_sClassName + "[collecting=" + m_nCollectingNanos + "ns; printing=" + m_nPrintingNanos + "ns]";
+    }
+  }
+
+  private static final Comparator <ClassTiming> COMPARATOR = Comparator.comparingLong (ClassTiming::getTotalNanos);
+
+  private final int m_nSlowestClassCount;
+  /** Min-heap of the slowest classes */
+  private final PriorityQueue <ClassTiming> m_aSlowestClasses;
+
+  private int m_nBuilds;
+  private long m_nBuildNanos;
+  private int m_nClasses;
+  private long m_nCollectingNanos;
+  private long m_nPrintingNanos;
+  private int m_nSourceFiles;
+  private long m_nSourceBytes;
+  private long m_nEscapedChars;
+  private int m_nResources;
+  private long m_nResourceBytes;
+  private long m_nResourceNanos;
+
+  public JCodeModelBuildMetrics ()
+  {
+    this (DEFAULT_SLOWEST_CLASS_COUNT);
+  }
+
+  /**
+   * @param nSlowestClassCount
+   *        The number of slowest classes to remember. Must be &ge; 0.
+   */
+  public JCodeModelBuildMetrics (@Nonnegative final int nSlowestClassCount)
+  {
+    JCValueEnforcer.isGE0 (nSlowestClassCount, "SlowestClassCount");
+    m_nSlowestClassCount = nSlowestClassCount;
+    m_aSlowestClasses = new PriorityQueue <> (Math.max (1, nSlowestClassCount), COMPARATOR);
+  }
+
+  @Override
+  public synchronized void onBuildEnd (@Nonnull final JCodeModel aCodeModel, final long nBuildNanos)
+  {
+    m_nBuilds++;
+    m_nBuildNanos += nBuildNanos;
+  }
+
+  @Override
+  public synchronized void onClassWritten (@Nonnull final JDefinedClass aClass,
+                                           final long nCollectingNanos,
+                                           final long nPrintingNanos)
+  {
+    m_nClasses++;
+    m_nCollectingNanos += nCollectingNanos;
+    m_nPrintingNanos += nPrintingNanos;
+
+    if (m_nSlowestClassCount > 0)
+    {
+      final long nTotalNanos = nCollectingNanos + nPrintingNanos;
+      if (m_aSlowestClasses.size () < m_nSlowestClassCount ||
+          m_aSlowestClasses.peek ().getTotalNanos () < nTotalNanos)
+      {
+        m_aSlowestClasses.add (new ClassTiming (aClass.fullName (), nCollectingNanos, nPrintingNanos));
+        if (m_aSlowestClasses.size () > m_nSlowestClassCount)
+          m_aSlowestClasses.poll ();
+      }
+    }
+  }
+
+  @Override
+  public synchronized void onSourceFileWritten (@Nonnull final JPackage aPackage,
+                                                @Nonnull final String sFilename,
+                                                final long nBytes,
+                                                final long nEscapedChars)
+  {
+    m_nSourceFiles++;
+    m_nSourceBytes += nBytes;
+    m_nEscapedChars += nEscapedChars;
+  }
+
+  @Override
+  public synchronized void onResourceWritten (@Nonnull final JPackage aPackage,
+                                              @Nonnull final String sFilename,
+                                              final long nBytes,
+                                              final long nWriteNanos)
+  {
+    m_nResources++;
+    m_nResourceBytes += nBytes;
+    m_nResourceNanos += nWriteNanos;
+  }
+
+  /**
+   * @return The number of finished builds.
+   */
+  public synchronized int getBuildCount ()
+  {
+    return m_nBuilds;
+  }
+
+  /**
+   * @return The total nanoseconds of all finished builds.
+   */
+  public synchronized long getBuildNanos ()
+  {
+    return m_nBuildNanos;
+  }
+
+  /**
+   * @return The number of rendered top-level classes.
+   */
+  public synchronized int getClassCount ()
+  {
+    return m_nClasses;
+  }
+
+  /**
+   * @return The total nanoseconds of all import collecting passes.
+   */
+  public synchronized long getCollectingNanos ()
+  {
+    return m_nCollectingNanos;
+  }
+
+  /**
+   * @return The total nanoseconds of all printing passes.
+   */
+  public synchronized long getPrintingNanos ()
+  {
+    return m_nPrintingNanos;
+  }
+
+  /**
+   * @return The number of written Java source files, including
+   *         <code>package-info.java</code> files.
+   */
+  public synchronized int getSourceFileCount ()
+  {
+    return m_nSourceFiles;
+  }
+
+  /**
+   * @return The total number of bytes of all Java source files.
+   */
+  public synchronized long getSourceBytes ()
+  {
+    return m_nSourceBytes;
+  }
+
+  /**
+   * @return The total number of chars written as Java Unicode escapes.
+   */
+  public synchronized long getEscapedCharCount ()
+  {
+    return m_nEscapedChars;
+  }
+
+  /**
+   * @return The number of written resource files.
+   */
+  public synchronized int getResourceCount ()
+  {
+    return m_nResources;
+  }
+
+  /**
+   * @return The total number of bytes of all resource files.
+   */
+  public synchronized long getResourceBytes ()
+  {
+    return m_nResourceBytes;
+  }
+
+  /**
+   * @return The total nanoseconds spent writing resource files.
+   */
+  public synchronized long getResourceNanos ()
+  {
+    return m_nResourceNanos;
+  }
+
+  /**
+   * @return The slowest classes, slowest first. Never <code>null</code>.
+   */
+  @Nonnull
+  public synchronized List <ClassTiming> getSlowestClasses ()
+  {
+    final List <ClassTiming> ret = new ArrayList <> (m_aSlowestClasses);
+    Collections.sort (ret, COMPARATOR.reversed ());
+    return ret;
+  }
+
+  /**
+   * Reset all metrics.
+   */
+  public synchronized void reset ()
+  {
+    m_aSlowestClasses.clear ();
+    m_nBuilds = 0;
+    m_nBuildNanos = 0;
+    m_nClasses = 0;
+    m_nCollectingNanos = 0;
+    m_nPrintingNanos = 0;
+    m_nSourceFiles = 0;
+    m_nSourceBytes = 0;
+    m_nEscapedChars = 0;
+    m_nResources = 0;
+    m_nResourceBytes = 0;
+    m_nResourceNanos = 0;
+  }
+
+  @Override
+  public synchronized String toString ()
+  {
+    return "JCodeModelBuildMetrics[builds=" +
+           m_nBuilds +
+           "; buildNanos=" +
+           m_nBuildNanos +
+           "; classes=" +
+           m_nClasses +
+           "; collectingNanos=" +
+           m_nCollectingNanos +
+           "; printingNanos=" +
+           m_nPrintingNanos +
+           "; sourceFiles=" +
+           m_nSourceFiles +
+           "; sourceBytes=" +
+           m_nSourceBytes +
+           "; escapedChars=" +
+           m_nEscapedChars +
+           "; resources=" +
+           m_nResources +
+           "; resourceBytes=" +
+           m_nResourceBytes +
+           "; resourceNanos=" +
+           m_nResourceNanos +
+           "; slowestClasses=" +
+           getSlowestClasses () +
+           "]";
+  }
+}
@@ -0,0 +1,322 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.jcodemodel.util.JCValueEnforcer;
+
+/**
+ * A fragment of a {@link JCodeModel} that collects top-level classes and
+ * resource files without registering them in the packages of the model. Each
+ * fragment is meant to be filled by a single thread (e.g. one fragment per
+ * input file), without any lock contention with other fragments. Afterwards
+ * the fragments are merged into the model via
+ * {@link JCodeModel#merge(JCodeModelFragment)}.
+ * <p>
+ * All objects created via a fragment are owned by the parent model, so
+ * referenced classes ({@link JCodeModel#ref(Class)}), primitive types,
+ * packages and narrowed types are shared and may be used freely - also
+ * between fragments. The classes of a fragment are not part of the model
+ * before the fragment is merged - they are neither built nor found by
+ * {@link JCodeModel#_getClass(String)}.
+ *
+ * @author Philip Helger
+ * @since 3.0.0
+ * @see JCodeModel#createFragment()
+ */
+@NotThreadSafe
+public class JCodeModelFragment implements IJOwned
+{
+  private final JCodeModel m_aOwner;
+
+  /** The classes of this fragment by package and name, in creation order. */
+  private final Map <JPackage, Map <String, JDefinedClass>> m_aClasses = new LinkedHashMap <> ();
+
+  /**
+   * The classes by package and upper case name. Non-null only if the file
+   * system is not case sensitive.
+   */
+  private final Map <JPackage, Map <String, JDefinedClass>> m_aUpperCaseClasses;
+
+  private final Map <JPackage, List <AbstractJResourceFile>> m_aResources = new LinkedHashMap <> ();
+  private int m_nClassCount = 0;
+  private boolean m_bMerged = false;
+
+  JCodeModelFragment (@Nonnull final JCodeModel aOwner)
+  {
+    m_aOwner = aOwner;
+    m_aUpperCaseClasses = aOwner.isCaseSensitiveFileSystem ? null : new HashMap <> ();
+  }
+
+  @Nonnull
+  public JCodeModel owner ()
+  {
+    return m_aOwner;
+  }
+
+  private void _checkNotMerged ()
+  {
+    if (m_bMerged)
+      throw new IllegalStateException ("The fragment was already merged");
+  }
+
+  /**
+   * @return <code>true</code> if this fragment was already merged into the
+   *         model. Such a fragment cannot be modified any more.
+   */
+  public boolean isMerged ()
+  {
+    return m_bMerged;
+  }
+
+  /**
+   * @return The number of top-level classes of this fragment that were not
+   *         merged yet. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getClassCount ()
+  {
+    return m_nClassCount;
+  }
+
+  /**
+   * Get a package of the parent model. This is a shortcut for
+   * <code>owner ()._package (sName)</code>.
+   *
+   * @param sName
+   *        Name of the package. Use "" to indicate the root package.
+   * @return The package of the parent model. Never <code>null</code>.
+   */
+  @Nonnull
+  public JPackage _package (@Nonnull final String sName)
+  {
+    return m_aOwner._package (sName);
+  }
+
+  /**
+   * Creates a new top-level class in this fragment.
+   *
+   * @param aPackage
+   *        The package of the parent model to put the class in. May not be
+   *        <code>null</code>.
+   * @param nMods
+   *        Modifiers to use
+   * @param sName
+   *        Name of the class without the package
+   * @param eClassType
+   *        Class type to use (enum/class/interface/annotation)
+   * @return New {@link JDefinedClass}
+   * @exception JClassAlreadyExistsException
+   *            When the specified class/interface was already created in this
+   *            fragment. Conflicts with the parent model are detected by
+   *            {@link JCodeModel#merge(JCodeModelFragment)}.
+   */
+  @Nonnull
+  public JDefinedClass _class (@Nonnull final JPackage aPackage,
+                               final int nMods,
+                               @Nonnull final String sName,
+                               @Nonnull final EClassType eClassType) throws JClassAlreadyExistsException
+  {
+    JCValueEnforcer.notNull (aPackage, "Package");
+    JCValueEnforcer.isTrue (aPackage.owner () == m_aOwner, "The package belongs to a different code model");
+    _checkNotMerged ();
+
+    final Map <String, JDefinedClass> aClasses = m_aClasses.computeIfAbsent (aPackage, x -> new LinkedHashMap <> ());
+    final JDefinedClass aExisting = aClasses.get (sName);
+    if (aExisting != null)
+      throw new JClassAlreadyExistsException (aExisting);
+
+    Map <String, JDefinedClass> aUpperCaseClasses = null;
+    if (m_aUpperCaseClasses != null)
+    {
+      aUpperCaseClasses = m_aUpperCaseClasses.computeIfAbsent (aPackage, x -> new HashMap <> ());
+      final JDefinedClass dc = aUpperCaseClasses.get (sName.toUpperCase ());
+      if (dc != null)
+        throw new JClassAlreadyExistsException (dc);
+    }
+
+    final JDefinedClass c = new JDefinedClass (aPackage, nMods, sName, eClassType);
+    if (aUpperCaseClasses != null)
+      aUpperCaseClasses.put (sName.toUpperCase (), c);
+    aClasses.put (sName, c);
+    m_nClassCount++;
+    return c;
+  }
+
+  /**
+   * Creates a new top-level class in this fragment.
+   *
+   * @param nMods
+   *        Modifiers to use
+   * @param sFullyQualifiedClassName
+   *        FQCN
+   * @param eClassType
+   *        Class type to use (enum/class/interface/annotation)
+   * @return New {@link JDefinedClass}
+   * @exception JClassAlreadyExistsException
+   *            When the specified class/interface was already created in this
+   *            fragment.
+   */
+  @Nonnull
+  public JDefinedClass _class (final int nMods,
+                               @Nonnull final String sFullyQualifiedClassName,
+                               @Nonnull final EClassType eClassType) throws JClassAlreadyExistsException
+  {
+    final int nIdx = sFullyQualifiedClassName.lastIndexOf ('.');
+    if (nIdx < 0)
+      return _class (m_aOwner.rootPackage (), nMods, sFullyQualifiedClassName, eClassType);
+    return _class (m_aOwner._package (sFullyQualifiedClassName.substring (0, nIdx)),
+                   nMods,
+                   sFullyQualifiedClassName.substring (nIdx + 1),
+                   eClassType);
+  }
+
+  /**
+   * Creates a new public top-level class in this fragment.
+   *
+   * @param sFullyQualifiedClassName
+   *        FQCN
+   * @return New {@link JDefinedClass}
+   * @exception JClassAlreadyExistsException
+   *            When the specified class/interface was already created in this
+   *            fragment.
+   */
+  @Nonnull
+  public JDefinedClass _class (@Nonnull final String sFullyQualifiedClassName) throws JClassAlreadyExistsException
+  {
+    return _class (JMod.PUBLIC, sFullyQualifiedClassName, EClassType.CLASS);
+  }
+
+  /**
+   * Creates a new top-level class in this fragment.
+   *
+   * @param nMods
+   *        Modifiers to use
+   * @param sFullyQualifiedClassName
+   *        FQCN
+   * @return New {@link JDefinedClass}
+   * @exception JClassAlreadyExistsException
+   *            When the specified class/interface was already created in this
+   *            fragment.
+   */
+  @Nonnull
+  public JDefinedClass _class (final int nMods,
+                               @Nonnull final String sFullyQualifiedClassName) throws JClassAlreadyExistsException
+  {
+    return _class (nMods, sFullyQualifiedClassName, EClassType.CLASS);
+  }
+
+  /**
+   * Gets a reference to a class created in this fragment and not merged yet.
+   *
+   * @param sFullyQualifiedClassName
+   *        FQCN
+   * @return <code>null</code> If the class was not created in this fragment.
+   */
+  @Nullable
+  public JDefinedClass _getClass (@Nonnull final String sFullyQualifiedClassName)
+  {
+    final int nIdx = sFullyQualifiedClassName.lastIndexOf ('.');
+    final JPackage aPackage = nIdx < 0 ? m_aOwner.rootPackage ()
+                                       : m_aOwner._package (sFullyQualifiedClassName.substring (0, nIdx));
+    final Map <String, JDefinedClass> aClasses = m_aClasses.get (aPackage);
+    return aClasses == null ? null : aClasses.get (sFullyQualifiedClassName.substring (nIdx + 1));
+  }
+
+  /**
+   * Adds a resource file, that is added to the package when this fragment is
+   * merged.
+   *
+   * @param aPackage
+   *        The package of the parent model to put the resource in. May not be
+   *        <code>null</code>.
+   * @param aResource
+   *        Resource file to add. May not be <code>null</code>.
+   * @return Parameter resource file
+   */
+  @Nonnull
+  public AbstractJResourceFile addResourceFile (@Nonnull final JPackage aPackage,
+                                                @Nonnull final AbstractJResourceFile aResource)
+  {
+    JCValueEnforcer.notNull (aPackage, "Package");
+    JCValueEnforcer.isTrue (aPackage.owner () == m_aOwner, "The package belongs to a different code model");
+    JCValueEnforcer.notNull (aResource, "ResourceFile");
+    _checkNotMerged ();
+
+    m_aResources.computeIfAbsent (aPackage, x -> new ArrayList <> ()).add (aResource);
+    return aResource;
+  }
+
+  /**
+   * Merge all classes and resources into the packages of the parent model.
+   * This is atomic with respect to the classes: if a class already exists,
+   * nothing is merged and the fragment stays unchanged.
+   *
+   * @throws JClassAlreadyExistsException
+   *         If a class of this fragment already exists in the model
+   */
+  /* package */void mergeIntoOwner () throws JClassAlreadyExistsException
+  {
+    _checkNotMerged ();
+
+    JPackage.addClasses (m_aClasses);
+    m_aClasses.clear ();
+    if (m_aUpperCaseClasses != null)
+      m_aUpperCaseClasses.clear ();
+    m_nClassCount = 0;
+
+    for (final Map.Entry <JPackage, List <AbstractJResourceFile>> aEntry : m_aResources.entrySet ())
+      for (final AbstractJResourceFile aResource : aEntry.getValue ())
+        aEntry.getKey ().addResourceFile (aResource);
+    m_aResources.clear ();
+    m_bMerged = true;
+  }
+}
@@ -42,7 +42,10 @@ package com.helger.jcodemodel;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -58,6 +61,9 @@ import javax.annotation.Nullable;
  * <p>
  * Values can be added through the various append methods one by one or in a
  * bulk.
+ * <p>
+ * Changes made through the list methods mark the class containing the comment
+ * as modified. Changes made through an iterator or a sub list are not tracked.
  *
  * @author Kohsuke Kawaguchi
  */
@@ -65,9 +71,44 @@ public class JCommentPart extends ArrayList <Object>
 {
   private static final long serialVersionUID = 1L;
 
+  /**
+   * The class containing the commented declaration. May be <code>null</code>.
+   */
+  private transient JDefinedClass m_aOwningClass;
+
   public JCommentPart ()
   {}
 
+  /**
+   * @param aOwningClass
+   *        The class containing the commented declaration. It is marked as
+   *        modified whenever this comment changes. May be <code>null</code>.
+   * @see JDefinedClass#markModified()
+   */
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    m_aOwningClass = aOwningClass;
+  }
+
+  /**
+   * @return The class containing the commented declaration. May be
+   *         <code>null</code>.
+   */
+  @Nullable
+  final JDefinedClass getOwningClass ()
+  {
+    return m_aOwningClass;
+  }
+
+  /**
+   * Mark the owning class as modified, if there is one.
+   */
+  final void markOwningClassModified ()
+  {
+    if (m_aOwningClass != null)
+      m_aOwningClass.markModified ();
+  }
+
   /**
    * Appends a new value.
    *
@@ -88,9 +129,108 @@ public class JCommentPart extends ArrayList <Object>
   public boolean add (@Nullable final Object o)
   {
     _flattenAppend (o);
+    markOwningClassModified ();
     return true;
   }
 
+  @Override
+  public void add (final int nIndex, @Nullable final Object o)
+  {
+    super.add (nIndex, o);
+    markOwningClassModified ();
+  }
+
+  @Override
+  public boolean addAll (@Nonnull final Collection <? extends Object> aValues)
+  {
+    final boolean bChanged = super.addAll (aValues);
+    markOwningClassModified ();
+    return bChanged;
+  }
+
+  @Override
+  public boolean addAll (final int nIndex, @Nonnull final Collection <? extends Object> aValues)
+  {
+    final boolean bChanged = super.addAll (nIndex, aValues);
+    markOwningClassModified ();
+    return bChanged;
+  }
+
+  @Override
+  public Object set (final int nIndex, @Nullable final Object o)
+  {
+    final Object ret = super.set (nIndex, o);
+    markOwningClassModified ();
+    return ret;
+  }
+
+  @Override
+  public Object remove (final int nIndex)
+  {
+    final Object ret = super.remove (nIndex);
+    markOwningClassModified ();
+    return ret;
+  }
+
+  @Override
+  public boolean remove (@Nullable final Object o)
+  {
+    final boolean bChanged = super.remove (o);
+    if (bChanged)
+      markOwningClassModified ();
+    return bChanged;
+  }
+
+  @Override
+  public boolean removeAll (@Nonnull final Collection <?> aValues)
+  {
+    final boolean bChanged = super.removeAll (aValues);
+    if (bChanged)
+      markOwningClassModified ();
+    return bChanged;
+  }
+
+  @Override
+  public boolean retainAll (@Nonnull final Collection <?> aValues)
+  {
+    final boolean bChanged = super.retainAll (aValues);
+    if (bChanged)
+      markOwningClassModified ();
+    return bChanged;
+  }
+
+  @Override
+  public boolean removeIf (@Nonnull final Predicate <? super Object> aFilter)
+  {
+    final boolean bChanged = super.removeIf (aFilter);
+    if (bChanged)
+      markOwningClassModified ();
+    return bChanged;
+  }
+
+  @Override
+  public void replaceAll (@Nonnull final UnaryOperator <Object> aOperator)
+  {
+    super.replaceAll (aOperator);
+    markOwningClassModified ();
+  }
+
+  @Override
+  public void sort (@Nullable final Comparator <? super Object> aComparator)
+  {
+    super.sort (aComparator);
+    markOwningClassModified ();
+  }
+
+  @Override
+  public void clear ()
+  {
+    final boolean bChanged = !isEmpty ();
+    super.clear ();
+    if (bChanged)
+      markOwningClassModified ();
+  }
+
   private void _flattenAppend (@Nullable final Object value)
   {
     if (value == null)
@@ -41,6 +41,7 @@
 package com.helger.jcodemodel;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * If statement, with optional else clause
@@ -62,6 +63,11 @@ public class JConditional implements IJStatement
    */
   private JBlock m_aElseBlock;
 
+  /**
+   * The class containing this statement. May be <code>null</code>.
+   */
+  private JDefinedClass m_aOwningClass;
+
   /**
    * Constructor
    *
@@ -75,6 +81,25 @@ public class JConditional implements IJStatement
     m_aTestExpr = aTestExpr;
   }
 
+  /**
+   * @param aOwningClass
+   *        The class containing this statement. May be <code>null</code>.
+   * @see JBlock#setOwningClass(JDefinedClass)
+   */
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    m_aOwningClass = aOwningClass;
+    m_aThenBlock.setOwningClass (aOwningClass);
+    if (m_aElseBlock != null)
+      m_aElseBlock.setOwningClass (aOwningClass);
+  }
+
+  private void _markModified ()
+  {
+    if (m_aOwningClass != null)
+      m_aOwningClass.markModified ();
+  }
+
   @Nonnull
   public IJExpression test ()
   {
@@ -101,7 +126,11 @@ public class JConditional implements IJStatement
   public JBlock _else ()
   {
     if (m_aElseBlock == null)
+    {
       m_aElseBlock = new JBlock ();
+      m_aElseBlock.setOwningClass (m_aOwningClass);
+      _markModified ();
+    }
     return m_aElseBlock;
   }
 
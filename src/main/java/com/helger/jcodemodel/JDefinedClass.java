@@ -51,6 +51,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -70,6 +71,15 @@ import com.helger.jcodemodel.util.ClassNameComparator;
 public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
                            implements IJDeclaration, IJGenerifiable, IJAnnotatable, IJDocCommentable
 {
+  // Estimated number of chars of the single parts of a source file
+  /* package */static final int ESTIMATED_CLASS_SIZE = 192;
+  /* package */static final int ESTIMATED_FIELD_SIZE = 48;
+  /* package */static final int ESTIMATED_METHOD_SIZE = 64;
+  /* package */static final int ESTIMATED_PARAM_SIZE = 24;
+  /* package */static final int ESTIMATED_STATEMENT_SIZE = 48;
+  /* package */static final int ESTIMATED_JAVADOC_SIZE = 64;
+  /* package */static final int ESTIMATED_ENUM_CONSTANT_SIZE = 32;
+
   /**
    * The optional header that is emitted prior to the package (Issue #47)
    */
@@ -128,6 +138,19 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
    */
   private boolean m_bHideFile = false;
 
+  /**
+   * Flag that indicates whether this class was already written via
+   * {@link JCodeModel#emit(JDefinedClass, AbstractCodeWriter)} and its body
+   * was released.
+   */
+  private boolean m_bEmitted = false;
+
+  /**
+   * Modification stamp of this class. Incremented by the modifying methods of
+   * this class and by {@link #markModified()}.
+   */
+  private long m_nModificationStamp = 0;
+
   /**
    * Client-app specific metadata associated with this user-created class.
    */
@@ -243,6 +266,7 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
       m_aMods = JMods.forInterface (nMods);
     else
       m_aMods = JMods.forClass (nMods);
+    m_aMods.setOwningClass (this);
   }
 
   /**
@@ -265,6 +289,7 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
   @Nonnull
   public JDefinedClass _extends (@Nonnull final AbstractJClass aSuperClass)
   {
+    _checkNotEmitted ();
     if (isInterface ())
     {
       if (aSuperClass.isInterface ())
@@ -287,6 +312,7 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
     }
 
     m_aSuperClass = aSuperClass;
+    markModified ();
     return this;
   }
 
@@ -318,7 +344,9 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
   @Nonnull
   public JDefinedClass _implements (@Nonnull final AbstractJClass iface)
   {
+    _checkNotEmitted ();
     m_aInterfaces.add (iface);
+    markModified ();
     return this;
   }
 
@@ -350,11 +378,13 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
   @Nonnull
   public JEnumConstant enumConstant (@Nonnull final String name)
   {
+    _checkNotEmitted ();
     JEnumConstant ec = m_aEnumConstantsByName.get (name);
     if (null == ec)
     {
       ec = new JEnumConstant (this, name);
       m_aEnumConstantsByName.put (name, ec);
+      markModified ();
     }
     return ec;
   }
@@ -415,11 +445,13 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
                           @Nonnull final String name,
                           @Nullable final IJExpression init)
   {
+    _checkNotEmitted ();
     final JFieldVar f = new JFieldVar (this, JMods.forField (mods), type, name, init);
     if (m_aFields.containsKey (name))
       throw new IllegalArgumentException ("trying to create the same field twice: " + name);
 
     m_aFields.put (name, f);
+    markModified ();
     return f;
   }
 
@@ -451,8 +483,10 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
    */
   public void removeField (@Nonnull final JFieldVar aField)
   {
+    _checkNotEmitted ();
     if (m_aFields.remove (aField.name ()) != aField)
       throw new IllegalArgumentException ();
+    markModified ();
   }
 
   /**
@@ -474,8 +508,13 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
   @Nonnull
   public JBlock init ()
   {
+    _checkNotEmitted ();
     if (m_aStaticInit == null)
+    {
       m_aStaticInit = new JBlock ();
+      m_aStaticInit.setOwningClass (this);
+    }
+    markModified ();
     return m_aStaticInit;
   }
 
@@ -487,8 +526,13 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
   @Nonnull
   public JBlock instanceInit ()
   {
+    _checkNotEmitted ();
     if (m_aInstanceInit == null)
+    {
       m_aInstanceInit = new JBlock ();
+      m_aInstanceInit.setOwningClass (this);
+    }
+    markModified ();
     return m_aInstanceInit;
   }
 
@@ -502,8 +546,10 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
   @Nonnull
   public JMethod constructor (final int mods)
   {
+    _checkNotEmitted ();
     final JMethod c = new JMethod (mods, this);
     m_aConstructors.add (c);
+    markModified ();
     return c;
   }
 
@@ -546,9 +592,11 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
   @Nonnull
   public JMethod method (final int mods, @Nonnull final AbstractJType type, @Nonnull final String name)
   {
+    _checkNotEmitted ();
     // XXX problems caught in M constructor
     final JMethod m = new JMethod (this, mods, type, name);
     m_aMethods.add (m);
+    markModified ();
     return m;
   }
 
@@ -602,16 +650,25 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
   @Nonnull
   public JDocComment headerComment ()
   {
+    _checkNotEmitted ();
     if (m_aHeaderComment == null)
+    {
       m_aHeaderComment = new JDocComment (owner ());
+      m_aHeaderComment.setOwningClass (this);
+    }
     return m_aHeaderComment;
   }
 
   @Nonnull
   public JDocComment javadoc ()
   {
+    _checkNotEmitted ();
     if (m_aJDoc == null)
+    {
       m_aJDoc = new JDocComment (owner ());
+      m_aJDoc.setOwningClass (this);
+    }
+    markModified ();
     return m_aJDoc;
   }
 
@@ -630,6 +687,142 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
     return m_bHideFile;
   }
 
+  /**
+   * @return <code>true</code> if this class was already written via
+   *         {@link JCodeModel#emit(JDefinedClass, AbstractCodeWriter)}. Such a
+   *         class is only a stub that can be referenced but not modified.
+   *         Methods like {@link #method(int, AbstractJType, String)},
+   *         {@link #field(int, AbstractJType, String)} or {@link #javadoc()}
+   *         throw an {@link IllegalStateException} for it.
+   */
+  public boolean isEmitted ()
+  {
+    return m_bEmitted;
+  }
+
+  private void _checkNotEmitted ()
+  {
+    if (m_bEmitted)
+      throw new IllegalStateException ("The class " + fullName () + " was already emitted and cannot be modified");
+  }
+
+  /**
+   * @return The modification stamp of this class. It changes whenever this
+   *         class or one of its inner classes is modified.
+   * @see #markModified()
+   * @since 3.0.0
+   */
+  public long getModificationStamp ()
+  {
+    return m_nModificationStamp;
+  }
+
+  /**
+   * Mark this class and all its outer classes as modified. This happens
+   * automatically when e.g. fields, methods, constructors, annotations or super
+   * types are added. The parts of a class - blocks including all nested
+   * statements, variables, modifiers, annotations and comments - mark the
+   * class as modified whenever they change, even if they were retrieved before
+   * the last build. An anonymous class marks the class whose tracked code
+   * instantiates it. Changes of an expression that is nested in an expression other than an
+   * invocation (e.g. an argument added to an invocation that is an element of
+   * an array), changes through an iterator or a sub list of a
+   * {@link JCommentPart} and changes of an xdoclet map kept across builds are
+   * not tracked and must be followed by a call to this method, if a
+   * {@link JImportPlanCache} or a {@link JRenderedClassCache} is used.
+   *
+   * @since 3.0.0
+   */
+  public void markModified ()
+  {
+    m_nModificationStamp++;
+    final IJClassContainer <?> aOuter = getOuter ();
+    if (aOuter instanceof JDefinedClass)
+      ((JDefinedClass) aOuter).markModified ();
+  }
+
+  /**
+   * Estimate the number of chars of the source code of this class including
+   * all inner classes. This is a cheap operation based only on the number of
+   * fields, methods, constructors and block statements - no source code is
+   * created. It is used to presize the buffers when writing the source file and
+   * may be used to distribute classes across build threads by predicted size.
+   * Calling this method does not mark the class as modified.
+   *
+   * @return The estimated number of chars. Always &gt; 0.
+   * @since 3.0.0
+   */
+  @Nonnegative
+  public int estimateSourceSize ()
+  {
+    int ret = ESTIMATED_CLASS_SIZE;
+    if (m_aJDoc != null)
+      ret += ESTIMATED_JAVADOC_SIZE;
+    ret += m_aEnumConstantsByName.size () * ESTIMATED_ENUM_CONSTANT_SIZE;
+    ret += m_aFields.size () * ESTIMATED_FIELD_SIZE;
+    if (m_aStaticInit != null)
+      ret += estimateBlockSize (m_aStaticInit);
+    if (m_aInstanceInit != null)
+      ret += estimateBlockSize (m_aInstanceInit);
+    for (final JMethod aConstructor : m_aConstructors)
+      ret += aConstructor.estimateSourceSize ();
+    for (final JMethod aMethod : m_aMethods)
+      ret += aMethod.estimateSourceSize ();
+    if (m_sDirectBlock != null)
+      ret += m_sDirectBlock.length ();
+    if (m_aClasses != null)
+      for (final JDefinedClass aInnerClass : m_aClasses.values ())
+        ret += aInnerClass.estimateSourceSize ();
+    return ret;
+  }
+
+  /**
+   * Estimate the number of chars of the statements of a block. Nested blocks
+   * are considered, the blocks of other statements (like "if" or "for") are
+   * not.
+   *
+   * @param aBlock
+   *        The block to estimate. May not be <code>null</code>.
+   * @return The estimated number of chars. Always &ge; 0.
+   */
+  @Nonnegative
+  /* package */static int estimateBlockSize (@Nonnull final JBlock aBlock)
+  {
+    int ret = 0;
+    for (final Object aContent : aBlock.m_aContentList)
+      if (aContent instanceof JBlock)
+        ret += estimateBlockSize ((JBlock) aContent);
+      else
+        ret += ESTIMATED_STATEMENT_SIZE;
+    return ret;
+  }
+
+  /**
+   * Release everything that is only needed to write the source code of this
+   * class and all of its inner classes. Only the information required to
+   * reference this class is kept (name, outer, type, modifiers, super types and
+   * type parameters).
+   */
+  /* package */void releaseBody ()
+  {
+    m_bEmitted = true;
+    m_aHeaderComment = null;
+    m_aJDoc = null;
+    m_aAnnotations = null;
+    m_aEnumConstantsByName.clear ();
+    m_aFields.clear ();
+    m_aStaticInit = null;
+    m_aInstanceInit = null;
+    m_aConstructors.clear ();
+    m_aMethods.clear ();
+    m_sDirectBlock = null;
+
+    // Inner classes must stay for references
+    if (m_aClasses != null)
+      for (final JDefinedClass aInnerClass : m_aClasses.values ())
+        aInnerClass.releaseBody ();
+  }
+
   public void declare (@Nonnull final JFormatter f)
   {
     // Java docs
@@ -719,7 +912,14 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
 
     // Hacks...
     if (m_sDirectBlock != null)
+    {
       f.print (m_sDirectBlock);
+      if (f.isCompact ())
+      {
+        // The block may end with a line comment
+        f.forcedNewline ();
+      }
+    }
 
     f.outdent ().print ('}').newline ();
   }
@@ -734,11 +934,13 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
    */
   public void direct (@Nullable final String string)
   {
+    _checkNotEmitted ();
     if (m_sDirectBlock == null)
       m_sDirectBlock = string;
     else
       if (string != null)
         m_sDirectBlock += string;
+    markModified ();
   }
 
   @Override
@@ -754,18 +956,24 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
   @Nonnull
   public JTypeVar generify (@Nonnull final String name)
   {
+    _checkNotEmitted ();
+    markModified ();
     return m_aGenerifiable.generify (name);
   }
 
   @Nonnull
   public JTypeVar generify (@Nonnull final String name, @Nonnull final Class <?> bound)
   {
+    _checkNotEmitted ();
+    markModified ();
     return m_aGenerifiable.generify (name, bound);
   }
 
   @Nonnull
   public JTypeVar generify (@Nonnull final String name, @Nonnull final AbstractJClass bound)
   {
+    _checkNotEmitted ();
+    markModified ();
     return m_aGenerifiable.generify (name, bound);
   }
 
@@ -798,10 +1006,13 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
   @Nonnull
   public JAnnotationUse annotate (@Nonnull final AbstractJClass clazz)
   {
+    _checkNotEmitted ();
     if (m_aAnnotations == null)
       m_aAnnotations = new ArrayList <> ();
     final JAnnotationUse a = new JAnnotationUse (clazz);
+    a.setOwningClass (this);
     m_aAnnotations.add (a);
+    markModified ();
     return a;
   }
 
@@ -841,6 +1052,8 @@ public class JDefinedClass extends AbstractJClassContainer <JDefinedClass>
   @Nonnull
   protected JDefinedClass createInnerClass (final int nMods, final EClassType eClassType, final String sName)
   {
+    _checkNotEmitted ();
+    markModified ();
     return new JDefinedClass (this, nMods, sName, eClassType);
   }
 
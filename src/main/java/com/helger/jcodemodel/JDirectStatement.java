@@ -74,6 +74,7 @@ public final class JDirectStatement implements IJStatement
 
   public void state (@Nonnull final JFormatter f)
   {
-    f.print (m_sSource).newline ();
+    // The source may end with a line comment
+    f.print (m_sSource).forcedNewline ();
   }
 }
@@ -41,6 +41,7 @@
 package com.helger.jcodemodel;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.helger.jcodemodel.util.JCValueEnforcer;
 
@@ -59,6 +60,11 @@ public class JDoLoop implements IJStatement
    */
   private JBlock m_aBody;
 
+  /**
+   * The class containing this statement. May be <code>null</code>.
+   */
+  private JDefinedClass m_aOwningClass;
+
   /**
    * Construct a Do statement
    *
@@ -70,6 +76,24 @@ public class JDoLoop implements IJStatement
     m_aTest = JCValueEnforcer.notNull (aTest, "Test");
   }
 
+  /**
+   * @param aOwningClass
+   *        The class containing this statement. May be <code>null</code>.
+   * @see JBlock#setOwningClass(JDefinedClass)
+   */
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    m_aOwningClass = aOwningClass;
+    if (m_aBody != null)
+      m_aBody.setOwningClass (aOwningClass);
+  }
+
+  private void _markModified ()
+  {
+    if (m_aOwningClass != null)
+      m_aOwningClass.markModified ();
+  }
+
   @Nonnull
   public IJExpression test ()
   {
@@ -80,7 +104,11 @@ public class JDoLoop implements IJStatement
   public JBlock body ()
   {
     if (m_aBody == null)
+    {
       m_aBody = new JBlock ();
+      m_aBody.setOwningClass (m_aOwningClass);
+      _markModified ();
+    }
     return m_aBody;
   }
 
@@ -105,6 +105,37 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
     return m_aOwner;
   }
 
+  @Override
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    super.setOwningClass (aOwningClass);
+    for (final JCommentPart aPart : m_aAtParams.values ())
+      aPart.setOwningClass (aOwningClass);
+    if (m_aAtReturn != null)
+      m_aAtReturn.setOwningClass (aOwningClass);
+    for (final JCommentPart aPart : m_aAtThrows.values ())
+      aPart.setOwningClass (aOwningClass);
+    for (final JCommentPart aPart : m_aAtTags.values ())
+      aPart.setOwningClass (aOwningClass);
+  }
+
+  @Nonnull
+  private JCommentPart _createPart ()
+  {
+    final JCommentPart ret = new JCommentPart ();
+    ret.setOwningClass (getOwningClass ());
+    markOwningClassModified ();
+    return ret;
+  }
+
+  @Nullable
+  private <T> T _removed (@Nullable final T aRemoved)
+  {
+    if (aRemoved != null)
+      markOwningClassModified ();
+    return aRemoved;
+  }
+
   /**
    * Change whether multi line comments or single line comments should be
    * emitted.
@@ -118,6 +149,7 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
   public JDocComment setSingleLineMode (final boolean bSingleLineMode)
   {
     m_bIsSingleLineMode = bSingleLineMode;
+    markOwningClassModified ();
     return this;
   }
 
@@ -151,7 +183,7 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
     JCommentPart p = m_aAtParams.get (param);
     if (p == null)
     {
-      p = new JCommentPart ();
+      p = _createPart ();
       m_aAtParams.put (param, p);
     }
     return p;
@@ -172,7 +204,7 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
   @Nullable
   public JCommentPart removeParam (@Nullable final String param)
   {
-    return m_aAtParams.remove (param);
+    return _removed (m_aAtParams.remove (param));
   }
 
   @Nullable
@@ -184,6 +216,7 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
   public void removeAllParams ()
   {
     m_aAtParams.clear ();
+    markOwningClassModified ();
   }
 
   @Nullable
@@ -207,7 +240,7 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
   public JCommentPart addReturn ()
   {
     if (m_aAtReturn == null)
-      m_aAtReturn = new JCommentPart ();
+      m_aAtReturn = _createPart ();
     return m_aAtReturn;
   }
 
@@ -219,6 +252,7 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
 
   public void removeReturn ()
   {
+    _removed (m_aAtReturn);
     m_aAtReturn = null;
   }
 
@@ -246,7 +280,7 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
     JCommentPart p = m_aAtThrows.get (exception);
     if (p == null)
     {
-      p = new JCommentPart ();
+      p = _createPart ();
       m_aAtThrows.put (exception, p);
     }
     return p;
@@ -261,12 +295,13 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
   @Nullable
   public JCommentPart removeThrows (@Nullable final AbstractJClass exception)
   {
-    return m_aAtThrows.remove (exception);
+    return _removed (m_aAtThrows.remove (exception));
   }
 
   public void removeAllThrows ()
   {
     m_aAtThrows.clear ();
+    markOwningClassModified ();
   }
 
   @Nullable
@@ -288,7 +323,7 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
     JCommentPart aPart = m_aAtTags.get (sName);
     if (aPart == null)
     {
-      aPart = new JCommentPart ();
+      aPart = _createPart ();
       m_aAtTags.put (sName, aPart);
     }
     return aPart;
@@ -297,7 +332,7 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
   @Nullable
   public JCommentPart removeTag (@Nullable final String sName)
   {
-    return m_aAtTags.remove (sName);
+    return _removed (m_aAtTags.remove (sName));
   }
 
   @Nullable
@@ -356,6 +391,8 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
       p = new LinkedHashMap <> ();
       m_aAtXdoclets.put (name, p);
     }
+    // The map is modified by the caller
+    markOwningClassModified ();
     return p;
   }
 
@@ -401,16 +438,20 @@ public class JDocComment extends JCommentPart implements IJGenerable, IJOwned
   @Nullable
   public Map <String, String> removeXdoclet (@Nullable final String name)
   {
-    return m_aAtXdoclets.remove (name);
+    return _removed (m_aAtXdoclets.remove (name));
   }
 
   public void removeAllXdoclets ()
   {
     m_aAtXdoclets.clear ();
+    markOwningClassModified ();
   }
 
   public void generate (@Nonnull final JFormatter f)
   {
+    if (f.isCompact ())
+      return;
+
     // Is any "@" comment present?
     final boolean bHasAt = !m_aAtParams.isEmpty () ||
                            m_aAtReturn != null ||
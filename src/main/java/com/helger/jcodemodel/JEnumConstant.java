@@ -50,6 +50,7 @@ import java.util.Collections;
 import java.util.List;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.helger.jcodemodel.util.JCValueEnforcer;
 
@@ -92,6 +93,23 @@ public class JEnumConstant extends AbstractJExpressionImpl implements IJDeclarat
     m_sName = JCValueEnforcer.notNull (sName, "Name");
   }
 
+  /**
+   * @return The enum class declaring this constant, if it is part of this code
+   *         model. May be <code>null</code>.
+   */
+  @Nullable
+  private JDefinedClass _getDeclaringClass ()
+  {
+    return m_aType instanceof JDefinedClass ? (JDefinedClass) m_aType : null;
+  }
+
+  private void _markModified ()
+  {
+    final JDefinedClass aDeclaringClass = _getDeclaringClass ();
+    if (aDeclaringClass != null)
+      aDeclaringClass.markModified ();
+  }
+
   @Nonnull
   public AbstractJClass type ()
   {
@@ -121,6 +139,8 @@ public class JEnumConstant extends AbstractJExpressionImpl implements IJDeclarat
     if (m_aArgs == null)
       m_aArgs = new ArrayList <> ();
     m_aArgs.add (aArg);
+    JBlock.setOwningClass (aArg, _getDeclaringClass ());
+    _markModified ();
     return this;
   }
 
@@ -152,7 +172,11 @@ public class JEnumConstant extends AbstractJExpressionImpl implements IJDeclarat
   public JDocComment javadoc ()
   {
     if (m_aJavaDoc == null)
+    {
       m_aJavaDoc = new JDocComment (m_aType.owner ());
+      m_aJavaDoc.setOwningClass (_getDeclaringClass ());
+      _markModified ();
+    }
     return m_aJavaDoc;
   }
 
@@ -168,7 +192,9 @@ public class JEnumConstant extends AbstractJExpressionImpl implements IJDeclarat
     if (m_aAnnotations == null)
       m_aAnnotations = new ArrayList <> ();
     final JAnnotationUse a = new JAnnotationUse (clazz);
+    a.setOwningClass (_getDeclaringClass ());
     m_aAnnotations.add (a);
+    _markModified ();
     return a;
   }
 
@@ -54,18 +54,18 @@ import javax.annotation.Nullable;
  * never be used in generated code. References to error-classes can be used in
  * hidden class-models. Such classes should never be actually written but can be
  * somehow used during code generation. Use
- * {@code JCodeModel#buildsErrorTypeRefs} method to test if your generated
- * Java-sources contains references to error-types.
+ * {@code JCodeModel#hasBuiltErrorTypeRefs} method after building to test if
+ * your generated Java-sources contains references to error-types.
  * <p>
  * You should probably always check generated code with
- * {@code JCodeModel#buildsErrorTypeRefs} method if you use any error-types.
+ * {@code JCodeModel#hasBuiltErrorTypeRefs} method if you use any error-types.
  * <p>
  * Most of {@code JErrorClass} methods throws {@code JErrorClassUsedException}
  * unchecked exceptions. Be careful and use {@link AbstractJType#isError()
  * AbstractJType#isError} method to check for error-types before actually using
  * it's methods.
  *
- * @see JCodeModel#buildsErrorTypeRefs()
+ * @see JCodeModel#hasBuiltErrorTypeRefs()
  * @see JCodeModel#errorClass(String)
  * @author Victor Nazarov
  */
@@ -79,6 +79,7 @@ public class JErrorClass extends AbstractJClass
     super (_owner);
     m_sMessage = sMessage;
     m_sName = sName;
+    _owner.onErrorClassCreated ();
   }
 
   protected JErrorClass (@Nonnull final JCodeModel _owner, @Nonnull final String sMessage)
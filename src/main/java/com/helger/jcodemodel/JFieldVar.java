@@ -79,6 +79,13 @@ public class JFieldVar extends JVar implements IJDocCommentable
   {
     super (mods, type, name, init);
     m_aOwnerClass = JCValueEnforcer.notNull (aOwnerClass, "OwnerClass");
+    super.setOwningClass (aOwnerClass);
+  }
+
+  @Override
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    // A field always belongs to the class declaring it
   }
 
   /**
@@ -106,7 +113,11 @@ public class JFieldVar extends JVar implements IJDocCommentable
   public JDocComment javadoc ()
   {
     if (m_aJavaDoc == null)
+    {
       m_aJavaDoc = new JDocComment (m_aOwnerClass.owner ());
+      m_aJavaDoc.setOwningClass (m_aOwnerClass);
+    }
+    m_aOwnerClass.markModified ();
     return m_aJavaDoc;
   }
 
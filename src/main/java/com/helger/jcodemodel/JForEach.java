@@ -41,6 +41,7 @@
 package com.helger.jcodemodel;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * ForEach Statement This will generate the code for statement based on the new
@@ -56,6 +57,11 @@ public class JForEach implements IJStatement
   private final IJExpression m_aCollection;
   private final JVar m_aLopVar;
 
+  /**
+   * The class containing this statement. May be <code>null</code>.
+   */
+  private JDefinedClass m_aOwningClass;
+
   protected JForEach (@Nonnull final AbstractJType aVarType,
                       @Nonnull final String sVarName,
                       @Nonnull final IJExpression aCollection)
@@ -73,6 +79,24 @@ public class JForEach implements IJStatement
     m_aLopVar = new JVar (JMods.forVar (JMod.FINAL), m_aType, m_sVarName, aCollection);
   }
 
+  /**
+   * @param aOwningClass
+   *        The class containing this statement. May be <code>null</code>.
+   * @see JBlock#setOwningClass(JDefinedClass)
+   */
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    m_aOwningClass = aOwningClass;
+    if (m_aBody != null)
+      m_aBody.setOwningClass (aOwningClass);
+  }
+
+  private void _markModified ()
+  {
+    if (m_aOwningClass != null)
+      m_aOwningClass.markModified ();
+  }
+
   @Nonnull
   public AbstractJType type ()
   {
@@ -98,7 +122,11 @@ public class JForEach implements IJStatement
   public JBlock body ()
   {
     if (m_aBody == null)
+    {
       m_aBody = new JBlock ();
+      m_aBody.setOwningClass (m_aOwningClass);
+      _markModified ();
+    }
     return m_aBody;
   }
 
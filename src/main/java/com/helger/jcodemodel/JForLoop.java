@@ -57,9 +57,34 @@ public class JForLoop implements IJStatement
   private final List <IJExpression> m_aUpdateExprs = new ArrayList <> ();
   private JBlock m_aBody;
 
+  /**
+   * The class containing this statement. May be <code>null</code>.
+   */
+  private JDefinedClass m_aOwningClass;
+
   protected JForLoop ()
   {}
 
+  /**
+   * @param aOwningClass
+   *        The class containing this statement. May be <code>null</code>.
+   * @see JBlock#setOwningClass(JDefinedClass)
+   */
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    m_aOwningClass = aOwningClass;
+    for (final Object aInit : m_aInitExprs)
+      JBlock.setOwningClass (aInit, aOwningClass);
+    if (m_aBody != null)
+      m_aBody.setOwningClass (aOwningClass);
+  }
+
+  private void _markModified ()
+  {
+    if (m_aOwningClass != null)
+      m_aOwningClass.markModified ();
+  }
+
   @Nonnull
   public JVar init (final int mods,
                     @Nonnull final AbstractJType aType,
@@ -67,7 +92,9 @@ public class JForLoop implements IJStatement
                     @Nullable final IJExpression aInitExpr)
   {
     final JVar aVar = new JVar (JMods.forVar (mods), aType, sVarName, aInitExpr);
+    aVar.setOwningClass (m_aOwningClass);
     m_aInitExprs.add (aVar);
+    _markModified ();
     return aVar;
   }
 
@@ -83,6 +110,7 @@ public class JForLoop implements IJStatement
   {
     final JAssignment aAssignment = JExpr.assign (aVar, aRhs);
     m_aInitExprs.add (aAssignment);
+    _markModified ();
   }
 
   /**
@@ -97,6 +125,7 @@ public class JForLoop implements IJStatement
   public void test (@Nullable final IJExpression aTestExpr)
   {
     m_aTestExpr = aTestExpr;
+    _markModified ();
   }
 
   @Nullable
@@ -111,6 +140,7 @@ public class JForLoop implements IJStatement
       throw new NullPointerException ("Update expression");
 
     m_aUpdateExprs.add (aUpdate);
+    _markModified ();
   }
 
   @Nonnull
@@ -123,7 +153,11 @@ public class JForLoop implements IJStatement
   public JBlock body ()
   {
     if (m_aBody == null)
+    {
       m_aBody = new JBlock ();
+      m_aBody.setOwningClass (m_aOwningClass);
+      _markModified ();
+    }
     return m_aBody;
   }
 
@@ -44,10 +44,12 @@ import java.io.Closeable;
 import java.io.PrintWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -77,7 +79,11 @@ public class JFormatter implements Closeable
   {
     private final String m_sName;
 
-    private final List <AbstractJClass> m_aReferencedClasses = new ArrayList<> ();
+    /**
+     * All referenced classes with this short name in the order of their first
+     * reference. A set to keep adding and lookup constant.
+     */
+    private final Set <AbstractJClass> m_aReferencedClasses = new LinkedHashSet <> ();
 
     /** true if this name is used as an identifier (like a variable name.) **/
     private boolean m_bIsVariableName;
@@ -106,7 +112,7 @@ public class JFormatter implements Closeable
         return false;
 
       // we have exactly one reference
-      AbstractJClass aSingleRef = m_aReferencedClasses.get (0);
+      AbstractJClass aSingleRef = getSingleReferencedType ();
       if (aSingleRef instanceof JAnonymousClass)
       {
         aSingleRef = ((JAnonymousClass) aSingleRef).base ();
@@ -117,17 +123,14 @@ public class JFormatter implements Closeable
       if (aSingleRef._package () == JFormatter.this.m_aPckJavaLang)
       {
         // make sure that there's no other class with this name within the
-        // same package
-        for (final JDefinedClass aClass : aEnclosingClass._package ().classes ())
+        // same package. Even if this is the only "String" class we use, if the
+        // class called "String" is in the same package, we still need to
+        // import it. The package classes are keyed by name, so no need to
+        // scan them all.
+        if (aEnclosingClass._package ()._getClass (aSingleRef.name ()) != null)
         {
-          // even if this is the only "String" class we use,
-          // if the class called "String" is in the same package,
-          // we still need to import it.
-          if (aClass.name ().equals (aSingleRef.name ()))
-          {
-            // collision -> ambiguous
-            return true;
-          }
+          // collision -> ambiguous
+          return true;
         }
       }
 
@@ -138,8 +141,6 @@ public class JFormatter implements Closeable
     {
       if (false)
         System.out.println ("Adding referenced type[" + m_sName + "]: " + clazz.fullName ());
-      if (m_aReferencedClasses.contains (clazz))
-        return false;
       return m_aReferencedClasses.add (clazz);
     }
 
@@ -152,11 +153,11 @@ public class JFormatter implements Closeable
     public AbstractJClass getSingleReferencedType ()
     {
       assert m_aReferencedClasses.size () == 1;
-      return m_aReferencedClasses.get (0);
+      return m_aReferencedClasses.iterator ().next ();
     }
 
     @Nonnull
-    public List <AbstractJClass> getReferencedTypes ()
+    public Collection <AbstractJClass> getReferencedTypes ()
     {
       return m_aReferencedClasses;
     }
@@ -285,6 +286,12 @@ public class JFormatter implements Closeable
       m_aNames.clear ();
     }
 
+    @Nonnull
+    public Set <AbstractJClass> getAll ()
+    {
+      return m_aClasses;
+    }
+
     @Nonnull
     public List <AbstractJClass> getAllSorted ()
     {
@@ -317,6 +324,12 @@ public class JFormatter implements Closeable
    */
   private final ImportedClasses m_aImportedClasses = new ImportedClasses ();
 
+  /**
+   * All {@link JDefinedClass}es printed in the fully qualified names mode, for
+   * the modification stamps.
+   */
+  private final Set <JDefinedClass> m_aPrintedDefinedClasses = new HashSet <> ();
+
   /**
    * The current running mode. Set to PRINTING so that a casual client can use a
    * formatter just like before.
@@ -333,21 +346,54 @@ public class JFormatter implements Closeable
    */
   private final String m_sIndentSpace;
 
+  /**
+   * The indentation strings per indentation level. Lazily extended.
+   */
+  private String [] m_aIndentCache = new String [8];
+
   /**
    * Writer associated with this {@link JFormatter}
    */
-  private final SourcePrintWriter m_aPW;
+  private SourcePrintWriter m_aPW;
 
   private char m_cLastChar = 0;
   private boolean m_bAtBeginningOfLine = true;
   private JPackage m_aPckJavaLang;
+  private JPackage m_aPckClassToBeWritten;
 
   /**
-   * Only used by {@link JFormatter#containsErrorTypes(JDefinedClass)
-   * containsErrorTypes} method
+   * Set by {@link JFormatter#containsErrorTypes(JDefinedClass)
+   * containsErrorTypes} and when an error type is printed.
    */
   private boolean m_bContainsErrorTypes;
 
+  /**
+   * Optional listener to be informed about the time spent in
+   * {@link #write(JDefinedClass)}
+   */
+  private IJBuildListener m_aBuildListener;
+
+  /**
+   * If <code>true</code>, {@link #write(JDefinedClass)} emits no imports and
+   * skips the collecting pass.
+   */
+  private boolean m_bFullyQualifiedNames = false;
+
+  /**
+   * Compact mode: no comments, no indentation, no line breaks.
+   */
+  private boolean m_bCompact = false;
+
+  /**
+   * The optional cache for the classes to be imported.
+   */
+  private JImportPlanCache m_aImportPlanCache;
+
+  /**
+   * The modification stamps the last written class depends on.
+   */
+  private JModificationStamps m_aModificationStamps;
+
   /**
    * Creates a formatter with default incremental indentations of four spaces.
    *
@@ -376,6 +422,7 @@ public class JFormatter implements Closeable
 
     m_aPW = aPW;
     m_sIndentSpace = sIndentSpace;
+    m_aIndentCache[0] = "";
   }
 
   /**
@@ -422,6 +469,34 @@ public class JFormatter implements Closeable
           sIndentSpace);
   }
 
+  /**
+   * Reset this formatter, so that it can be reused for writing another source
+   * file to the provided writer. All settings are kept, and the internal
+   * collections keep their capacity. The previous writer is not closed.
+   *
+   * @param aPW
+   *        The new writer to be used. May not be <code>null</code>.
+   * @return this for chaining
+   * @since 3.0.0
+   */
+  @Nonnull
+  public JFormatter reset (@Nonnull final SourcePrintWriter aPW)
+  {
+    JCValueEnforcer.notNull (aPW, "PrintWriter");
+
+    m_aPW = aPW;
+    m_eMode = EMode.PRINTING;
+    m_nIndentLevel = 0;
+    m_cLastChar = 0;
+    m_bAtBeginningOfLine = true;
+    m_aPckJavaLang = null;
+    m_bContainsErrorTypes = false;
+    m_aModificationStamps = null;
+    m_aCollectedReferences.clear ();
+    m_aImportedClasses.clear ();
+    return this;
+  }
+
   /**
    * Closes this formatter.
    */
@@ -463,6 +538,49 @@ public class JFormatter implements Closeable
     return this;
   }
 
+  /** Character class flag for {@link Character#isDigit(char)} */
+  private static final byte CC_DIGIT = 1;
+  /** Character class flag for {@link Character#isJavaIdentifierPart(char)} */
+  private static final byte CC_ID_PART = 2;
+  /** Character class flag for {@link Character#isJavaIdentifierStart(char)} */
+  private static final byte CC_ID_START = 4;
+
+  /**
+   * The character classes of all ASCII characters, to avoid the generic
+   * Unicode lookups for the vast majority of all printed characters.
+   */
+  private static final byte [] ASCII_CHAR_CLASSES = new byte [128];
+
+  static
+  {
+    for (char c = 0; c < ASCII_CHAR_CLASSES.length; ++c)
+    {
+      byte nFlags = 0;
+      if (Character.isDigit (c))
+        nFlags |= CC_DIGIT;
+      if (Character.isJavaIdentifierPart (c))
+        nFlags |= CC_ID_PART;
+      if (Character.isJavaIdentifierStart (c))
+        nFlags |= CC_ID_START;
+      ASCII_CHAR_CLASSES[c] = nFlags;
+    }
+  }
+
+  private static boolean _isDigit (final char c)
+  {
+    return c < 128 ? (ASCII_CHAR_CLASSES[c] & CC_DIGIT) != 0 : Character.isDigit (c);
+  }
+
+  private static boolean _isJavaIdentifierPart (final char c)
+  {
+    return c < 128 ? (ASCII_CHAR_CLASSES[c] & CC_ID_PART) != 0 : Character.isJavaIdentifierPart (c);
+  }
+
+  private static boolean _isJavaIdentifierStart (final char c)
+  {
+    return c < 128 ? (ASCII_CHAR_CLASSES[c] & CC_ID_START) != 0 : Character.isJavaIdentifierStart (c);
+  }
+
   private static boolean _needSpace (final char c1, final char c2)
   {
     if ((c1 == ']') && (c2 == '{'))
@@ -485,13 +603,13 @@ public class JFormatter implements Closeable
       return true;
     if (c2 == '=')
       return true;
-    if (Character.isDigit (c1))
+    if (_isDigit (c1))
     {
       if ((c2 == '(') || (c2 == ')') || (c2 == ';') || (c2 == ','))
         return false;
       return true;
     }
-    if (Character.isJavaIdentifierPart (c1))
+    if (_isJavaIdentifierPart (c1))
     {
       switch (c2)
       {
@@ -503,10 +621,10 @@ public class JFormatter implements Closeable
         case '@':
           return true;
         default:
-          return Character.isJavaIdentifierStart (c2);
+          return _isJavaIdentifierStart (c2);
       }
     }
-    if (Character.isJavaIdentifierStart (c2))
+    if (_isJavaIdentifierStart (c2))
     {
       switch (c1)
       {
@@ -519,7 +637,7 @@ public class JFormatter implements Closeable
           return false;
       }
     }
-    if (Character.isDigit (c2))
+    if (_isDigit (c2))
     {
       if (c1 == '(')
         return false;
@@ -528,12 +646,53 @@ public class JFormatter implements Closeable
     return false;
   }
 
+  @Nonnull
+  private String _getIndent (final int nIndentLevel)
+  {
+    if (nIndentLevel <= 0)
+      return "";
+    if (nIndentLevel >= m_aIndentCache.length)
+      m_aIndentCache = Arrays.copyOf (m_aIndentCache, Math.max (nIndentLevel + 1, m_aIndentCache.length * 2));
+    String ret = m_aIndentCache[nIndentLevel];
+    if (ret == null)
+    {
+      ret = _getIndent (nIndentLevel - 1) + m_sIndentSpace;
+      m_aIndentCache[nIndentLevel] = ret;
+    }
+    return ret;
+  }
+
+  private static boolean _isSeparator (final char c)
+  {
+    switch (c)
+    {
+      case '{':
+      case '}':
+      case '(':
+      case ')':
+      case '[':
+      case ']':
+      case ';':
+      case ',':
+        return true;
+      default:
+        return false;
+    }
+  }
+
   private void _spaceIfNeeded (final char c)
   {
     if (m_bAtBeginningOfLine)
     {
-      for (int i = 0; i < m_nIndentLevel; i++)
-        m_aPW.print (m_sIndentSpace);
+      if (m_bCompact)
+      {
+        // The omitted line break may have been the only separation
+        if (m_cLastChar != 0 && !_isSeparator (m_cLastChar) && !_isSeparator (c))
+          m_aPW.print (' ');
+      }
+      else
+        if (m_nIndentLevel > 0)
+          m_aPW.print (_getIndent (m_nIndentLevel));
       m_bAtBeginningOfLine = false;
     }
     else
@@ -626,11 +785,21 @@ public class JFormatter implements Closeable
         if (aType.isError ())
         {
           print ("Object");
+          m_bContainsErrorTypes = true;
         }
         else
+        {
+          if (m_bFullyQualifiedNames)
+          {
+            final AbstractJClass aRealClass = m_aImportedClasses._getClassForImport (aType);
+            if (aRealClass instanceof JDefinedClass)
+              m_aPrintedDefinedClasses.add ((JDefinedClass) aRealClass);
+          }
+
           // many of the JTypes in this list are either primitive or belong to
           // package java so we don't need a FQCN
-          if (m_aImportedClasses.contains (aType) || aType._package () == m_aPckJavaLang)
+          if (m_aImportedClasses.contains (aType) ||
+              (aType._package () == m_aPckJavaLang && !_isShadowedJavaLangClass (aType)))
           {
             // FQCN imported or not necessary, so generate short name
             print (aType.name ());
@@ -648,6 +817,7 @@ public class JFormatter implements Closeable
               print (aType.fullName ());
             }
           }
+        }
         break;
       case FIND_ERROR_TYPES:
         if (aType.isError ())
@@ -657,6 +827,22 @@ public class JFormatter implements Closeable
     return this;
   }
 
+  /**
+   * Check if the short name of a java.lang class would bind to a class with the
+   * same name in the package of the class being written.
+   *
+   * @param aType
+   *        The java.lang class to check. May not be <code>null</code>.
+   * @return <code>true</code> if the fully qualified name must be used.
+   */
+  private boolean _isShadowedJavaLangClass (@Nonnull final AbstractJClass aType)
+  {
+    if (m_aPckClassToBeWritten == null)
+      return false;
+    final JDefinedClass aSamePackageClass = m_aPckClassToBeWritten._getClass (aType.name ());
+    return aSamePackageClass != null && aSamePackageClass != aType;
+  }
+
   /**
    * Print an identifier
    *
@@ -695,6 +881,31 @@ public class JFormatter implements Closeable
    */
   @Nonnull
   public JFormatter newline ()
+  {
+    if (m_eMode == EMode.PRINTING)
+    {
+      if (m_bCompact)
+      {
+        // Only remember that a separation may be needed
+        m_bAtBeginningOfLine = true;
+        return this;
+      }
+      m_aPW.println ();
+      m_cLastChar = 0;
+      m_bAtBeginningOfLine = true;
+    }
+    return this;
+  }
+
+  /**
+   * Print a new line into the stream, even in compact mode. This is required
+   * after source code that may end with a line comment.
+   *
+   * @return this for chaining
+   * @since 3.0.0
+   */
+  @Nonnull
+  public JFormatter forcedNewline ()
   {
     if (m_eMode == EMode.PRINTING)
     {
@@ -975,19 +1186,15 @@ public class JFormatter implements Closeable
   }
 
   /**
-   * Generates the whole source code out of the specified class.
+   * Collect all the types and identifiers used by the specified class and
+   * determine the classes to be imported.
    *
    * @param aClassToBeWritten
    *        Class to be written
    */
-  void write (@Nonnull final JDefinedClass aClassToBeWritten)
+  private void _collectImports (@Nonnull final JDefinedClass aClassToBeWritten)
   {
-    m_aPckJavaLang = aClassToBeWritten.owner ()._package ("java.lang");
-
-    // first collect all the types and identifiers
     m_eMode = EMode.COLLECTING;
-    m_aCollectedReferences.clear ();
-    m_aImportedClasses.clear ();
     declaration (aClassToBeWritten);
 
     if (m_bImportDebug)
@@ -1026,6 +1233,172 @@ public class JFormatter implements Closeable
 
     if (m_bImportDebug)
       System.out.println ("***Finished collecting***");
+  }
+
+  /**
+   * Set the listener to be informed about the time spent in the passes of
+   * {@link #write(JDefinedClass)}.
+   *
+   * @param aBuildListener
+   *        The listener to use. May be <code>null</code>.
+   */
+  void setBuildListener (@Nullable final IJBuildListener aBuildListener)
+  {
+    m_aBuildListener = aBuildListener;
+  }
+
+  /**
+   * Set the cache to be used for the classes to be imported, so that the
+   * collection pass of {@link #write(JDefinedClass)} can be skipped for
+   * unmodified classes.
+   *
+   * @param aImportPlanCache
+   *        The cache to use. May be <code>null</code>.
+   */
+  void setImportPlanCache (@Nullable final JImportPlanCache aImportPlanCache)
+  {
+    m_aImportPlanCache = aImportPlanCache;
+  }
+
+  /**
+   * @return All {@link JDefinedClass}es referenced in the last collection pass.
+   */
+  @Nonnull
+  private Set <JDefinedClass> _getCollectedDefinedClasses ()
+  {
+    final Set <JDefinedClass> ret = new HashSet <> ();
+    for (final NameUsage aUsage : m_aCollectedReferences.values ())
+      for (final AbstractJClass aReferencedClass : aUsage.getReferencedTypes ())
+      {
+        final AbstractJClass aRealClass = m_aImportedClasses._getClassForImport (aReferencedClass);
+        if (aRealClass instanceof JDefinedClass)
+          ret.add ((JDefinedClass) aRealClass);
+      }
+    return ret;
+  }
+
+  /**
+   * @return <code>true</code> if the class last written by
+   *         {@link #write(JDefinedClass)} contains references to error types.
+   */
+  boolean hasWrittenErrorTypes ()
+  {
+    return m_bContainsErrorTypes;
+  }
+
+  /**
+   * @return The modification stamps the class last written by
+   *         {@link #write(JDefinedClass)} depends on. <code>null</code> if no
+   *         class was written so far.
+   */
+  @Nullable
+  JModificationStamps getModificationStamps ()
+  {
+    return m_aModificationStamps;
+  }
+
+  /**
+   * @return <code>true</code> if the compact mode is enabled.
+   *         <code>false</code> by default.
+   */
+  public boolean isCompact ()
+  {
+    return m_bCompact;
+  }
+
+  /**
+   * Enable or disable the compact mode. If enabled, no comments (including
+   * Javadoc and header comments) are emitted, no indentation is used and line
+   * breaks are replaced by a single space where needed. This is meant for
+   * source code that is only read by a compiler.
+   *
+   * @param bCompact
+   *        <code>true</code> to enable, <code>false</code> to disable.
+   * @return this for chaining
+   * @since 3.0.0
+   */
+  @Nonnull
+  public JFormatter setCompact (final boolean bCompact)
+  {
+    m_bCompact = bCompact;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if {@link #write(JDefinedClass)} uses fully
+   *         qualified names instead of imports. <code>false</code> by default.
+   */
+  public boolean isFullyQualifiedNames ()
+  {
+    return m_bFullyQualifiedNames;
+  }
+
+  /**
+   * Enable or disable the fully qualified names mode. If enabled,
+   * {@link #write(JDefinedClass)} emits no import statements and references
+   * all classes except the ones from <code>java.lang</code> and the written
+   * class itself (including its inner classes) by their fully qualified name.
+   * This requires only a single traversal of the class instead of two, at the
+   * price of less readable code.
+   *
+   * @param bFullyQualifiedNames
+   *        <code>true</code> to enable, <code>false</code> to disable.
+   * @return this for chaining
+   */
+  @Nonnull
+  public JFormatter setFullyQualifiedNames (final boolean bFullyQualifiedNames)
+  {
+    m_bFullyQualifiedNames = bFullyQualifiedNames;
+    return this;
+  }
+
+  /**
+   * Generates the whole source code out of the specified class.
+   *
+   * @param aClassToBeWritten
+   *        Class to be written
+   */
+  void write (@Nonnull final JDefinedClass aClassToBeWritten)
+  {
+    final IJBuildListener aListener = m_aBuildListener;
+    final long nStartNanos = aListener == null ? 0 : System.nanoTime ();
+
+    m_aPckJavaLang = aClassToBeWritten.owner ()._package ("java.lang");
+    m_aPckClassToBeWritten = aClassToBeWritten._package ();
+    m_bContainsErrorTypes = false;
+
+    m_aCollectedReferences.clear ();
+    m_aImportedClasses.clear ();
+    if (m_bFullyQualifiedNames)
+    {
+      // Only the class itself can be referenced by its short name. The
+      // referenced classes are recorded while printing.
+      m_aImportedClasses.add (aClassToBeWritten);
+      m_aPrintedDefinedClasses.clear ();
+      m_aModificationStamps = null;
+    }
+    else
+    {
+      final JImportPlanCache aCache = m_aImportPlanCache;
+      final JImportPlanCache.ImportPlan aPlan = aCache == null ? null : aCache.getUpToDatePlan (aClassToBeWritten);
+      if (aPlan != null)
+      {
+        // Class was not modified since the last collection
+        for (final AbstractJClass aImportedClass : aPlan.getImportedClasses ())
+          m_aImportedClasses.add (aImportedClass);
+        m_aModificationStamps = aPlan.getModificationStamps ();
+      }
+      else
+      {
+        _collectImports (aClassToBeWritten);
+        m_aModificationStamps = new JModificationStamps (aClassToBeWritten, _getCollectedDefinedClasses ());
+        if (aCache != null)
+          aCache.putPlan (aClassToBeWritten,
+                          new JImportPlanCache.ImportPlan (m_aModificationStamps, m_aImportedClasses.getAll ()));
+      }
+    }
+
+    final long nCollectedNanos = aListener == null ? 0 : System.nanoTime ();
 
     // then print the declaration
     m_eMode = EMode.PRINTING;
@@ -1064,6 +1437,18 @@ public class JFormatter implements Closeable
       newline ();
 
     declaration (aClassToBeWritten);
+
+    if (m_bFullyQualifiedNames)
+    {
+      m_aModificationStamps = new JModificationStamps (aClassToBeWritten, m_aPrintedDefinedClasses);
+      m_aPrintedDefinedClasses.clear ();
+    }
+
+    if (m_bContainsErrorTypes)
+      aClassToBeWritten.owner ().onErrorTypeRefBuilt ();
+
+    if (aListener != null)
+      aListener.onClassWritten (aClassToBeWritten, nCollectedNanos - nStartNanos, System.nanoTime () - nCollectedNanos);
   }
 
   public static boolean containsErrorTypes (@Nonnull final JDefinedClass c)
@@ -0,0 +1,193 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A cache for the classes to be imported by top-level classes. When the same
+ * {@link JCodeModel} is built more than once, the import collection pass of
+ * {@link JFormatter} is skipped for every class whose import plan is still up
+ * to date. A plan is up to date if neither the class itself (including its
+ * inner classes), nor any referenced {@link JDefinedClass}, nor the set of
+ * classes in its package was modified since the plan was created.<br>
+ * Note: a few kinds of changes, e.g. of nested expressions, are not tracked
+ * automatically - see {@link JDefinedClass#markModified()}.
+ *
+ * @author Philip Helger
+ * @since 3.0.0
+ */
+@ThreadSafe
+public class JImportPlanCache
+{
+  /**
+   * The import plan of a single class.
+   */
+  @Immutable
+  static final class ImportPlan
+  {
+    private final JModificationStamps m_aStamps;
+    private final List <AbstractJClass> m_aImportedClasses;
+
+    ImportPlan (@Nonnull final JModificationStamps aStamps, @Nonnull final Collection <AbstractJClass> aImportedClasses)
+    {
+      m_aStamps = aStamps;
+      m_aImportedClasses = new ArrayList <> (aImportedClasses);
+    }
+
+    /**
+     * @return The modification stamps this plan depends on. Never
+     *         <code>null</code>.
+     */
+    @Nonnull
+    JModificationStamps getModificationStamps ()
+    {
+      return m_aStamps;
+    }
+
+    /**
+     * @return All classes to be imported. Never <code>null</code>.
+     */
+    @Nonnull
+    List <AbstractJClass> getImportedClasses ()
+    {
+      return m_aImportedClasses;
+    }
+  }
+
+  private final Map <JDefinedClass, ImportPlan> m_aPlans = new ConcurrentHashMap <> ();
+  private final AtomicLong m_aHitCount = new AtomicLong ();
+  private final AtomicLong m_aMissCount = new AtomicLong ();
+
+  public JImportPlanCache ()
+  {}
+
+  /**
+   * Get the import plan of the provided class if it is still up to date.
+   *
+   * @param aClass
+   *        The top-level class to be written.
+   * @return <code>null</code> if no or only an outdated plan is present.
+   */
+  @Nullable
+  ImportPlan getUpToDatePlan (@Nonnull final JDefinedClass aClass)
+  {
+    final ImportPlan aPlan = m_aPlans.get (aClass);
+    if (aPlan != null && aPlan.getModificationStamps ().isUpToDate (aClass))
+    {
+      m_aHitCount.incrementAndGet ();
+      return aPlan;
+    }
+    m_aMissCount.incrementAndGet ();
+    return null;
+  }
+
+  void putPlan (@Nonnull final JDefinedClass aClass, @Nonnull final ImportPlan aPlan)
+  {
+    m_aPlans.put (aClass, aPlan);
+  }
+
+  /**
+   * Remove the import plan of a single class.
+   *
+   * @param aClass
+   *        The class to remove. May be <code>null</code>.
+   */
+  public void remove (@Nullable final JDefinedClass aClass)
+  {
+    if (aClass != null)
+      m_aPlans.remove (aClass);
+  }
+
+  /**
+   * Remove all import plans and reset the statistics.
+   */
+  public void clear ()
+  {
+    m_aPlans.clear ();
+    m_aHitCount.set (0);
+    m_aMissCount.set (0);
+  }
+
+  /**
+   * @return The number of cached import plans.
+   */
+  @Nonnegative
+  public int size ()
+  {
+    return m_aPlans.size ();
+  }
+
+  /**
+   * @return The number of classes for which the collection pass was skipped.
+   */
+  @Nonnegative
+  public long getHitCount ()
+  {
+    return m_aHitCount.get ();
+  }
+
+  /**
+   * @return The number of classes for which the collection pass was required.
+   */
+  @Nonnegative
+  public long getMissCount ()
+  {
+    return m_aMissCount.get ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return "JImportPlanCache[plans=" + size () + "; hits=" + getHitCount () + "; misses=" + getMissCount () + "]";
+  }
+}
@@ -91,6 +91,11 @@ public class JInvocation extends AbstractJExpressionImpl implements IJStatement,
    */
   private List <JTypeVar> _typeVariables;
 
+  /**
+   * The class containing this statement. May be <code>null</code>.
+   */
+  private JDefinedClass m_aOwningClass;
+
   /**
    * Invokes a method on an object.
    *
@@ -181,6 +186,27 @@ public class JInvocation extends AbstractJExpressionImpl implements IJStatement,
     m_aConstructorType = aConstructorType;
   }
 
+  /**
+   * @param aOwningClass
+   *        The class containing this statement. May be <code>null</code>.
+   * @see JBlock#setOwningClass(JDefinedClass)
+   */
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    m_aOwningClass = aOwningClass;
+    if (aOwningClass != null && m_aConstructorType instanceof JAnonymousClass)
+      ((JAnonymousClass) m_aConstructorType).setEnclosingClass (aOwningClass);
+    JBlock.setOwningClass (m_aObject, aOwningClass);
+    for (final IJExpression aArg : _args)
+      JBlock.setOwningClass (aArg, aOwningClass);
+  }
+
+  private void _markModified ()
+  {
+    if (m_aOwningClass != null)
+      m_aOwningClass.markModified ();
+  }
+
   @Nullable
   public JCodeModel owner ()
   {
@@ -205,6 +231,8 @@ public class JInvocation extends AbstractJExpressionImpl implements IJStatement,
     if (arg == null)
       throw new IllegalArgumentException ("argument may not be null");
     _args.add (arg);
+    JBlock.setOwningClass (arg, m_aOwningClass);
+    _markModified ();
     return this;
   }
 
@@ -337,6 +365,7 @@ public class JInvocation extends AbstractJExpressionImpl implements IJStatement,
     if (_typeVariables == null)
       _typeVariables = new ArrayList <> (3);
     _typeVariables.add (v);
+    _markModified ();
     return this;
   }
 
@@ -353,6 +382,7 @@ public class JInvocation extends AbstractJExpressionImpl implements IJStatement,
     if (_typeVariables == null)
       _typeVariables = new ArrayList <> (3);
     _typeVariables.add (v);
+    _markModified ();
     return this;
   }
 
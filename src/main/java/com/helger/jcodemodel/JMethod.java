@@ -134,6 +134,7 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
     JCValueEnforcer.notNull (aReturnType, "ReturnType");
     JCValueEnforcer.notEmpty (sName, "Name");
     m_aMods = JMods.forMethod (mods);
+    m_aMods.setOwningClass (aOwningClass);
     m_aReturnType = aReturnType;
     m_sName = sName;
     m_aOwningClass = aOwningClass;
@@ -151,6 +152,7 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
   {
     JCValueEnforcer.notNull (aClass, "Class");
     m_aMods = JMods.forMethod (mods);
+    m_aMods.setOwningClass (aClass);
     m_aReturnType = null;
     m_sName = aClass.name ();
     m_aOwningClass = aClass;
@@ -182,6 +184,7 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
     if (m_aThrows == null)
       m_aThrows = new TreeSet <> (ClassNameComparator.getInstance ());
     m_aThrows.add (exception);
+    m_aOwningClass.markModified ();
     return this;
   }
 
@@ -224,7 +227,9 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
   public JVar param (final int mods, @Nonnull final AbstractJType type, @Nonnull final String name)
   {
     final JVar aVar = new JVar (JMods.forVar (mods), type, name, null);
+    aVar.setOwningClass (m_aOwningClass);
     m_aParams.add (aVar);
+    m_aOwningClass.markModified ();
     return aVar;
   }
 
@@ -331,6 +336,8 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
                                        " invoked more than once");
 
     m_aVarParam = new JVar (JMods.forVar (mods), type.array (), name, null);
+    m_aVarParam.setOwningClass (m_aOwningClass);
+    m_aOwningClass.markModified ();
     return m_aVarParam;
   }
 
@@ -373,7 +380,9 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
     if (m_aAnnotations == null)
       m_aAnnotations = new ArrayList <> ();
     final JAnnotationUse a = new JAnnotationUse (clazz);
+    a.setOwningClass (m_aOwningClass);
     m_aAnnotations.add (a);
+    m_aOwningClass.markModified ();
     return a;
   }
 
@@ -418,6 +427,7 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
   public void name (final String n)
   {
     m_sName = n;
+    m_aOwningClass.markModified ();
   }
 
   /**
@@ -439,6 +449,7 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
   public void type (@Nullable final AbstractJType t)
   {
     m_aReturnType = t;
+    m_aOwningClass.markModified ();
   }
 
   /**
@@ -508,10 +519,34 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
   public JBlock body ()
   {
     if (m_aBody == null)
+    {
       m_aBody = new JBlock ();
+      m_aBody.setOwningClass (m_aOwningClass);
+    }
+    // The body is modified by the caller
+    m_aOwningClass.markModified ();
     return m_aBody;
   }
 
+  /**
+   * @return A cheap estimation of the number of chars needed to write this
+   *         method, based on the number of parameters and statements. Does not
+   *         mark the owning class as modified.
+   * @see JDefinedClass#estimateSourceSize()
+   */
+  @Nonnegative
+  /* package */int estimateSourceSize ()
+  {
+    int ret = JDefinedClass.ESTIMATED_METHOD_SIZE + m_aParams.size () * JDefinedClass.ESTIMATED_PARAM_SIZE;
+    if (m_aVarParam != null)
+      ret += JDefinedClass.ESTIMATED_PARAM_SIZE;
+    if (m_aJDoc != null)
+      ret += JDefinedClass.ESTIMATED_JAVADOC_SIZE;
+    if (m_aBody != null)
+      ret += JDefinedClass.estimateBlockSize (m_aBody);
+    return ret;
+  }
+
   /**
    * Specify the default value for this method
    *
@@ -521,13 +556,18 @@ public class JMethod extends AbstractJGenerifiableImpl implements IJAnnotatable,
   public void declareDefaultValue (@Nullable final IJExpression aDefaultValue)
   {
     m_aDefaultValue = aDefaultValue;
+    m_aOwningClass.markModified ();
   }
 
   @Nonnull
   public JDocComment javadoc ()
   {
     if (m_aJDoc == null)
+    {
       m_aJDoc = new JDocComment (owner ());
+      m_aJDoc.setOwningClass (m_aOwningClass);
+    }
+    m_aOwningClass.markModified ();
     return m_aJDoc;
   }
 
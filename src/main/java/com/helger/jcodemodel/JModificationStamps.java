@@ -0,0 +1,92 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * A snapshot of all modification stamps a top-level class depends on: the
+ * class itself (including its inner classes), the referenced
+ * {@link JDefinedClass}es and the set of classes in its package.
+ *
+ * @author Philip Helger
+ * @since 3.0.0
+ */
+@Immutable
+final class JModificationStamps
+{
+  private final long m_nStamp;
+  private final long m_nPackageStamp;
+  private final Map <JDefinedClass, Long> m_aReferencedStamps;
+
+  JModificationStamps (@Nonnull final JDefinedClass aClass,
+                       @Nonnull final Collection <JDefinedClass> aReferencedClasses)
+  {
+    m_nStamp = aClass.getModificationStamp ();
+    m_nPackageStamp = aClass._package ().getModificationStamp ();
+    m_aReferencedStamps = new IdentityHashMap <> (aReferencedClasses.size ());
+    for (final JDefinedClass aReferencedClass : aReferencedClasses)
+      m_aReferencedStamps.put (aReferencedClass, Long.valueOf (aReferencedClass.getModificationStamp ()));
+  }
+
+  /**
+   * @param aClass
+   *        The class this snapshot was created for.
+   * @return <code>true</code> if none of the stamps changed since this snapshot
+   *         was created.
+   */
+  boolean isUpToDate (@Nonnull final JDefinedClass aClass)
+  {
+    if (aClass.getModificationStamp () != m_nStamp)
+      return false;
+    if (aClass._package ().getModificationStamp () != m_nPackageStamp)
+      return false;
+    for (final Map.Entry <JDefinedClass, Long> aEntry : m_aReferencedStamps.entrySet ())
+      if (aEntry.getKey ().getModificationStamp () != aEntry.getValue ().longValue ())
+        return false;
+    return true;
+  }
+}
@@ -43,6 +43,7 @@ package com.helger.jcodemodel;
 import java.io.StringWriter;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Modifier groups.
@@ -80,11 +81,28 @@ public class JMods implements IJGenerable
   /** bit-packed representation of modifiers. */
   private int m_nMods;
 
+  /**
+   * The class whose declaration contains these modifiers. May be
+   * <code>null</code>.
+   */
+  private JDefinedClass m_aOwningClass;
+
   protected JMods (final int nMods)
   {
     m_nMods = nMods;
   }
 
+  /**
+   * @param aOwningClass
+   *        The class whose declaration contains these modifiers. It is marked
+   *        as modified whenever a modifier changes. May be <code>null</code>.
+   * @see JDefinedClass#markModified()
+   */
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    m_aOwningClass = aOwningClass;
+  }
+
   /**
    * @return the bit-packed representation of modifiers.
    */
@@ -225,7 +243,13 @@ public class JMods implements IJGenerable
 
   private void _setFlag (final int bit, final boolean bNewValue)
   {
-    m_nMods = (m_nMods & ~bit) | (bNewValue ? bit : 0);
+    final int nNewMods = (m_nMods & ~bit) | (bNewValue ? bit : 0);
+    if (nNewMods != m_nMods)
+    {
+      m_nMods = nNewMods;
+      if (m_aOwningClass != null)
+        m_aOwningClass.markModified ();
+    }
   }
 
   public void generate (@Nonnull final JFormatter f)
@@ -66,6 +66,12 @@ public class JNarrowedClass extends AbstractJClass
    */
   private final List <? extends AbstractJClass> m_aArgs;
 
+  // The lazily created names. Only used if all parts have a fixed name.
+  private String m_sName;
+  private String m_sFullName;
+  private String m_sBinaryName;
+  private Boolean m_aFixedName;
+
   public JNarrowedClass (@Nonnull final AbstractJClass basis, @Nonnull final AbstractJClass arg)
   {
     this (basis, Collections.singletonList (arg));
@@ -105,7 +111,7 @@ public class JNarrowedClass extends AbstractJClass
 
     final List <AbstractJClass> newArgs = new ArrayList <> (m_aArgs);
     newArgs.add (clazz);
-    return new JNarrowedClass (m_aBasis, newArgs);
+    return owner ().internType (new JNarrowedClass (m_aBasis, newArgs));
   }
 
   @Override
@@ -116,11 +122,43 @@ public class JNarrowedClass extends AbstractJClass
     final List <AbstractJClass> newArgs = new ArrayList <> (m_aArgs);
     for (final AbstractJClass aClass : clazz)
       newArgs.add (aClass);
-    return new JNarrowedClass (m_aBasis, newArgs);
+    return owner ().internType (new JNarrowedClass (m_aBasis, newArgs));
+  }
+
+  @Override
+  boolean hasFixedName ()
+  {
+    Boolean ret = m_aFixedName;
+    if (ret == null)
+    {
+      boolean bFixed = m_aBasis.hasFixedName ();
+      for (final AbstractJClass aArg : m_aArgs)
+        if (!aArg.hasFixedName ())
+        {
+          bFixed = false;
+          break;
+        }
+      ret = Boolean.valueOf (bFixed);
+      m_aFixedName = ret;
+    }
+    return ret.booleanValue ();
   }
 
   @Override
   public String name ()
+  {
+    String ret = m_sName;
+    if (ret == null)
+    {
+      ret = _buildName ();
+      if (hasFixedName ())
+        m_sName = ret;
+    }
+    return ret;
+  }
+
+  @Nonnull
+  private String _buildName ()
   {
     final StringBuilder buf = new StringBuilder ();
     buf.append (m_aBasis.name ()).append ('<');
@@ -140,6 +178,19 @@ public class JNarrowedClass extends AbstractJClass
   @Override
   @Nonnull
   public String fullName ()
+  {
+    String ret = m_sFullName;
+    if (ret == null)
+    {
+      ret = _buildFullName ();
+      if (hasFixedName ())
+        m_sFullName = ret;
+    }
+    return ret;
+  }
+
+  @Nonnull
+  private String _buildFullName ()
   {
     final StringBuilder buf = new StringBuilder ();
     buf.append (m_aBasis.fullName ());
@@ -159,6 +210,19 @@ public class JNarrowedClass extends AbstractJClass
 
   @Override
   public String binaryName ()
+  {
+    String ret = m_sBinaryName;
+    if (ret == null)
+    {
+      ret = _buildBinaryName ();
+      if (hasFixedName ())
+        m_sBinaryName = ret;
+    }
+    return ret;
+  }
+
+  @Nonnull
+  private String _buildBinaryName ()
   {
     final StringBuilder buf = new StringBuilder ();
     buf.append (m_aBasis.binaryName ());
@@ -282,7 +346,8 @@ public class JNarrowedClass extends AbstractJClass
   @Override
   public List <? extends AbstractJClass> getTypeParameters ()
   {
-    return m_aArgs;
+    // Instances are shared, so the arguments may not be modified
+    return Collections.unmodifiableList (m_aArgs);
   }
 
   @Override
@@ -301,7 +366,7 @@ public class JNarrowedClass extends AbstractJClass
     }
 
     if (different)
-      return new JNarrowedClass (b, clazz);
+      return owner ().internType (new JNarrowedClass (b, clazz));
     return this;
   }
 
@@ -48,17 +48,19 @@ import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import com.helger.jcodemodel.util.CountingOutputStream;
 import com.helger.jcodemodel.util.JCValueEnforcer;
 
 /**
@@ -80,19 +82,21 @@ public class JPackage implements
   private final JCodeModel m_aOwner;
 
   /**
-   * List of classes contained within this package keyed by their name.
+   * List of classes contained within this package keyed by their name. Sorted
+   * and readable without locking. All modifications are synchronized on this
+   * map, so that the check for duplicates is atomic.
    */
-  private final Map <String, JDefinedClass> m_aClasses = new TreeMap <> ();
+  private final Map <String, JDefinedClass> m_aClasses = new ConcurrentSkipListMap <> ();
 
   /**
    * List of resources files inside this package.
    */
-  private final Set <AbstractJResourceFile> m_aResources = new HashSet <> ();
+  private final Set <AbstractJResourceFile> m_aResources = ConcurrentHashMap.newKeySet ();
 
   /**
    * All {@link AbstractJClass}s in this package keyed the upper case class
    * name. This field is non-null only on Windows, to detect "Foo" and "foo" as
-   * a collision.
+   * a collision. Only accessed while synchronized on {@link #m_aClasses}.
    */
   private final Map <String, JDefinedClass> m_aUpperCaseClassMap;
 
@@ -106,6 +110,12 @@ public class JPackage implements
    */
   private JDocComment m_aJavaDoc;
 
+  /**
+   * Modification stamp of the contained classes. Incremented whenever a class
+   * is added or removed.
+   */
+  private volatile long m_nModificationStamp = 0;
+
   /**
    * JPackage constructor
    *
@@ -191,22 +201,92 @@ public class JPackage implements
                                @Nonnull final String sName,
                                @Nonnull final EClassType eClassType) throws JClassAlreadyExistsException
   {
-    if (m_aClasses.containsKey (sName))
-      throw new JClassAlreadyExistsException (m_aClasses.get (sName));
+    // Classes of one package may be created concurrently
+    synchronized (m_aClasses)
+    {
+      _checkNotExisting (sName);
+
+      // XXX problems caught in the NC constructor
+      final JDefinedClass c = new JDefinedClass (this, nMods, sName, eClassType);
+      _addClass (c);
+      m_nModificationStamp++;
+      return c;
+    }
+  }
 
-    // XXX problems caught in the NC constructor
-    final JDefinedClass c = new JDefinedClass (this, nMods, sName, eClassType);
+  /**
+   * Must be called while synchronized on {@link #m_aClasses}.
+   */
+  private void _checkNotExisting (@Nonnull final String sName) throws JClassAlreadyExistsException
+  {
+    final JDefinedClass aExisting = m_aClasses.get (sName);
+    if (aExisting != null)
+      throw new JClassAlreadyExistsException (aExisting);
 
     if (m_aUpperCaseClassMap != null)
     {
-      final String sUpperName = sName.toUpperCase ();
-      final JDefinedClass dc = m_aUpperCaseClassMap.get (sUpperName);
+      final JDefinedClass dc = m_aUpperCaseClassMap.get (sName.toUpperCase ());
       if (dc != null)
         throw new JClassAlreadyExistsException (dc);
-      m_aUpperCaseClassMap.put (sUpperName, c);
     }
-    m_aClasses.put (sName, c);
-    return c;
+  }
+
+  /**
+   * Must be called while synchronized on {@link #m_aClasses}, after
+   * {@link #_checkNotExisting(String)}.
+   */
+  private void _addClass (@Nonnull final JDefinedClass c)
+  {
+    if (m_aUpperCaseClassMap != null)
+      m_aUpperCaseClassMap.put (c.name ().toUpperCase (), c);
+    m_aClasses.put (c.name (), c);
+  }
+
+  /**
+   * Add the classes of several packages that were created outside of the
+   * packages (see {@link JCodeModelFragment}). Either all or none of the
+   * classes are added. The locks of all affected packages are taken in the
+   * order of the package names, so that concurrent calls cannot deadlock and
+   * no conflicting class can be created in between.
+   *
+   * @param aClasses
+   *        The top-level classes to add by package. May not be
+   *        <code>null</code>. The classes of a package must not contain
+   *        duplicate names.
+   * @throws JClassAlreadyExistsException
+   *         If a class of the same name already exists
+   */
+  /* package */static void addClasses (@Nonnull final Map <JPackage, ? extends Map <String, JDefinedClass>> aClasses) throws JClassAlreadyExistsException
+  {
+    final List <JPackage> aPackages = new ArrayList <> (aClasses.keySet ());
+    aPackages.sort (Comparator.comparing (JPackage::name));
+    _addClassesLocked (aPackages, 0, aClasses);
+  }
+
+  private static void _addClassesLocked (@Nonnull final List <JPackage> aPackages,
+                                         final int nIndex,
+                                         @Nonnull final Map <JPackage, ? extends Map <String, JDefinedClass>> aClasses) throws JClassAlreadyExistsException
+  {
+    if (nIndex < aPackages.size ())
+    {
+      final JPackage aPackage = aPackages.get (nIndex);
+      synchronized (aPackage.m_aClasses)
+      {
+        _addClassesLocked (aPackages, nIndex + 1, aClasses);
+      }
+      return;
+    }
+
+    // All packages are locked now
+    for (final JPackage aPackage : aPackages)
+      for (final String sName : aClasses.get (aPackage).keySet ())
+        aPackage._checkNotExisting (sName);
+    for (final JPackage aPackage : aPackages)
+    {
+      for (final JDefinedClass c : aClasses.get (aPackage).values ())
+        aPackage._addClass (c);
+      aPackage.m_nModificationStamp++;
+    }
   }
 
   /**
@@ -397,9 +477,24 @@ public class JPackage implements
 
     // note that c may not be a member of classes.
     // this happens when someone is trying to remove a non generated class
-    m_aClasses.remove (c.name ());
-    if (m_aUpperCaseClassMap != null)
-      m_aUpperCaseClassMap.remove (c.name ().toUpperCase ());
+    synchronized (m_aClasses)
+    {
+      m_aClasses.remove (c.name ());
+      if (m_aUpperCaseClassMap != null)
+        m_aUpperCaseClassMap.remove (c.name ().toUpperCase ());
+      m_nModificationStamp++;
+    }
+    if (c instanceof JDefinedClass)
+      m_aOwner.onClassRemoved ((JDefinedClass) c);
+  }
+
+  /**
+   * @return The modification stamp of the classes in this package. It changes
+   *         whenever a class is added or removed.
+   */
+  /* package */long getModificationStamp ()
+  {
+    return m_nModificationStamp;
   }
 
   /**
@@ -554,28 +649,107 @@ public class JPackage implements
     f.print (m_sName);
   }
 
-  void build (final AbstractCodeWriter src, final AbstractCodeWriter res) throws IOException
+  void build (@Nonnull final AbstractCodeWriter src,
+              @Nonnull final AbstractCodeWriter res,
+              @Nullable final JFormatter aFormatter) throws IOException
   {
     // write classes
     for (final JDefinedClass c : m_aClasses.values ())
     {
-      if (c.isHidden ())
+      if (c.isHidden () || c.isEmitted ())
       {
         // don't generate this file
         continue;
       }
 
-      try (final JFormatter f = _createJavaSourceFileWriter (src, c.name ()))
-      {
-        f.write (c);
-      }
+      emit (src, c, aFormatter);
+    }
+
+    buildPackageInfoAndResources (src, res);
+  }
+
+  /**
+   * Write the source code of a single top-level class of this package.
+   *
+   * @param src
+   *        Source code writer
+   * @param aClass
+   *        The class to be written
+   * @param aFormatter
+   *        The formatter to be reused. If <code>null</code> a new formatter is
+   *        used.
+   * @throws IOException
+   *         on IO error
+   */
+  void emit (@Nonnull final AbstractCodeWriter src,
+             @Nonnull final JDefinedClass aClass,
+             @Nullable final JFormatter aFormatter) throws IOException
+  {
+    if (m_aOwner.getRenderedClassCache () != null)
+    {
+      // Render to (or take from) the cache
+      writeRenderedClass (src, aClass, JCodeModel._renderClass (aClass, src.getNewLine (), null));
+      return;
+    }
+
+    src.setSizeHint (aClass.estimateSourceSize ());
+    try (final SourcePrintWriter aWriter = src.openSource (this, aClass.name () + ".java"))
+    {
+      if (aFormatter != null)
+        aFormatter.reset (aWriter).write (aClass);
+      else
+        m_aOwner.createBuildFormatter (aWriter).write (aClass);
     }
+  }
 
+  /**
+   * @return All top-level classes of this package that will be emitted by a
+   *         build, in build order. Never <code>null</code>.
+   */
+  @Nonnull
+  List <JDefinedClass> getBuildableClasses ()
+  {
+    final List <JDefinedClass> ret = new ArrayList <> (m_aClasses.size ());
+    for (final JDefinedClass c : m_aClasses.values ())
+      if (!c.isHidden () && !c.isEmitted ())
+        ret.add (c);
+    return ret;
+  }
+
+  /**
+   * Write the already rendered source code of a single top-level class of this
+   * package.
+   *
+   * @param src
+   *        Source code writer
+   * @param aClass
+   *        The class that was rendered
+   * @param sRenderedSource
+   *        The rendered source code as created by {@link JFormatter#write}
+   * @throws IOException
+   *         on IO error
+   */
+  void writeRenderedClass (@Nonnull final AbstractCodeWriter src,
+                           @Nonnull final JDefinedClass aClass,
+                           @Nonnull final String sRenderedSource) throws IOException
+  {
+    // The size is known exactly for ASCII sources
+    src.setSizeHint (sRenderedSource.length ());
+    try (final SourcePrintWriter aWriter = src.openSource (this, aClass.name () + ".java"))
+    {
+      aWriter.print (sRenderedSource);
+    }
+  }
+
+  void buildPackageInfoAndResources (@Nonnull final AbstractCodeWriter src,
+                                     @Nonnull final AbstractCodeWriter res) throws IOException
+  {
     // write package annotations
     if (m_aAnnotations != null || m_aJavaDoc != null)
     {
       try (final JFormatter f = _createJavaSourceFileWriter (src, "package-info"))
       {
+        f.setCompact (m_aOwner.isBuildingCompactSources ());
         if (m_aJavaDoc != null)
           f.generable (m_aJavaDoc);
 
@@ -590,12 +764,26 @@ public class JPackage implements
     }
 
     // write resources
+    final IJBuildListener aListener = m_aOwner.getBuildListener ();
     for (final AbstractJResourceFile rsrc : m_aResources)
     {
       final AbstractCodeWriter cw = rsrc.isResource () ? res : src;
-      try (final OutputStream os = new BufferedOutputStream (cw.openBinary (this, rsrc.name ())))
+      if (aListener == null)
       {
-        rsrc.build (os);
+        try (final OutputStream os = new BufferedOutputStream (cw.openBinary (this, rsrc.name ())))
+        {
+          rsrc.build (os);
+        }
+      }
+      else
+      {
+        final long nStartNanos = System.nanoTime ();
+        final CountingOutputStream aCOS = new CountingOutputStream (cw.openBinary (this, rsrc.name ()));
+        try (final OutputStream os = new BufferedOutputStream (aCOS))
+        {
+          rsrc.build (os);
+        }
+        aListener.onResourceWritten (this, rsrc.name (), aCOS.getByteCount (), System.nanoTime () - nStartNanos);
       }
     }
   }
@@ -605,7 +793,7 @@ public class JPackage implements
     // check classes
     for (final JDefinedClass c : m_aClasses.values ())
     {
-      if (c.isHidden ())
+      if (c.isHidden () || c.isEmitted ())
       {
         // don't check this file
         continue;
@@ -622,7 +810,7 @@ public class JPackage implements
     int ret = 0;
     for (final JDefinedClass c : m_aClasses.values ())
     {
-      if (c.isHidden ())
+      if (c.isHidden () || c.isEmitted ())
       {
         // don't generate this file
         continue;
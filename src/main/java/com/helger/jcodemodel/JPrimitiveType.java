@@ -66,7 +66,7 @@ public class JPrimitiveType extends AbstractJType
    * for short.
    */
   private final AbstractJClass m_aWrapperClass;
-  private JArrayClass m_aArrayClass;
+  private volatile JArrayClass m_aArrayClass;
   private boolean m_bUseValueOf;
 
   protected JPrimitiveType (@Nonnull final JCodeModel aOwner,
@@ -110,9 +110,19 @@ public class JPrimitiveType extends AbstractJType
   @Nonnull
   public JArrayClass array ()
   {
-    if (m_aArrayClass == null)
-      m_aArrayClass = new JArrayClass (m_aOwner, this);
-    return m_aArrayClass;
+    // The primitive types are shared by all threads of a model
+    JArrayClass ret = m_aArrayClass;
+    if (ret == null)
+      synchronized (this)
+      {
+        ret = m_aArrayClass;
+        if (ret == null)
+        {
+          ret = new JArrayClass (m_aOwner, this);
+          m_aArrayClass = ret;
+        }
+      }
+    return ret;
   }
 
   /*
@@ -63,6 +63,11 @@ class JReferencedClass extends AbstractJClass implements IJDeclaration
 {
   private final Class <?> m_aClass;
 
+  // The lazily created derived values. The referenced class never changes.
+  private String m_sName;
+  private String m_sFullName;
+  private volatile JPackage m_aPackage;
+
   JReferencedClass (@Nonnull final JCodeModel aOwner, @Nonnull final Class <?> aClass)
   {
     super (aOwner);
@@ -73,14 +78,26 @@ class JReferencedClass extends AbstractJClass implements IJDeclaration
   @Override
   public String name ()
   {
-    return m_aClass.getSimpleName ();
+    String ret = m_sName;
+    if (ret == null)
+    {
+      ret = m_aClass.getSimpleName ();
+      m_sName = ret;
+    }
+    return ret;
   }
 
   @Override
   @Nonnull
   public String fullName ()
   {
-    return JCNameUtilities.getFullName (m_aClass);
+    String ret = m_sFullName;
+    if (ret == null)
+    {
+      ret = JCNameUtilities.getFullName (m_aClass);
+      m_sFullName = ret;
+    }
+    return ret;
   }
 
   @Override
@@ -101,6 +118,18 @@ class JReferencedClass extends AbstractJClass implements IJDeclaration
   @Override
   @Nonnull
   public JPackage _package ()
+  {
+    JPackage ret = m_aPackage;
+    if (ret == null)
+    {
+      ret = _resolvePackage ();
+      m_aPackage = ret;
+    }
+    return ret;
+  }
+
+  @Nonnull
+  private JPackage _resolvePackage ()
   {
     final String name = fullName ();
 
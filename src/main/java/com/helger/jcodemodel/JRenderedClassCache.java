@@ -0,0 +1,213 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A cache for the rendered source code of top-level classes. When the same
+ * {@link JCodeModel} is built more than once, every class that was not
+ * modified since it was last rendered is written from this cache without
+ * traversing it at all. A class is considered unmodified under the same
+ * conditions as described in {@link JImportPlanCache}, and if the newline
+ * string, the fully qualified names mode and the compact mode are unchanged.
+ * <br>
+ * Note: a few kinds of changes, e.g. of nested expressions, are not tracked
+ * automatically - see {@link JDefinedClass#markModified()}.
+ *
+ * @author Philip Helger
+ * @since 3.0.0
+ */
+@ThreadSafe
+public class JRenderedClassCache
+{
+  /**
+   * The rendered source code of a single class.
+   */
+  @Immutable
+  private static final class RenderedClass
+  {
+    private final JModificationStamps m_aStamps;
+    private final String m_sNewLine;
+    private final boolean m_bFullyQualifiedNames;
+    private final boolean m_bCompact;
+    private final String m_sSource;
+    private final boolean m_bContainsErrorTypes;
+
+    RenderedClass (@Nonnull final JModificationStamps aStamps,
+                   @Nonnull final String sNewLine,
+                   final boolean bFullyQualifiedNames,
+                   final boolean bCompact,
+                   @Nonnull final String sSource,
+                   final boolean bContainsErrorTypes)
+    {
+      m_aStamps = aStamps;
+      m_sNewLine = sNewLine;
+      m_bFullyQualifiedNames = bFullyQualifiedNames;
+      m_bCompact = bCompact;
+      m_sSource = sSource;
+      m_bContainsErrorTypes = bContainsErrorTypes;
+    }
+  }
+
+  private final Map <JDefinedClass, RenderedClass> m_aRenderedClasses = new ConcurrentHashMap <> ();
+  private final AtomicLong m_aHitCount = new AtomicLong ();
+  private final AtomicLong m_aMissCount = new AtomicLong ();
+
+  public JRenderedClassCache ()
+  {}
+
+  /**
+   * Get the rendered source code of the provided class if it is still up to
+   * date.
+   *
+   * @param aClass
+   *        The top-level class to be written.
+   * @param sNewLine
+   *        The newline string to be used.
+   * @param bFullyQualifiedNames
+   *        The fully qualified names mode to be used.
+   * @param bCompact
+   *        The compact mode to be used.
+   * @return <code>null</code> if the class needs to be rendered.
+   */
+  @Nullable
+  String getUpToDateSource (@Nonnull final JDefinedClass aClass,
+                            @Nonnull final String sNewLine,
+                            final boolean bFullyQualifiedNames,
+                            final boolean bCompact)
+  {
+    final RenderedClass aRendered = m_aRenderedClasses.get (aClass);
+    if (aRendered != null &&
+        aRendered.m_bFullyQualifiedNames == bFullyQualifiedNames &&
+        aRendered.m_bCompact == bCompact &&
+        aRendered.m_sNewLine.equals (sNewLine) &&
+        aRendered.m_aStamps.isUpToDate (aClass))
+    {
+      m_aHitCount.incrementAndGet ();
+      if (aRendered.m_bContainsErrorTypes)
+        aClass.owner ().onErrorTypeRefBuilt ();
+      return aRendered.m_sSource;
+    }
+    m_aMissCount.incrementAndGet ();
+    return null;
+  }
+
+  void putSource (@Nonnull final JDefinedClass aClass,
+                  @Nonnull final JModificationStamps aStamps,
+                  @Nonnull final String sNewLine,
+                  final boolean bFullyQualifiedNames,
+                  final boolean bCompact,
+                  @Nonnull final String sSource,
+                  final boolean bContainsErrorTypes)
+  {
+    m_aRenderedClasses.put (aClass,
+                            new RenderedClass (aStamps,
+                                               sNewLine,
+                                               bFullyQualifiedNames,
+                                               bCompact,
+                                               sSource,
+                                               bContainsErrorTypes));
+  }
+
+  /**
+   * Remove the rendered source code of a single class.
+   *
+   * @param aClass
+   *        The class to remove. May be <code>null</code>.
+   */
+  public void remove (@Nullable final JDefinedClass aClass)
+  {
+    if (aClass != null)
+      m_aRenderedClasses.remove (aClass);
+  }
+
+  /**
+   * Remove all rendered source codes and reset the statistics.
+   */
+  public void clear ()
+  {
+    m_aRenderedClasses.clear ();
+    m_aHitCount.set (0);
+    m_aMissCount.set (0);
+  }
+
+  /**
+   * @return The number of cached classes.
+   */
+  @Nonnegative
+  public int size ()
+  {
+    return m_aRenderedClasses.size ();
+  }
+
+  /**
+   * @return The number of classes that were written from the cache.
+   */
+  @Nonnegative
+  public long getHitCount ()
+  {
+    return m_aHitCount.get ();
+  }
+
+  /**
+   * @return The number of classes that needed to be rendered.
+   */
+  @Nonnegative
+  public long getMissCount ()
+  {
+    return m_aMissCount.get ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return "JRenderedClassCache[classes=" + size () + "; hits=" + getHitCount () + "; misses=" + getMissCount () + "]";
+  }
+}
@@ -92,6 +92,9 @@ public class JSingleLineCommentStatement implements IJStatement
 
   public void state (@Nonnull final JFormatter f)
   {
+    if (f.isCompact ())
+      return;
+
     if (m_sComment.length () > 0)
       f.print ("// ").print (m_sComment).newline ();
     else
@@ -45,6 +45,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Switch statement
@@ -66,6 +67,11 @@ public class JSwitch implements IJStatement
    */
   private JCase m_aDefaultCase;
 
+  /**
+   * The class containing this statement. May be <code>null</code>.
+   */
+  private JDefinedClass m_aOwningClass;
+
   /**
    * Construct a switch statement
    *
@@ -77,6 +83,26 @@ public class JSwitch implements IJStatement
     m_aTestExpr = aTestExpr;
   }
 
+  /**
+   * @param aOwningClass
+   *        The class containing this statement. May be <code>null</code>.
+   * @see JBlock#setOwningClass(JDefinedClass)
+   */
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    m_aOwningClass = aOwningClass;
+    for (final JCase aCase : m_aCases)
+      aCase.setOwningClass (aOwningClass);
+    if (m_aDefaultCase != null)
+      m_aDefaultCase.setOwningClass (aOwningClass);
+  }
+
+  private void _markModified ()
+  {
+    if (m_aOwningClass != null)
+      m_aOwningClass.markModified ();
+  }
+
   @Nonnull
   public IJExpression test ()
   {
@@ -93,7 +119,9 @@ public class JSwitch implements IJStatement
   public JCase _case (@Nonnull final IJExpression label)
   {
     final JCase c = new JCase (label);
+    c.setOwningClass (m_aOwningClass);
     m_aCases.add (c);
+    _markModified ();
     return c;
   }
 
@@ -104,6 +132,8 @@ public class JSwitch implements IJStatement
     {
       // default cases statements don't have a label
       m_aDefaultCase = new JCase (null, true);
+      m_aDefaultCase.setOwningClass (m_aOwningClass);
+      _markModified ();
     }
     return m_aDefaultCase;
   }
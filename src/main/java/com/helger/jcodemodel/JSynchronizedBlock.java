@@ -41,6 +41,7 @@
 package com.helger.jcodemodel;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Synchronized block within a method statement
@@ -53,16 +54,40 @@ public class JSynchronizedBlock implements IJStatement
   private IJExpression m_aExpression;
   private JBlock m_aBody;
 
+  /**
+   * The class containing this statement. May be <code>null</code>.
+   */
+  private JDefinedClass m_aOwningClass;
+
   protected JSynchronizedBlock (@Nonnull final IJExpression aExpression)
   {
     expr (aExpression);
   }
 
+  /**
+   * @param aOwningClass
+   *        The class containing this statement. May be <code>null</code>.
+   * @see JBlock#setOwningClass(JDefinedClass)
+   */
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    m_aOwningClass = aOwningClass;
+    if (m_aBody != null)
+      m_aBody.setOwningClass (aOwningClass);
+  }
+
+  private void _markModified ()
+  {
+    if (m_aOwningClass != null)
+      m_aOwningClass.markModified ();
+  }
+
   public void expr (@Nonnull final IJExpression aExpression)
   {
     if (aExpression == null)
       throw new NullPointerException ("expression");
     m_aExpression = aExpression;
+    _markModified ();
   }
 
   @Nonnull
@@ -75,7 +100,11 @@ public class JSynchronizedBlock implements IJStatement
   public JBlock body ()
   {
     if (m_aBody == null)
+    {
       m_aBody = new JBlock ();
+      m_aBody.setOwningClass (m_aOwningClass);
+      _markModified ();
+    }
     return m_aBody;
   }
 
@@ -45,6 +45,7 @@ import java.util.Collections;
 import java.util.List;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Try statement with Catch and/or Finally clause
@@ -55,9 +56,35 @@ public class JTryBlock implements IJStatement
   private final List <JCatchBlock> _catches = new ArrayList <> ();
   private JBlock _finally;
 
+  /**
+   * The class containing this statement. May be <code>null</code>.
+   */
+  private JDefinedClass m_aOwningClass;
+
   protected JTryBlock ()
   {}
 
+  /**
+   * @param aOwningClass
+   *        The class containing this statement. May be <code>null</code>.
+   * @see JBlock#setOwningClass(JDefinedClass)
+   */
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    m_aOwningClass = aOwningClass;
+    _body.setOwningClass (aOwningClass);
+    for (final JCatchBlock aCatch : _catches)
+      aCatch.setOwningClass (aOwningClass);
+    if (_finally != null)
+      _finally.setOwningClass (aOwningClass);
+  }
+
+  private void _markModified ()
+  {
+    if (m_aOwningClass != null)
+      m_aOwningClass.markModified ();
+  }
+
   @Nonnull
   public JBlock body ()
   {
@@ -68,7 +95,9 @@ public class JTryBlock implements IJStatement
   public JCatchBlock _catch (@Nonnull final AbstractJClass exception)
   {
     final JCatchBlock cb = new JCatchBlock (exception);
+    cb.setOwningClass (m_aOwningClass);
     _catches.add (cb);
+    _markModified ();
     return cb;
   }
 
@@ -82,7 +111,11 @@ public class JTryBlock implements IJStatement
   public JBlock _finally ()
   {
     if (_finally == null)
+    {
       _finally = new JBlock ();
+      _finally.setOwningClass (m_aOwningClass);
+      _markModified ();
+    }
     return _finally;
   }
 
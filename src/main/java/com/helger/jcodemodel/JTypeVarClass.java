@@ -91,6 +91,13 @@ public class JTypeVarClass extends JTypeVar
     return m_aClass.fullName ();
   }
 
+  @Override
+  boolean hasFixedName ()
+  {
+    // The name depends on the type parameters of a defined class
+    return false;
+  }
+
   @Override
   @Nullable
   public JPackage _package ()
@@ -130,6 +130,12 @@ public class JTypeWildcard extends AbstractJClass
     return m_eBoundMode.declarationTokens () + m_aBoundClass.fullName ();
   }
 
+  @Override
+  boolean hasFixedName ()
+  {
+    return m_aBoundClass.hasFixedName ();
+  }
+
   @Override
   @Nullable
   public JPackage _package ()
@@ -185,7 +191,7 @@ public class JTypeWildcard extends AbstractJClass
     final AbstractJClass nb = m_aBoundClass.substituteParams (aVariables, aBindings);
     if (nb == m_aBoundClass)
       return this;
-    return new JTypeWildcard (nb, EBoundMode.EXTENDS);
+    return nb.wildcard (EBoundMode.EXTENDS);
   }
 
   @Override
@@ -84,6 +84,12 @@ public class JVar extends AbstractJExpressionAssignmentTargetImpl implements IJD
    */
   private List <JAnnotationUse> m_aAnnotations;
 
+  /**
+   * The class containing the declaration of this variable. May be
+   * <code>null</code>.
+   */
+  private JDefinedClass m_aOwningClass;
+
   /**
    * JVar constructor
    *
@@ -109,6 +115,29 @@ public class JVar extends AbstractJExpressionAssignmentTargetImpl implements IJD
     m_aInitExpr = aInitExpr;
   }
 
+  /**
+   * @param aOwningClass
+   *        The class containing the declaration of this variable. It is marked
+   *        as modified whenever the declaration changes. May be
+   *        <code>null</code>.
+   * @see JDefinedClass#markModified()
+   */
+  void setOwningClass (@Nullable final JDefinedClass aOwningClass)
+  {
+    m_aOwningClass = aOwningClass;
+    m_aMods.setOwningClass (aOwningClass);
+    JBlock.setOwningClass (m_aInitExpr, aOwningClass);
+    if (m_aAnnotations != null)
+      for (final JAnnotationUse aAnnotation : m_aAnnotations)
+        aAnnotation.setOwningClass (aOwningClass);
+  }
+
+  private void _markModified ()
+  {
+    if (m_aOwningClass != null)
+      m_aOwningClass.markModified ();
+  }
+
   /**
    * Initialize this variable
    *
@@ -120,6 +149,8 @@ public class JVar extends AbstractJExpressionAssignmentTargetImpl implements IJD
   public JVar init (@Nullable final IJExpression aInitExpr)
   {
     m_aInitExpr = aInitExpr;
+    JBlock.setOwningClass (aInitExpr, m_aOwningClass);
+    _markModified ();
     return this;
   }
 
@@ -154,6 +185,7 @@ public class JVar extends AbstractJExpressionAssignmentTargetImpl implements IJD
     if (!JJavaName.isJavaIdentifier (sName))
       throw new IllegalArgumentException ("Illegal variable name '" + sName + "'");
     m_sName = sName;
+    _markModified ();
   }
 
   /**
@@ -190,6 +222,7 @@ public class JVar extends AbstractJExpressionAssignmentTargetImpl implements IJD
     JCValueEnforcer.notNull (aNewType, "NewType");
     final AbstractJType aOldType = m_aType;
     m_aType = aNewType;
+    _markModified ();
     return aOldType;
   }
 
@@ -206,7 +239,9 @@ public class JVar extends AbstractJExpressionAssignmentTargetImpl implements IJD
     if (m_aAnnotations == null)
       m_aAnnotations = new ArrayList <> ();
     final JAnnotationUse a = new JAnnotationUse (clazz);
+    a.setOwningClass (m_aOwningClass);
     m_aAnnotations.add (a);
+    _markModified ();
     return a;
   }
 
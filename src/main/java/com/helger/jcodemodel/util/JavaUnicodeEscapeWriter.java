@@ -0,0 +1,233 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.util;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * {@link Writer} that escapes all characters that are either control
+ * characters or that cannot be encoded in the target charset into Java Unicode
+ * escapes \\uXXXX. In contrast to {@link UnicodeEscapeWriter} this class scans
+ * the input for runs of characters that don't need escaping and forwards them
+ * as a whole to the underlying writer.
+ * <p>
+ * Whether a non-ASCII character can be encoded is determined only once per
+ * charset and character and cached for all instances.
+ *
+ * @author Philip Helger
+ * @since 3.0.0
+ */
+public class JavaUnicodeEscapeWriter extends FilterWriter
+{
+  private static final byte UNKNOWN = 0;
+  private static final byte ENCODABLE = 1;
+  private static final byte NOT_ENCODABLE = 2;
+
+  /** Escape flag for all ASCII characters */
+  private static final boolean [] ASCII_ESCAPE = new boolean [0x80];
+
+  static
+  {
+    for (int i = 0; i < 0x20; i++)
+      if (i != '\t' && i != '\r' && i != '\n')
+        ASCII_ESCAPE[i] = true;
+  }
+
+  private static final char [] HEX = "0123456789abcdef".toCharArray ();
+
+  /**
+   * Per charset encodability state of all chars. Concurrent updates are
+   * harmless, as all writers come to the same result for the same char.
+   */
+  private static final Map <Charset, byte []> ENCODABLE_TABLES = new ConcurrentHashMap <> ();
+
+  private final Charset m_aCharset;
+  private final byte [] m_aEncodable;
+  private final char [] m_aEscapeBuf = new char [] { '\\', 'u', '0', '0', '0', '0' };
+  private CharsetEncoder m_aEncoder;
+  private long m_nEscapedChars = 0;
+
+  /**
+   * Constructor
+   *
+   * @param aNext
+   *        The writer to write to. May not be <code>null</code>.
+   * @param aCharset
+   *        The charset the underlying writer is using. Characters that cannot
+   *        be encoded with this charset are escaped. May not be
+   *        <code>null</code>.
+   */
+  public JavaUnicodeEscapeWriter (@Nonnull final Writer aNext, @Nonnull final Charset aCharset)
+  {
+    super (aNext);
+    JCValueEnforcer.notNull (aCharset, "Charset");
+    m_aCharset = aCharset;
+    m_aEncodable = ENCODABLE_TABLES.computeIfAbsent (aCharset, k -> new byte [Character.MAX_VALUE + 1]);
+  }
+
+  @Nonnull
+  public final Charset getCharset ()
+  {
+    return m_aCharset;
+  }
+
+  private boolean _isNonAsciiEncodable (final char ch)
+  {
+    byte nState = m_aEncodable[ch];
+    if (nState == UNKNOWN)
+    {
+      if (m_aEncoder == null)
+        m_aEncoder = m_aCharset.newEncoder ();
+      nState = m_aEncoder.canEncode (ch) ? ENCODABLE : NOT_ENCODABLE;
+      m_aEncodable[ch] = nState;
+    }
+    return nState == ENCODABLE;
+  }
+
+  /**
+   * @param ch
+   *        Character to check
+   * @return <code>true</code> if the character needs to be escaped.
+   */
+  protected final boolean requireEscaping (final char ch)
+  {
+    if (ch < 0x80)
+      return ASCII_ESCAPE[ch];
+    return !_isNonAsciiEncodable (ch);
+  }
+
+  /**
+   * @return The number of chars that were written as Java Unicode escapes so
+   *         far.
+   */
+  @Nonnegative
+  public final long getEscapedCharCount ()
+  {
+    return m_nEscapedChars;
+  }
+
+  private void _writeEscaped (final char ch) throws IOException
+  {
+    m_nEscapedChars++;
+    m_aEscapeBuf[2] = HEX[(ch >> 12) & 0xf];
+    m_aEscapeBuf[3] = HEX[(ch >> 8) & 0xf];
+    m_aEscapeBuf[4] = HEX[(ch >> 4) & 0xf];
+    m_aEscapeBuf[5] = HEX[ch & 0xf];
+    out.write (m_aEscapeBuf, 0, m_aEscapeBuf.length);
+  }
+
+  @Override
+  public final void write (final int ch) throws IOException
+  {
+    final char c = (char) ch;
+    if (requireEscaping (c))
+      _writeEscaped (c);
+    else
+      out.write (c);
+  }
+
+  @Override
+  public final void write (@Nonnull final char [] buf,
+                           @Nonnegative final int off,
+                           @Nonnegative final int len) throws IOException
+  {
+    final int nEnd = off + len;
+    int nRunStart = off;
+    for (int i = off; i < nEnd; i++)
+    {
+      final char c = buf[i];
+      if (requireEscaping (c))
+      {
+        // Flush all safe chars at once
+        if (i > nRunStart)
+          out.write (buf, nRunStart, i - nRunStart);
+        _writeEscaped (c);
+        nRunStart = i + 1;
+      }
+    }
+    if (nEnd > nRunStart)
+      out.write (buf, nRunStart, nEnd - nRunStart);
+  }
+
+  @Override
+  public final void write (@Nonnull final char [] buf) throws IOException
+  {
+    write (buf, 0, buf.length);
+  }
+
+  @Override
+  public final void write (@Nonnull final String buf,
+                           @Nonnegative final int off,
+                           @Nonnegative final int len) throws IOException
+  {
+    final int nEnd = off + len;
+    int nRunStart = off;
+    for (int i = off; i < nEnd; i++)
+    {
+      final char c = buf.charAt (i);
+      if (requireEscaping (c))
+      {
+        // Flush all safe chars at once
+        if (i > nRunStart)
+          out.write (buf, nRunStart, i - nRunStart);
+        _writeEscaped (c);
+        nRunStart = i + 1;
+      }
+    }
+    if (nEnd > nRunStart)
+      out.write (buf, nRunStart, nEnd - nRunStart);
+  }
+
+  @Override
+  public final void write (@Nonnull final String buf) throws IOException
+  {
+    write (buf, 0, buf.length ());
+  }
+}
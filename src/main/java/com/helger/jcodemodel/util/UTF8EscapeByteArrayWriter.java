@@ -0,0 +1,271 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * {@link Writer} that encodes all characters directly as UTF-8 into an
+ * internal, growing byte array. Control characters and surrogate characters
+ * are written as Java Unicode escapes \\uXXXX, which is the same output as
+ * created by a {@link JavaUnicodeEscapeWriter} on top of a UTF-8
+ * {@link java.io.OutputStreamWriter}.
+ * <p>
+ * The byte array can be reused after {@link #reset()}.
+ *
+ * @author Philip Helger
+ * @since 3.0.0
+ */
+@NotThreadSafe
+public class UTF8EscapeByteArrayWriter extends Writer
+{
+  public static final int DEFAULT_INITIAL_CAPACITY = 8 * 1024;
+
+  /** Escape flag for all ASCII characters */
+  private static final boolean [] ASCII_ESCAPE = new boolean [0x80];
+
+  static
+  {
+    for (int i = 0; i < 0x20; i++)
+      if (i != '\t' && i != '\r' && i != '\n')
+        ASCII_ESCAPE[i] = true;
+  }
+
+  private static final byte [] HEX = "0123456789abcdef".getBytes ();
+
+  private byte [] m_aBuf;
+  private int m_nLen;
+  private int m_nEscapedChars;
+
+  public UTF8EscapeByteArrayWriter ()
+  {
+    this (DEFAULT_INITIAL_CAPACITY);
+  }
+
+  public UTF8EscapeByteArrayWriter (@Nonnegative final int nInitialCapacity)
+  {
+    this (new byte [nInitialCapacity]);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aBuf
+   *        The initial buffer to be used. May not be <code>null</code>. If the
+   *        buffer is too small, a new buffer is allocated.
+   */
+  public UTF8EscapeByteArrayWriter (@Nonnull final byte [] aBuf)
+  {
+    JCValueEnforcer.notNull (aBuf, "Buffer");
+    m_aBuf = aBuf;
+  }
+
+  private void _ensureCapacity (final int nMinCapacity)
+  {
+    if (nMinCapacity > m_aBuf.length)
+      m_aBuf = Arrays.copyOf (m_aBuf, Math.max (nMinCapacity, m_aBuf.length << 1));
+  }
+
+  private void _writeEscaped (final char c)
+  {
+    m_nEscapedChars++;
+    final byte [] aBuf = m_aBuf;
+    int n = m_nLen;
+    aBuf[n++] = '\\';
+    aBuf[n++] = 'u';
+    aBuf[n++] = HEX[(c >> 12) & 0xf];
+    aBuf[n++] = HEX[(c >> 8) & 0xf];
+    aBuf[n++] = HEX[(c >> 4) & 0xf];
+    aBuf[n++] = HEX[c & 0xf];
+    m_nLen = n;
+  }
+
+  private void _write (final char c)
+  {
+    // Max 6 bytes per char (escape sequence)
+    if (m_nLen + 6 > m_aBuf.length)
+      _ensureCapacity (m_nLen + 6);
+
+    if (c < 0x80)
+    {
+      if (ASCII_ESCAPE[c])
+        _writeEscaped (c);
+      else
+        m_aBuf[m_nLen++] = (byte) c;
+    }
+    else
+      if (c < 0x800)
+      {
+        m_aBuf[m_nLen++] = (byte) (0xc0 | (c >> 6));
+        m_aBuf[m_nLen++] = (byte) (0x80 | (c & 0x3f));
+      }
+      else
+        if (Character.isSurrogate (c))
+        {
+          // Single surrogates cannot be encoded
+          _writeEscaped (c);
+        }
+        else
+        {
+          m_aBuf[m_nLen++] = (byte) (0xe0 | (c >> 12));
+          m_aBuf[m_nLen++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+          m_aBuf[m_nLen++] = (byte) (0x80 | (c & 0x3f));
+        }
+  }
+
+  @Override
+  public void write (final int c)
+  {
+    _write ((char) c);
+  }
+
+  @Override
+  public void write (@Nonnull final char [] cbuf, @Nonnegative final int off, @Nonnegative final int len)
+  {
+    // Assume mostly ASCII
+    _ensureCapacity (m_nLen + len);
+    final int nEnd = off + len;
+    int i = off;
+    while (i < nEnd)
+    {
+      // ASCII fast path
+      final byte [] aBuf = m_aBuf;
+      int n = m_nLen;
+      final int nAsciiEnd = Math.min (nEnd, i + aBuf.length - n);
+      char c;
+      while (i < nAsciiEnd && (c = cbuf[i]) < 0x80 && !ASCII_ESCAPE[c])
+      {
+        aBuf[n++] = (byte) c;
+        i++;
+      }
+      m_nLen = n;
+
+      if (i < nEnd)
+        _write (cbuf[i++]);
+    }
+  }
+
+  @Override
+  public void write (@Nonnull final String str, @Nonnegative final int off, @Nonnegative final int len)
+  {
+    // Assume mostly ASCII
+    _ensureCapacity (m_nLen + len);
+    final int nEnd = off + len;
+    int i = off;
+    while (i < nEnd)
+    {
+      // ASCII fast path
+      final byte [] aBuf = m_aBuf;
+      int n = m_nLen;
+      final int nAsciiEnd = Math.min (nEnd, i + aBuf.length - n);
+      char c;
+      while (i < nAsciiEnd && (c = str.charAt (i)) < 0x80 && !ASCII_ESCAPE[c])
+      {
+        aBuf[n++] = (byte) c;
+        i++;
+      }
+      m_nLen = n;
+
+      if (i < nEnd)
+        _write (str.charAt (i++));
+    }
+  }
+
+  @Override
+  public void flush ()
+  {}
+
+  @Override
+  public void close () throws IOException
+  {}
+
+  /**
+   * @return The internal buffer. Only the first {@link #size()} bytes are
+   *         valid. Never <code>null</code>.
+   */
+  @Nonnull
+  public byte [] directGetBuffer ()
+  {
+    return m_aBuf;
+  }
+
+  /**
+   * @return The number of bytes written.
+   */
+  @Nonnegative
+  public int size ()
+  {
+    return m_nLen;
+  }
+
+  /**
+   * @return The number of chars that were written as Java Unicode escapes.
+   */
+  @Nonnegative
+  public int getEscapedCharCount ()
+  {
+    return m_nEscapedChars;
+  }
+
+  /**
+   * @return A copy of all bytes written. Never <code>null</code>.
+   */
+  @Nonnull
+  public byte [] toByteArray ()
+  {
+    return Arrays.copyOf (m_aBuf, m_nLen);
+  }
+
+  /**
+   * Discard all written bytes but keep the buffer.
+   */
+  public void reset ()
+  {
+    m_nLen = 0;
+    m_nEscapedChars = 0;
+  }
+}
@@ -0,0 +1,304 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.helger.jcodemodel.AbstractCodeWriter;
+import com.helger.jcodemodel.JPackage;
+import com.helger.jcodemodel.util.JCValueEnforcer;
+
+/**
+ * An {@link AbstractCodeWriter} that decouples the creation of the files from
+ * writing them. The complete content of each file is collected in memory and
+ * handed to a single background thread via a bounded queue. That thread passes
+ * the files to the core writer in the order in which they were opened, so the
+ * result is identical to using the core writer directly. This hides the
+ * latency of slow file systems (e.g. network drives) behind the formatting of
+ * the next classes.
+ * <p>
+ * Source files are encoded by this writer, so only
+ * {@link AbstractCodeWriter#openBinary(JPackage, String)} and
+ * {@link AbstractCodeWriter#close()} of the core writer are called - both only
+ * from the background thread. Errors of the core writer are reported by the
+ * next file that is stored, at the latest by {@link #close()}. After an error
+ * no further files are passed to the core writer.
+ *
+ * @author Philip Helger
+ * @since 3.0.0
+ */
+public class AsyncCodeWriter extends AbstractCodeWriter
+{
+  /**
+   * The maximum number of files that are waiting to be written by default.
+   */
+  public static final int DEFAULT_MAX_PENDING_FILES = 64;
+
+  /** A completely created file, ready to be written. */
+  private static final class PendingFile
+  {
+    private final JPackage m_aPackage;
+    private final String m_sFilename;
+    private final byte [] m_aData;
+    private final int m_nLength;
+
+    PendingFile (@Nullable final JPackage aPackage,
+                 @Nullable final String sFilename,
+                 @Nullable final byte [] aData,
+                 final int nLength)
+    {
+      m_aPackage = aPackage;
+      m_sFilename = sFilename;
+      m_aData = aData;
+      m_nLength = nLength;
+    }
+  }
+
+  /** Marks the end of the queue */
+  private static final PendingFile END = new PendingFile (null, null, null, 0);
+
+  private final AbstractCodeWriter m_aCore;
+  private final BlockingQueue <PendingFile> m_aQueue;
+  private Thread m_aWriterThread;
+  private volatile Throwable m_aError;
+  private boolean m_bClosed = false;
+
+  /**
+   * @param aCore
+   *        The code writer that writes the files. Encoding and new line are
+   *        taken from it.
+   */
+  public AsyncCodeWriter (@Nonnull final AbstractCodeWriter aCore)
+  {
+    this (aCore, DEFAULT_MAX_PENDING_FILES);
+  }
+
+  /**
+   * @param aCore
+   *        The code writer that writes the files. Encoding and new line are
+   *        taken from it.
+   * @param nMaxPendingFiles
+   *        The maximum number of files waiting to be written. If the queue is
+   *        full, storing the next file blocks until the background thread
+   *        caught up. Must be &gt; 0.
+   */
+  public AsyncCodeWriter (@Nonnull final AbstractCodeWriter aCore, @Nonnegative final int nMaxPendingFiles)
+  {
+    super (aCore.encoding (), aCore.getNewLine ());
+    JCValueEnforcer.isGT0 (nMaxPendingFiles, "MaxPendingFiles");
+    m_aCore = aCore;
+    m_aQueue = new ArrayBlockingQueue <> (nMaxPendingFiles);
+  }
+
+  @Nonnull
+  protected AbstractCodeWriter core ()
+  {
+    return m_aCore;
+  }
+
+  private void _writeLoop ()
+  {
+    try
+    {
+      PendingFile aFile;
+      while ((aFile = m_aQueue.take ()) != END)
+      {
+        // Keep draining after an error, so that the producer never blocks
+        if (m_aError == null)
+          try
+          {
+            m_aCore.setSizeHint (aFile.m_nLength);
+            try (final OutputStream aOS = m_aCore.openBinary (aFile.m_aPackage, aFile.m_sFilename))
+            {
+              aOS.write (aFile.m_aData, 0, aFile.m_nLength);
+            }
+          }
+          catch (final IOException | RuntimeException | Error ex)
+          {
+            m_aError = ex;
+          }
+      }
+    }
+    catch (final InterruptedException ex)
+    {
+      m_aError = new InterruptedIOException ("Interrupted while writing files");
+    }
+  }
+
+  private void _checkError () throws IOException
+  {
+    final Throwable aError = m_aError;
+    if (aError != null)
+    {
+      if (aError instanceof IOException)
+        throw (IOException) aError;
+      if (aError instanceof RuntimeException)
+        throw (RuntimeException) aError;
+      if (aError instanceof Error)
+        throw (Error) aError;
+      throw new IOException ("Failed to write file", aError);
+    }
+  }
+
+  private void _enqueue (@Nonnull final PendingFile aFile) throws IOException
+  {
+    try
+    {
+      m_aQueue.put (aFile);
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      throw new InterruptedIOException ("Interrupted while waiting for the file writer");
+    }
+  }
+
+  @Override
+  @Nonnull
+  public OutputStream openBinary (@Nonnull final JPackage pkg, @Nonnull final String fileName) throws IOException
+  {
+    if (m_bClosed)
+      throw new IllegalStateException ("The writer is already closed");
+    _checkError ();
+
+    if (m_aWriterThread == null)
+    {
+      m_aWriterThread = new Thread (this::_writeLoop, "jcodemodel-async-writer");
+      m_aWriterThread.setDaemon (true);
+      m_aWriterThread.start ();
+    }
+
+    return new ByteArrayOutputStream (Math.max (32, getSizeHint ()))
+    {
+      private boolean m_bFileClosed = false;
+
+      @Override
+      public void close () throws IOException
+      {
+        if (!m_bFileClosed)
+        {
+          m_bFileClosed = true;
+          // The buffer is handed over without copying
+          _enqueue (new PendingFile (pkg, fileName, buf, count));
+          _checkError ();
+        }
+      }
+    };
+  }
+
+  private static void _joinUninterruptibly (@Nonnull final Thread aThread)
+  {
+    while (true)
+      try
+      {
+        aThread.join ();
+        return;
+      }
+      catch (final InterruptedException ex)
+      {
+        // Keep waiting - the caller restores the interrupted state
+      }
+  }
+
+  /**
+   * Wait until all pending files are written and close the core writer. If the
+   * calling thread is interrupted, the pending files are discarded, but the
+   * core writer is only closed after the background thread finished.
+   *
+   * @throws IOException
+   *         If writing one of the files or closing the core writer failed or
+   *         if the calling thread was interrupted.
+   */
+  @Override
+  public void close () throws IOException
+  {
+    if (m_bClosed)
+      return;
+    m_bClosed = true;
+
+    boolean bInterrupted = false;
+    try
+    {
+      if (m_aWriterThread != null)
+        try
+        {
+          m_aQueue.put (END);
+          m_aWriterThread.join ();
+        }
+        catch (final InterruptedException ex)
+        {
+          bInterrupted = true;
+          // Discard the pending files and stop the writer. The END marker is
+          // needed too, in case the core writer swallows the interrupt. There
+          // is room for it, as this is the only producer.
+          m_aQueue.clear ();
+          m_aQueue.offer (END);
+          m_aWriterThread.interrupt ();
+          // Wait until the writer no longer uses the core writer
+          _joinUninterruptibly (m_aWriterThread);
+        }
+    }
+    finally
+    {
+      try
+      {
+        m_aCore.close ();
+      }
+      finally
+      {
+        if (bInterrupted)
+          Thread.currentThread ().interrupt ();
+      }
+    }
+    if (bInterrupted)
+      throw new InterruptedIOException ("Interrupted while waiting for the file writer");
+    _checkError ();
+  }
+}
@@ -121,8 +121,36 @@ public class FileCodeWriter extends AbstractCodeWriter
     return new FileOutputStream (getFile (pkg, fileName));
   }
 
+  /**
+   * @return The target directory as provided in the constructor. Never
+   *         <code>null</code>.
+   */
   @Nonnull
-  protected File getFile (@Nonnull final JPackage pkg, @Nonnull final String fileName) throws IOException
+  public final File getTargetDir ()
+  {
+    return m_aTargetDir;
+  }
+
+  /**
+   * @return <code>true</code> if the created files should be marked read-only
+   */
+  public final boolean isMarkReadOnly ()
+  {
+    return m_bMarkReadOnly;
+  }
+
+  /**
+   * Get the file for the provided package and file name. The parent directory
+   * is created if necessary but an existing file is left untouched.
+   *
+   * @param pkg
+   *        The package of the file
+   * @param fileName
+   *        The local file name
+   * @return The file object. Never <code>null</code>.
+   */
+  @Nonnull
+  protected File getTargetFile (@Nonnull final JPackage pkg, @Nonnull final String fileName)
   {
     File dir;
     if (pkg.isUnnamed ())
@@ -133,7 +161,26 @@ public class FileCodeWriter extends AbstractCodeWriter
     if (!dir.exists ())
       dir.mkdirs ();
 
-    final File fn = new File (dir, fileName);
+    return new File (dir, fileName);
+  }
+
+  /**
+   * Remember the provided file to be marked read-only in {@link #close()}, if
+   * read-only marking is enabled.
+   *
+   * @param aFile
+   *        The file to be marked.
+   */
+  protected void markReadOnly (@Nonnull final File aFile)
+  {
+    if (m_bMarkReadOnly)
+      m_aReadOnlyFiles.add (aFile);
+  }
+
+  @Nonnull
+  protected File getFile (@Nonnull final JPackage pkg, @Nonnull final String fileName) throws IOException
+  {
+    final File fn = getTargetFile (pkg, fileName);
 
     if (fn.exists ())
     {
@@ -141,8 +188,7 @@ public class FileCodeWriter extends AbstractCodeWriter
         throw new IOException (fn + ": Can't delete previous version");
     }
 
-    if (m_bMarkReadOnly)
-      m_aReadOnlyFiles.add (fn);
+    markReadOnly (fn);
     return fn;
   }
 
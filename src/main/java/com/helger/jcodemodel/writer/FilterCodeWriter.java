@@ -43,9 +43,12 @@ package com.helger.jcodemodel.writer;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.helger.jcodemodel.AbstractCodeWriter;
+import com.helger.jcodemodel.IJBuildListener;
 import com.helger.jcodemodel.JPackage;
 import com.helger.jcodemodel.SourcePrintWriter;
 
@@ -71,6 +74,26 @@ public class FilterCodeWriter extends AbstractCodeWriter
     return m_aCore;
   }
 
+  @Override
+  @Nonnull
+  public FilterCodeWriter setBuildListener (@Nullable final IJBuildListener aBuildListener)
+  {
+    // The source files are written by the core
+    super.setBuildListener (aBuildListener);
+    m_aCore.setBuildListener (aBuildListener);
+    return this;
+  }
+
+  @Override
+  @Nonnull
+  public FilterCodeWriter setSizeHint (@Nonnegative final int nSizeHint)
+  {
+    // The files are opened by the core
+    super.setSizeHint (nSizeHint);
+    m_aCore.setSizeHint (nSizeHint);
+    return this;
+  }
+
   @Override
   public OutputStream openBinary (@Nonnull final JPackage pkg, @Nonnull final String fileName) throws IOException
   {
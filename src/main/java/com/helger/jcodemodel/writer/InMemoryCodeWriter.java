@@ -0,0 +1,182 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+import com.helger.jcodemodel.AbstractCodeWriter;
+import com.helger.jcodemodel.JPackage;
+
+/**
+ * Keeps all the created files in memory as byte arrays, keyed by their path
+ * relative to the root package (like "<code>org/example/Foo.java</code>").
+ * The Java source files can be retrieved as {@link JavaFileObject}s for use
+ * with the <code>javax.tools</code> API.
+ *
+ * @author Philip Helger
+ * @since 3.0.0
+ * @see InMemoryJavaCompiler
+ */
+public class InMemoryCodeWriter extends AbstractCodeWriter
+{
+  private static final class InMemorySourceFile extends SimpleJavaFileObject
+  {
+    private final byte [] m_aBytes;
+    private final Charset m_aCharset;
+
+    InMemorySourceFile (@Nonnull final String sPath, @Nonnull final byte [] aBytes, @Nonnull final Charset aCharset)
+    {
+      super (URI.create ("string:///" + sPath), JavaFileObject.Kind.SOURCE);
+      m_aBytes = aBytes;
+      m_aCharset = aCharset;
+    }
+
+    @Override
+    public CharSequence getCharContent (final boolean bIgnoreEncodingErrors)
+    {
+      return new String (m_aBytes, m_aCharset);
+    }
+  }
+
+  public static final String JAVA_FILE_EXTENSION = ".java";
+
+  private final Map <String, byte []> m_aFiles = new LinkedHashMap <> ();
+
+  public InMemoryCodeWriter ()
+  {
+    this (null, getDefaultNewLine ());
+  }
+
+  public InMemoryCodeWriter (@Nullable final Charset encoding, @Nonnull final String sNewLine)
+  {
+    super (encoding, sNewLine);
+  }
+
+  @Nonnull
+  private static String _getPath (@Nonnull final JPackage pkg, @Nonnull final String fileName)
+  {
+    if (pkg.isUnnamed ())
+      return fileName;
+    return pkg.name ().replace ('.', '/') + '/' + fileName;
+  }
+
+  @Override
+  @Nonnull
+  public OutputStream openBinary (@Nonnull final JPackage pkg, @Nonnull final String fileName) throws IOException
+  {
+    final String sPath = _getPath (pkg, fileName);
+    return new ByteArrayOutputStream (Math.max (32, getSizeHint ()))
+    {
+      @Override
+      public void close ()
+      {
+        synchronized (m_aFiles)
+        {
+          m_aFiles.put (sPath, toByteArray ());
+        }
+      }
+    };
+  }
+
+  /**
+   * @return A copy of all files written so far, keyed by the relative path in
+   *         creation order. Never <code>null</code>.
+   */
+  @Nonnull
+  public Map <String, byte []> getAllFiles ()
+  {
+    synchronized (m_aFiles)
+    {
+      return Collections.unmodifiableMap (new LinkedHashMap <> (m_aFiles));
+    }
+  }
+
+  /**
+   * Get the content of a single file.
+   *
+   * @param sPath
+   *        Relative path like "<code>org/example/Foo.java</code>".
+   * @return <code>null</code> if no such file was written.
+   */
+  @Nullable
+  public byte [] getFile (@Nullable final String sPath)
+  {
+    synchronized (m_aFiles)
+    {
+      return m_aFiles.get (sPath);
+    }
+  }
+
+  /**
+   * @return All Java source files written so far as {@link JavaFileObject}s.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  public List <JavaFileObject> getAllJavaSourceFiles ()
+  {
+    final Charset aCharset = encoding () != null ? encoding () : Charset.defaultCharset ();
+    final List <JavaFileObject> ret = new ArrayList <> ();
+    for (final Map.Entry <String, byte []> aEntry : getAllFiles ().entrySet ())
+      if (aEntry.getKey ().endsWith (JAVA_FILE_EXTENSION))
+        ret.add (new InMemorySourceFile (aEntry.getKey (), aEntry.getValue (), aCharset));
+    return ret;
+  }
+
+  @Override
+  public void close ()
+  {
+    // Keep all files
+  }
+}
@@ -0,0 +1,346 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.util.JCValueEnforcer;
+
+/**
+ * Compiles a {@link JCodeModel} entirely in memory using the system
+ * {@link JavaCompiler} and makes the resulting classes available via a
+ * {@link ClassLoader}. No files are written to disk. The compiler uses the
+ * class path of the current JVM.
+ *
+ * @author Philip Helger
+ * @since 3.0.0
+ */
+public final class InMemoryJavaCompiler
+{
+  /**
+   * Exception thrown if the generated sources cannot be compiled.
+   */
+  @SuppressWarnings ("serial")
+  public static final class CompilationException extends Exception
+  {
+    public CompilationException (@Nonnull final String sMessage)
+    {
+      super (sMessage);
+    }
+  }
+
+  private static final class InMemoryClassFile extends SimpleJavaFileObject
+  {
+    private final ByteArrayOutputStream m_aBAOS = new ByteArrayOutputStream ();
+
+    InMemoryClassFile (@Nonnull final String sClassName)
+    {
+      super (URI.create ("bytes:///" + sClassName.replace ('.', '/') + JavaFileObject.Kind.CLASS.extension),
+             JavaFileObject.Kind.CLASS);
+    }
+
+    @Override
+    public OutputStream openOutputStream ()
+    {
+      return m_aBAOS;
+    }
+
+    @Nonnull
+    byte [] getBytes ()
+    {
+      return m_aBAOS.toByteArray ();
+    }
+  }
+
+  private static final class InMemoryFileManager extends ForwardingJavaFileManager <StandardJavaFileManager>
+  {
+    private final Map <String, InMemoryClassFile> m_aClassFiles = new HashMap <> ();
+
+    InMemoryFileManager (@Nonnull final StandardJavaFileManager aFileManager)
+    {
+      super (aFileManager);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput (final JavaFileManager.Location aLocation,
+                                                final String sClassName,
+                                                final JavaFileObject.Kind eKind,
+                                                final FileObject aSibling)
+    {
+      final InMemoryClassFile ret = new InMemoryClassFile (sClassName);
+      m_aClassFiles.put (sClassName, ret);
+      return ret;
+    }
+
+    @Nonnull
+    Map <String, byte []> getAllClassBytes ()
+    {
+      final Map <String, byte []> ret = new HashMap <> ();
+      for (final Map.Entry <String, InMemoryClassFile> aEntry : m_aClassFiles.entrySet ())
+        ret.put (aEntry.getKey (), aEntry.getValue ().getBytes ());
+      return ret;
+    }
+  }
+
+  /**
+   * Resolves the "<code>memory:</code>" URLs of {@link InMemoryClassLoader} to
+   * the in-memory resource bytes.
+   */
+  private static final class InMemoryURLStreamHandler extends URLStreamHandler
+  {
+    private final Map <String, byte []> m_aResources;
+
+    InMemoryURLStreamHandler (@Nonnull final Map <String, byte []> aResources)
+    {
+      m_aResources = aResources;
+    }
+
+    @Override
+    protected URLConnection openConnection (final URL aURL) throws IOException
+    {
+      final byte [] aBytes = m_aResources.get (aURL.getPath ().substring (1));
+      if (aBytes == null)
+        throw new IOException ("No in-memory resource " + aURL);
+      return new URLConnection (aURL)
+      {
+        @Override
+        public void connect ()
+        {
+          connected = true;
+        }
+
+        @Override
+        public int getContentLength ()
+        {
+          return aBytes.length;
+        }
+
+        @Override
+        public InputStream getInputStream ()
+        {
+          return new ByteArrayInputStream (aBytes);
+        }
+      };
+    }
+  }
+
+  /**
+   * The class loader providing the compiled classes and all non-Java files of
+   * the code model as resources.
+   */
+  private static final class InMemoryClassLoader extends ClassLoader
+  {
+    private static final String URL_PROTOCOL = "memory";
+
+    private final Map <String, byte []> m_aClasses;
+    private final Map <String, byte []> m_aResources;
+    private final URLStreamHandler m_aURLStreamHandler;
+
+    InMemoryClassLoader (@Nullable final ClassLoader aParent,
+                         @Nonnull final Map <String, byte []> aClasses,
+                         @Nonnull final Map <String, byte []> aResources)
+    {
+      super (aParent);
+      m_aClasses = aClasses;
+      m_aResources = aResources;
+      m_aURLStreamHandler = new InMemoryURLStreamHandler (aResources);
+    }
+
+    @Override
+    protected Class <?> findClass (final String sName) throws ClassNotFoundException
+    {
+      final byte [] aBytes = m_aClasses.get (sName);
+      if (aBytes == null)
+        return super.findClass (sName);
+      return defineClass (sName, aBytes, 0, aBytes.length);
+    }
+
+    @Override
+    protected URL findResource (final String sName)
+    {
+      if (!m_aResources.containsKey (sName))
+        return null;
+      try
+      {
+        return new URL (URL_PROTOCOL, null, -1, "/" + sName, m_aURLStreamHandler);
+      }
+      catch (final MalformedURLException ex)
+      {
+        throw new IllegalStateException ("Failed to create URL for resource " + sName, ex);
+      }
+    }
+
+    @Override
+    protected Enumeration <URL> findResources (final String sName)
+    {
+      final URL aURL = findResource (sName);
+      if (aURL == null)
+        return Collections.emptyEnumeration ();
+      return Collections.enumeration (Collections.singletonList (aURL));
+    }
+  }
+
+  private InMemoryJavaCompiler ()
+  {}
+
+  /**
+   * Compile all Java sources of the provided code writer.
+   *
+   * @param aCodeWriter
+   *        The in-memory code writer the code model was built with. May not be
+   *        <code>null</code>.
+   * @param aParentClassLoader
+   *        The parent class loader of the resulting class loader. May be
+   *        <code>null</code>.
+   * @param aOptions
+   *        Additional compiler options like "<code>-g</code>". May be
+   *        <code>null</code>.
+   * @return The class loader with all compiled classes. Never
+   *         <code>null</code>.
+   * @throws IOException
+   *         On IO error
+   * @throws CompilationException
+   *         If the sources don't compile
+   */
+  @Nonnull
+  public static ClassLoader compile (@Nonnull final InMemoryCodeWriter aCodeWriter,
+                                     @Nullable final ClassLoader aParentClassLoader,
+                                     @Nullable final List <String> aOptions) throws IOException, CompilationException
+  {
+    JCValueEnforcer.notNull (aCodeWriter, "CodeWriter");
+
+    final JavaCompiler aCompiler = ToolProvider.getSystemJavaCompiler ();
+    if (aCompiler == null)
+      throw new IllegalStateException ("No system Java compiler is available - running on a JRE?");
+
+    final Charset aCharset = aCodeWriter.encoding () != null ? aCodeWriter.encoding () : Charset.defaultCharset ();
+    final DiagnosticCollector <JavaFileObject> aDiagnostics = new DiagnosticCollector <> ();
+    try (final InMemoryFileManager aFileManager = new InMemoryFileManager (aCompiler.getStandardFileManager (aDiagnostics,
+                                                                                                             null,
+                                                                                                             aCharset)))
+    {
+      final StringWriter aOut = new StringWriter ();
+      final boolean bSuccess = aCompiler.getTask (aOut,
+                                                  aFileManager,
+                                                  aDiagnostics,
+                                                  aOptions,
+                                                  null,
+                                                  aCodeWriter.getAllJavaSourceFiles ())
+                                        .call ()
+                                        .booleanValue ();
+      if (!bSuccess)
+      {
+        final StringBuilder aSB = new StringBuilder ("Failed to compile generated sources:");
+        for (final Diagnostic <? extends JavaFileObject> aDiag : aDiagnostics.getDiagnostics ())
+          aSB.append ('\n').append (aDiag.toString ());
+        if (aOut.getBuffer ().length () > 0)
+          aSB.append ('\n').append (aOut.toString ());
+        throw new CompilationException (aSB.toString ());
+      }
+
+      // All non-Java files are resources
+      final Map <String, byte []> aResources = new HashMap <> ();
+      for (final Map.Entry <String, byte []> aEntry : aCodeWriter.getAllFiles ().entrySet ())
+        if (!aEntry.getKey ().endsWith (InMemoryCodeWriter.JAVA_FILE_EXTENSION))
+          aResources.put (aEntry.getKey (), aEntry.getValue ());
+
+      return new InMemoryClassLoader (aParentClassLoader, aFileManager.getAllClassBytes (), aResources);
+    }
+  }
+
+  /**
+   * Build and compile the provided code model entirely in memory.
+   *
+   * @param aCodeModel
+   *        The code model to be compiled. May not be <code>null</code>.
+   * @param aParentClassLoader
+   *        The parent class loader of the resulting class loader. May be
+   *        <code>null</code>.
+   * @return The class loader with all compiled classes. Never
+   *         <code>null</code>.
+   * @throws IOException
+   *         On IO error
+   * @throws CompilationException
+   *         If the sources don't compile
+   */
+  @Nonnull
+  public static ClassLoader compile (@Nonnull final JCodeModel aCodeModel,
+                                     @Nullable final ClassLoader aParentClassLoader) throws IOException,
+                                                                                      CompilationException
+  {
+    JCValueEnforcer.notNull (aCodeModel, "CodeModel");
+
+    final InMemoryCodeWriter aCodeWriter = new InMemoryCodeWriter (aCodeModel.getBuildingCharset (),
+                                                                   aCodeModel.getBuildingNewLine ());
+    aCodeModel.build (aCodeWriter);
+    return compile (aCodeWriter, aParentClassLoader, Collections.<String> emptyList ());
+  }
+}
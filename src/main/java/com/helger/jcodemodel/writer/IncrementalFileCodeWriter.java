@@ -0,0 +1,308 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.helger.jcodemodel.JPackage;
+
+/**
+ * A special {@link FileCodeWriter} that only writes files whose content
+ * changed compared to the file already present on disk. Unchanged files are
+ * not touched at all, so their modification time stays the same and
+ * downstream tools don't need to reprocess them. Optionally all files in the
+ * target directory that were not created by this writer are deleted upon
+ * {@link #close()}. Errors that occur while comparing, writing or deleting
+ * files are collected and thrown from {@link #close()}, as errors thrown when
+ * closing a source writer would otherwise get lost.
+ *
+ * @author Philip Helger
+ * @since 3.0.0
+ */
+public class IncrementalFileCodeWriter extends FileCodeWriter
+{
+  public static final boolean DEFAULT_DELETE_STALE_FILES = false;
+
+  private boolean m_bDeleteStaleFiles = DEFAULT_DELETE_STALE_FILES;
+
+  /** All files produced by this writer. */
+  private final Set <File> m_aProducedFiles = new HashSet <> ();
+
+  private int m_nWrittenFiles = 0;
+  private int m_nUnchangedFiles = 0;
+  private int m_nDeletedFiles = 0;
+
+  /** The first error that occurred - all others are added as suppressed */
+  private IOException m_aError;
+
+  public IncrementalFileCodeWriter (@Nonnull final File aTargetDir) throws IOException
+  {
+    this (aTargetDir, DEFAULT_MARK_READ_ONLY, DEFAULT_CHARSET, getDefaultNewLine ());
+  }
+
+  public IncrementalFileCodeWriter (@Nonnull final File aTargetDir,
+                                    @Nullable final Charset encoding,
+                                    @Nonnull final String sNewLine) throws IOException
+  {
+    this (aTargetDir, DEFAULT_MARK_READ_ONLY, encoding, sNewLine);
+  }
+
+  public IncrementalFileCodeWriter (@Nonnull final File aTargetDir,
+                                    final boolean bMarkReadOnly,
+                                    @Nullable final Charset encoding,
+                                    @Nonnull final String sNewLine) throws IOException
+  {
+    super (aTargetDir, bMarkReadOnly, encoding, sNewLine);
+  }
+
+  /**
+   * @return <code>true</code> if files in the target directory that were not
+   *         created by this writer are deleted in {@link #close()}.
+   */
+  public final boolean isDeleteStaleFiles ()
+  {
+    return m_bDeleteStaleFiles;
+  }
+
+  /**
+   * Enable or disable the deletion of stale files. If enabled,
+   * <b>all</b> files in the target directory and its sub directories that were
+   * not created by this writer are deleted in {@link #close()}. So only use
+   * this, if the target directory is exclusively used for generated code, and
+   * use the same writer instance for sources and resources.
+   *
+   * @param bDeleteStaleFiles
+   *        <code>true</code> to delete stale files.
+   * @return this for chaining
+   */
+  @Nonnull
+  public IncrementalFileCodeWriter setDeleteStaleFiles (final boolean bDeleteStaleFiles)
+  {
+    m_bDeleteStaleFiles = bDeleteStaleFiles;
+    return this;
+  }
+
+  /**
+   * @return The number of files that were created or changed.
+   */
+  @Nonnegative
+  public final int getWrittenFileCount ()
+  {
+    return m_nWrittenFiles;
+  }
+
+  /**
+   * @return The number of files whose content was unchanged and that were
+   *         therefore not written.
+   */
+  @Nonnegative
+  public final int getUnchangedFileCount ()
+  {
+    return m_nUnchangedFiles;
+  }
+
+  /**
+   * @return The number of stale files that were deleted in {@link #close()}.
+   */
+  @Nonnegative
+  public final int getDeletedFileCount ()
+  {
+    return m_nDeletedFiles;
+  }
+
+  private static boolean _hasSameContent (@Nonnull final File aFile,
+                                          @Nonnull final byte [] aBytes,
+                                          @Nonnegative final int nLength) throws IOException
+  {
+    // Cheap check first
+    if (!aFile.isFile () || aFile.length () != nLength)
+      return false;
+
+    final byte [] aExisting = Files.readAllBytes (aFile.toPath ());
+    if (aExisting.length != nLength)
+      return false;
+    for (int i = 0; i < nLength; ++i)
+      if (aExisting[i] != aBytes[i])
+        return false;
+    return true;
+  }
+
+  private void _addError (@Nonnull final IOException ex)
+  {
+    if (m_aError == null)
+      m_aError = ex;
+    else
+      if (ex != m_aError)
+        m_aError.addSuppressed (ex);
+  }
+
+  protected void onFileCompleted (@Nonnull final File aFile,
+                                  @Nonnull final byte [] aBytes,
+                                  @Nonnegative final int nLength) throws IOException
+  {
+    m_aProducedFiles.add (aFile.getAbsoluteFile ());
+    markReadOnly (aFile);
+
+    if (_hasSameContent (aFile, aBytes, nLength))
+    {
+      m_nUnchangedFiles++;
+      return;
+    }
+
+    // The existing file may be read-only
+    if (aFile.exists () && !aFile.delete ())
+      throw new IOException (aFile + ": Can't delete previous version");
+
+    try (final OutputStream aOS = new FileOutputStream (aFile))
+    {
+      aOS.write (aBytes, 0, nLength);
+    }
+    m_nWrittenFiles++;
+  }
+
+  @Override
+  @Nonnull
+  public OutputStream openBinary (@Nonnull final JPackage pkg, @Nonnull final String fileName) throws IOException
+  {
+    final File aFile = getTargetFile (pkg, fileName);
+    return new ByteArrayOutputStream (Math.max (32, getSizeHint ()))
+    {
+      private boolean m_bClosed = false;
+
+      @Override
+      public void close () throws IOException
+      {
+        if (!m_bClosed)
+        {
+          m_bClosed = true;
+          try
+          {
+            onFileCompleted (aFile, buf, count);
+          }
+          catch (final IOException ex)
+          {
+            _addError (ex);
+            throw ex;
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Delete all files not produced by this writer in the passed directory and
+   * its sub directories. Directories that are empty afterwards are deleted as
+   * well.
+   *
+   * @param aDir
+   *        The directory to scan.
+   * @return <code>true</code> if the directory is empty afterwards.
+   */
+  private boolean _deleteStaleFiles (@Nonnull final File aDir)
+  {
+    final File [] aChildren = aDir.listFiles ();
+    if (aChildren == null)
+    {
+      _addError (new IOException (aDir + ": Can't list directory"));
+      return false;
+    }
+
+    boolean bEmpty = true;
+    for (final File aChild : aChildren)
+    {
+      if (aChild.isDirectory ())
+      {
+        if (_deleteStaleFiles (aChild))
+        {
+          if (!aChild.delete ())
+          {
+            _addError (new IOException (aChild + ": Can't delete empty directory"));
+            bEmpty = false;
+          }
+        }
+        else
+          bEmpty = false;
+      }
+      else
+        if (m_aProducedFiles.contains (aChild.getAbsoluteFile ()))
+          bEmpty = false;
+        else
+        {
+          // Ensure read-only files can be deleted
+          aChild.setWritable (true);
+          if (aChild.delete ())
+            m_nDeletedFiles++;
+          else
+          {
+            _addError (new IOException (aChild + ": Can't delete stale file"));
+            bEmpty = false;
+          }
+        }
+    }
+    return bEmpty;
+  }
+
+  @Override
+  public void close () throws IOException
+  {
+    if (m_bDeleteStaleFiles)
+    {
+      // The target directory itself is never deleted
+      _deleteStaleFiles (getTargetDir ());
+    }
+    super.close ();
+
+    if (m_aError != null)
+      throw m_aError;
+  }
+}
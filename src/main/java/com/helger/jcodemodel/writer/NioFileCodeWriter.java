@@ -0,0 +1,262 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.helger.jcodemodel.AbstractCodeWriter;
+import com.helger.jcodemodel.JPackage;
+
+/**
+ * Writes all the source files under the specified directory using the
+ * <code>java.nio.file</code> API. In contrast to {@link FileCodeWriter} each
+ * package directory is checked and created only once, existing files are
+ * truncated instead of being deleted and recreated, and files can optionally
+ * be written atomically via a temporary file that is moved to the final
+ * location.
+ *
+ * @author Philip Helger
+ * @since 3.0.0
+ */
+public class NioFileCodeWriter extends AbstractCodeWriter
+{
+  public static final boolean DEFAULT_MARK_READ_ONLY = false;
+  public static final boolean DEFAULT_ATOMIC_WRITE = false;
+  public static final Charset DEFAULT_CHARSET = null;
+
+  /** The target directory to put source code. */
+  private final Path m_aTargetDir;
+
+  /** specify whether or not to mark the generated files read-only */
+  private final boolean m_bMarkReadOnly;
+
+  /** specify whether files are written atomically */
+  private final boolean m_bAtomicWrite;
+
+  /** All directories that are known to exist. */
+  private final Set <Path> m_aExistingDirs = ConcurrentHashMap.newKeySet ();
+
+  /** Files that shall be marked as read only. */
+  private final List <Path> m_aReadOnlyFiles = new ArrayList <> ();
+
+  public NioFileCodeWriter (@Nonnull final Path aTargetDir) throws IOException
+  {
+    this (aTargetDir, DEFAULT_MARK_READ_ONLY, DEFAULT_ATOMIC_WRITE, DEFAULT_CHARSET, getDefaultNewLine ());
+  }
+
+  public NioFileCodeWriter (@Nonnull final Path aTargetDir,
+                            @Nullable final Charset encoding,
+                            @Nonnull final String sNewLine) throws IOException
+  {
+    this (aTargetDir, DEFAULT_MARK_READ_ONLY, DEFAULT_ATOMIC_WRITE, encoding, sNewLine);
+  }
+
+  public NioFileCodeWriter (@Nonnull final Path aTargetDir,
+                            final boolean bMarkReadOnly,
+                            final boolean bAtomicWrite,
+                            @Nullable final Charset encoding,
+                            @Nonnull final String sNewLine) throws IOException
+  {
+    super (encoding, sNewLine);
+    if (!Files.isDirectory (aTargetDir))
+      throw new IOException (aTargetDir + ": non-existent directory");
+    m_aTargetDir = aTargetDir;
+    m_bMarkReadOnly = bMarkReadOnly;
+    m_bAtomicWrite = bAtomicWrite;
+    m_aExistingDirs.add (aTargetDir);
+  }
+
+  @Nonnull
+  public final Path getTargetDir ()
+  {
+    return m_aTargetDir;
+  }
+
+  public final boolean isMarkReadOnly ()
+  {
+    return m_bMarkReadOnly;
+  }
+
+  public final boolean isAtomicWrite ()
+  {
+    return m_bAtomicWrite;
+  }
+
+  @Nonnull
+  protected Path getDirectory (@Nonnull final JPackage pkg) throws IOException
+  {
+    if (pkg.isUnnamed ())
+      return m_aTargetDir;
+
+    final Path aDir = m_aTargetDir.resolve (_toDirName (pkg));
+    if (!m_aExistingDirs.contains (aDir))
+    {
+      Files.createDirectories (aDir);
+      m_aExistingDirs.add (aDir);
+    }
+    return aDir;
+  }
+
+  @Nonnull
+  private static OutputStream _openTruncating (@Nonnull final Path aFile) throws IOException
+  {
+    try
+    {
+      return Files.newOutputStream (aFile,
+                                    StandardOpenOption.CREATE,
+                                    StandardOpenOption.TRUNCATE_EXISTING,
+                                    StandardOpenOption.WRITE);
+    }
+    catch (final AccessDeniedException ex)
+    {
+      // Maybe a read-only file from a previous run
+      if (!aFile.toFile ().setWritable (true))
+        throw ex;
+      return Files.newOutputStream (aFile,
+                                    StandardOpenOption.CREATE,
+                                    StandardOpenOption.TRUNCATE_EXISTING,
+                                    StandardOpenOption.WRITE);
+    }
+  }
+
+  @Override
+  @Nonnull
+  public OutputStream openBinary (@Nonnull final JPackage pkg, @Nonnull final String fileName) throws IOException
+  {
+    final Path aDir = getDirectory (pkg);
+    final Path aFile = aDir.resolve (fileName);
+
+    if (m_bMarkReadOnly)
+      synchronized (m_aReadOnlyFiles)
+      {
+        m_aReadOnlyFiles.add (aFile);
+      }
+
+    if (!m_bAtomicWrite)
+      return _openTruncating (aFile);
+
+    // Write to a temporary file in the same directory and move it afterwards.
+    // Files.createTempFile is not used, as it restricts the permissions to the
+    // owner and these would be kept by the move.
+    Path aTempFile;
+    OutputStream aTempOS;
+    while (true)
+    {
+      aTempFile = aDir.resolve (fileName + '.' + Long.toHexString (ThreadLocalRandom.current ().nextLong ()) + ".tmp");
+      try
+      {
+        aTempOS = Files.newOutputStream (aTempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        break;
+      }
+      catch (final FileAlreadyExistsException ex)
+      {
+        // Try another name
+      }
+    }
+
+    final Path aFinalTempFile = aTempFile;
+    return new FilterOutputStream (aTempOS)
+    {
+      private boolean m_bClosed = false;
+
+      @Override
+      public void write (@Nonnull final byte [] b, final int off, final int len) throws IOException
+      {
+        // Avoid the byte-by-byte default implementation
+        out.write (b, off, len);
+      }
+
+      @Override
+      public void close () throws IOException
+      {
+        if (!m_bClosed)
+        {
+          m_bClosed = true;
+          try
+          {
+            super.close ();
+            Files.move (aFinalTempFile, aFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+          }
+          finally
+          {
+            Files.deleteIfExists (aFinalTempFile);
+          }
+        }
+      }
+    };
+  }
+
+  @Override
+  public void close () throws IOException
+  {
+    // mark files as read-only if necessary
+    synchronized (m_aReadOnlyFiles)
+    {
+      for (final Path aFile : m_aReadOnlyFiles)
+        aFile.toFile ().setReadOnly ();
+      m_aReadOnlyFiles.clear ();
+    }
+  }
+
+  /** Converts a package name to the relative directory name. */
+  @Nonnull
+  private static String _toDirName (@Nonnull final JPackage aPkg)
+  {
+    return aPkg.name ().replace ('.', '/');
+  }
+}
@@ -0,0 +1,608 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.helger.jcodemodel.AbstractCodeWriter;
+import com.helger.jcodemodel.JPackage;
+import com.helger.jcodemodel.util.JCValueEnforcer;
+
+/**
+ * Writes all the files into a zip or jar file like {@link ZipCodeWriter}, but
+ * compresses the entries on an {@link Executor} while the next files are
+ * generated. The compressed entries are written to the target stream in the
+ * order in which they were opened, so the created archive does not depend on
+ * the scheduling of the compression tasks.
+ * <p>
+ * To create reproducible archives, all entries get the same modification time
+ * (see {@link #setEntryTime(LocalDateTime)}), which defaults to
+ * {@link #DEFAULT_ENTRY_TIME}. If a manifest is set, it is written as the
+ * first entry so that the result is a valid jar file.
+ * <p>
+ * Duplicate entry names are already rejected in
+ * {@link #openBinary(JPackage, String)}. Errors that occur while writing the
+ * compressed entries are rethrown from {@link #close()}, as errors when
+ * closing a source writer would otherwise get lost.
+ * <p>
+ * ZIP64 extensions are not supported, so each entry and the whole archive
+ * must be smaller than 4GB and at most 65535 entries can be written.
+ *
+ * @author Philip Helger
+ * @since 3.0.0
+ */
+public class ParallelZipCodeWriter extends AbstractCodeWriter
+{
+  /** The modification time of all entries by default: 1980-01-01 00:00 */
+  public static final LocalDateTime DEFAULT_ENTRY_TIME = LocalDateTime.of (1980, 1, 1, 0, 0);
+
+  /**
+   * The maximum number of entries that are compressed ahead of the target
+   * stream by default.
+   */
+  public static final int DEFAULT_MAX_PENDING_ENTRIES = 64;
+
+  private static final int LOCAL_FILE_HEADER_SIG = 0x04034b50;
+  private static final int CENTRAL_FILE_HEADER_SIG = 0x02014b50;
+  private static final int END_OF_CENTRAL_DIR_SIG = 0x06054b50;
+  /** Bit 11 - file names are UTF-8 encoded */
+  private static final int FLAG_UTF8 = 0x0800;
+  private static final long MAX_ZIP32 = 0xffffffffL;
+  private static final int MAX_ZIP32_ENTRIES = 0xffff;
+
+  /** A completely compressed entry, ready to be written. */
+  private static final class CompressedEntry
+  {
+    private final byte [] m_aName;
+    private final int m_nMethod;
+    private final long m_nCRC;
+    private final long m_nSize;
+    private final byte [] m_aData;
+    private final int m_nDataLength;
+    private long m_nOffset;
+
+    CompressedEntry (@Nonnull final byte [] aName,
+                     final int nMethod,
+                     final long nCRC,
+                     final long nSize,
+                     @Nonnull final byte [] aData,
+                     final int nDataLength)
+    {
+      m_aName = aName;
+      m_nMethod = nMethod;
+      m_nCRC = nCRC;
+      m_nSize = nSize;
+      m_aData = aData;
+      m_nDataLength = nDataLength;
+    }
+  }
+
+  /** Exposes the internal buffer to avoid copying it. */
+  private static class DirectByteArrayOutputStream extends ByteArrayOutputStream
+  {
+    DirectByteArrayOutputStream (@Nonnegative final int nInitialSize)
+    {
+      super (nInitialSize);
+    }
+
+    @Nonnull
+    byte [] directGetBuffer ()
+    {
+      return buf;
+    }
+  }
+
+  private final OutputStream m_aOS;
+  private final Executor m_aExecutor;
+  private int m_nMethod = ZipEntry.DEFLATED;
+  private int m_nLevel = Deflater.DEFAULT_COMPRESSION;
+  private LocalDateTime m_aEntryTime = DEFAULT_ENTRY_TIME;
+  private int m_nMaxPendingEntries = DEFAULT_MAX_PENDING_ENTRIES;
+  private Manifest m_aManifest;
+
+  /** Entries in the order they were opened, not yet written. */
+  private final Deque <Future <CompressedEntry>> m_aPending = new ArrayDeque <> ();
+  /** All entries written so far, for the central directory */
+  private final List <CompressedEntry> m_aWritten = new ArrayList <> ();
+  private final Set <String> m_aEntryNames = new HashSet <> ();
+  private long m_nOffset = 0;
+  private boolean m_bStarted = false;
+  /** The first error when adding an entry - rethrown in close */
+  private IOException m_aError;
+
+  /**
+   * Constructor using the common {@link ForkJoinPool} for compression.
+   *
+   * @param target
+   *        Zip file will be written to this stream.
+   */
+  public ParallelZipCodeWriter (@Nonnull final OutputStream target)
+  {
+    this (target, ForkJoinPool.commonPool ());
+  }
+
+  /**
+   * @param target
+   *        Zip file will be written to this stream.
+   * @param aExecutor
+   *        The executor to compress the entries.
+   */
+  public ParallelZipCodeWriter (@Nonnull final OutputStream target, @Nonnull final Executor aExecutor)
+  {
+    this (target, aExecutor, null, getDefaultNewLine ());
+  }
+
+  /**
+   * @param target
+   *        Zip file will be written to this stream.
+   * @param aExecutor
+   *        The executor to compress the entries.
+   * @param encoding
+   *        The encoding of the source files. May be <code>null</code> for the
+   *        platform default.
+   * @param sNewLine
+   *        The new line string to be used for source files
+   */
+  public ParallelZipCodeWriter (@Nonnull final OutputStream target,
+                                @Nonnull final Executor aExecutor,
+                                @Nullable final Charset encoding,
+                                @Nonnull final String sNewLine)
+  {
+    super (encoding, sNewLine);
+    JCValueEnforcer.notNull (target, "Target");
+    JCValueEnforcer.notNull (aExecutor, "Executor");
+    m_aOS = new BufferedOutputStream (target);
+    m_aExecutor = aExecutor;
+  }
+
+  private void _checkNotStarted ()
+  {
+    if (m_bStarted)
+      throw new IllegalStateException ("The settings cannot be changed after the first entry was written");
+  }
+
+  /**
+   * @return The compression method. Either {@link ZipEntry#DEFLATED} (the
+   *         default) or {@link ZipEntry#STORED}.
+   */
+  public final int getMethod ()
+  {
+    return m_nMethod;
+  }
+
+  /**
+   * Set the compression method for all entries.
+   *
+   * @param nMethod
+   *        Either {@link ZipEntry#DEFLATED} or {@link ZipEntry#STORED}.
+   * @return this for chaining
+   */
+  @Nonnull
+  public ParallelZipCodeWriter setMethod (final int nMethod)
+  {
+    JCValueEnforcer.isTrue (nMethod == ZipEntry.DEFLATED || nMethod == ZipEntry.STORED, "Invalid compression method");
+    _checkNotStarted ();
+    m_nMethod = nMethod;
+    return this;
+  }
+
+  /**
+   * @return The compression level used for {@link ZipEntry#DEFLATED} entries.
+   */
+  public final int getLevel ()
+  {
+    return m_nLevel;
+  }
+
+  /**
+   * Set the compression level used for {@link ZipEntry#DEFLATED} entries.
+   *
+   * @param nLevel
+   *        {@link Deflater#DEFAULT_COMPRESSION} or a value between
+   *        {@link Deflater#NO_COMPRESSION} and {@link Deflater#BEST_COMPRESSION}
+   * @return this for chaining
+   */
+  @Nonnull
+  public ParallelZipCodeWriter setLevel (final int nLevel)
+  {
+    if (nLevel != Deflater.DEFAULT_COMPRESSION)
+      JCValueEnforcer.isBetweenInclusive (nLevel, "Level", Deflater.NO_COMPRESSION, Deflater.BEST_COMPRESSION);
+    _checkNotStarted ();
+    m_nLevel = nLevel;
+    return this;
+  }
+
+  /**
+   * @return The modification time of all entries. Never <code>null</code>.
+   */
+  @Nonnull
+  public final LocalDateTime getEntryTime ()
+  {
+    return m_aEntryTime;
+  }
+
+  /**
+   * Set the modification time of all entries. Only the precision of the zip
+   * format (2 seconds) is used.
+   *
+   * @param aEntryTime
+   *        The time to use. Must be between 1980 and 2107.
+   * @return this for chaining
+   */
+  @Nonnull
+  public ParallelZipCodeWriter setEntryTime (@Nonnull final LocalDateTime aEntryTime)
+  {
+    JCValueEnforcer.notNull (aEntryTime, "EntryTime");
+    JCValueEnforcer.isBetweenInclusive (aEntryTime.getYear (), "EntryTime.Year", 1980, 2107);
+    _checkNotStarted ();
+    m_aEntryTime = aEntryTime;
+    return this;
+  }
+
+  /**
+   * @return The maximum number of entries that are compressed ahead of the
+   *         target stream.
+   */
+  @Nonnegative
+  public final int getMaxPendingEntries ()
+  {
+    return m_nMaxPendingEntries;
+  }
+
+  /**
+   * Set the maximum number of entries that are compressed ahead of the target
+   * stream. This limits the memory consumption.
+   *
+   * @param nMaxPendingEntries
+   *        The maximum number of pending entries. Must be &gt; 0.
+   * @return this for chaining
+   */
+  @Nonnull
+  public ParallelZipCodeWriter setMaxPendingEntries (@Nonnegative final int nMaxPendingEntries)
+  {
+    JCValueEnforcer.isGT0 (nMaxPendingEntries, "MaxPendingEntries");
+    m_nMaxPendingEntries = nMaxPendingEntries;
+    return this;
+  }
+
+  /**
+   * @return The manifest to be written. May be <code>null</code>.
+   */
+  @Nullable
+  public final Manifest getManifest ()
+  {
+    return m_aManifest;
+  }
+
+  /**
+   * Set the manifest to be written as the first entry
+   * (<code>META-INF/MANIFEST.MF</code>) of the archive.
+   *
+   * @param aManifest
+   *        The manifest to use. May be <code>null</code> to write no manifest.
+   * @return this for chaining
+   */
+  @Nonnull
+  public ParallelZipCodeWriter setManifest (@Nullable final Manifest aManifest)
+  {
+    _checkNotStarted ();
+    m_aManifest = aManifest;
+    return this;
+  }
+
+  private int _getDosTime ()
+  {
+    return m_aEntryTime.getHour () << 11 | m_aEntryTime.getMinute () << 5 | m_aEntryTime.getSecond () >> 1;
+  }
+
+  private int _getDosDate ()
+  {
+    return (m_aEntryTime.getYear () - 1980) << 9 | m_aEntryTime.getMonthValue () << 5 | m_aEntryTime.getDayOfMonth ();
+  }
+
+  @Nonnull
+  private CompressedEntry _compress (@Nonnull final byte [] aName,
+                                     @Nonnull final byte [] aData,
+                                     @Nonnegative final int nLength)
+  {
+    final CRC32 aCRC = new CRC32 ();
+    aCRC.update (aData, 0, nLength);
+    if (m_nMethod == ZipEntry.STORED)
+      return new CompressedEntry (aName, ZipEntry.STORED, aCRC.getValue (), nLength, aData, nLength);
+
+    // Raw deflate without zlib header, as required by the zip format
+    final Deflater aDeflater = new Deflater (m_nLevel, true);
+    try
+    {
+      aDeflater.setInput (aData, 0, nLength);
+      aDeflater.finish ();
+      final DirectByteArrayOutputStream aBAOS = new DirectByteArrayOutputStream (Math.max (64, nLength / 2));
+      final byte [] aBuf = new byte [8192];
+      while (!aDeflater.finished ())
+      {
+        final int nCompressed = aDeflater.deflate (aBuf);
+        aBAOS.write (aBuf, 0, nCompressed);
+      }
+      return new CompressedEntry (aName,
+                                  ZipEntry.DEFLATED,
+                                  aCRC.getValue (),
+                                  nLength,
+                                  aBAOS.directGetBuffer (),
+                                  aBAOS.size ());
+    }
+    finally
+    {
+      aDeflater.end ();
+    }
+  }
+
+  private void _reserveEntryName (@Nonnull final String sName) throws ZipException
+  {
+    if (!m_aEntryNames.add (sName))
+      throw new ZipException ("duplicate entry: " + sName);
+    if (m_aEntryNames.size () > MAX_ZIP32_ENTRIES)
+      throw new ZipException ("Too many entries - ZIP64 is not supported");
+  }
+
+  private void _addEntry (@Nonnull final String sName,
+                          @Nonnull final byte [] aData,
+                          @Nonnegative final int nLength) throws IOException
+  {
+    if (m_aError != null)
+    {
+      // The archive is already broken - don't write anything else
+      return;
+    }
+
+    final byte [] aName = sName.getBytes (StandardCharsets.UTF_8);
+    final FutureTask <CompressedEntry> aTask = new FutureTask <> ( () -> _compress (aName, aData, nLength));
+    m_aExecutor.execute (aTask);
+    m_aPending.addLast (aTask);
+
+    // Write what is already done and limit the number of pending entries
+    try
+    {
+      while (!m_aPending.isEmpty () &&
+             (m_aPending.peekFirst ().isDone () || m_aPending.size () > m_nMaxPendingEntries))
+        _writeLocalEntry (_getCompressed (m_aPending.removeFirst ()));
+    }
+    catch (final IOException ex)
+    {
+      // Remember it, as errors when closing source writers get lost
+      m_aError = ex;
+      throw ex;
+    }
+  }
+
+  @Nonnull
+  private static CompressedEntry _getCompressed (@Nonnull final Future <CompressedEntry> aFuture) throws IOException
+  {
+    try
+    {
+      return aFuture.get ();
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      throw new InterruptedIOException ("Interrupted while compressing entries");
+    }
+    catch (final ExecutionException ex)
+    {
+      final Throwable aCause = ex.getCause ();
+      if (aCause instanceof RuntimeException)
+        throw (RuntimeException) aCause;
+      if (aCause instanceof Error)
+        throw (Error) aCause;
+      throw new IOException ("Failed to compress entry", aCause);
+    }
+  }
+
+  private void _writeShort (final int n) throws IOException
+  {
+    m_aOS.write (n & 0xff);
+    m_aOS.write ((n >>> 8) & 0xff);
+  }
+
+  private void _writeInt (final long n) throws IOException
+  {
+    _writeShort ((int) (n & 0xffff));
+    _writeShort ((int) ((n >>> 16) & 0xffff));
+  }
+
+  private void _writeLocalEntry (@Nonnull final CompressedEntry aEntry) throws IOException
+  {
+    if (aEntry.m_nSize > MAX_ZIP32 || m_nOffset > MAX_ZIP32)
+      throw new ZipException ("Archive too large - ZIP64 is not supported");
+
+    aEntry.m_nOffset = m_nOffset;
+    _writeInt (LOCAL_FILE_HEADER_SIG);
+    _writeShort (aEntry.m_nMethod == ZipEntry.STORED ? 10 : 20);
+    _writeShort (FLAG_UTF8);
+    _writeShort (aEntry.m_nMethod);
+    _writeShort (_getDosTime ());
+    _writeShort (_getDosDate ());
+    _writeInt (aEntry.m_nCRC);
+    _writeInt (aEntry.m_nDataLength);
+    _writeInt (aEntry.m_nSize);
+    _writeShort (aEntry.m_aName.length);
+    // no extra field
+    _writeShort (0);
+    m_aOS.write (aEntry.m_aName);
+    m_aOS.write (aEntry.m_aData, 0, aEntry.m_nDataLength);
+    m_nOffset += 30 + aEntry.m_aName.length + aEntry.m_nDataLength;
+    m_aWritten.add (aEntry);
+  }
+
+  private void _writeCentralDirectory () throws IOException
+  {
+    if (m_nOffset > MAX_ZIP32)
+      throw new ZipException ("Archive too large - ZIP64 is not supported");
+
+    final long nStart = m_nOffset;
+    long nSize = 0;
+    for (final CompressedEntry aEntry : m_aWritten)
+    {
+      final int nVersion = aEntry.m_nMethod == ZipEntry.STORED ? 10 : 20;
+      _writeInt (CENTRAL_FILE_HEADER_SIG);
+      // version made by
+      _writeShort (20);
+      _writeShort (nVersion);
+      _writeShort (FLAG_UTF8);
+      _writeShort (aEntry.m_nMethod);
+      _writeShort (_getDosTime ());
+      _writeShort (_getDosDate ());
+      _writeInt (aEntry.m_nCRC);
+      _writeInt (aEntry.m_nDataLength);
+      _writeInt (aEntry.m_nSize);
+      _writeShort (aEntry.m_aName.length);
+      // extra field, comment, disk number, internal and external attributes
+      _writeShort (0);
+      _writeShort (0);
+      _writeShort (0);
+      _writeShort (0);
+      _writeInt (0);
+      _writeInt (aEntry.m_nOffset);
+      m_aOS.write (aEntry.m_aName);
+      nSize += 46 + aEntry.m_aName.length;
+    }
+
+    _writeInt (END_OF_CENTRAL_DIR_SIG);
+    // disk numbers
+    _writeShort (0);
+    _writeShort (0);
+    _writeShort (m_aWritten.size ());
+    _writeShort (m_aWritten.size ());
+    _writeInt (nSize);
+    _writeInt (nStart);
+    // no comment
+    _writeShort (0);
+  }
+
+  private void _ensureStarted () throws IOException
+  {
+    if (!m_bStarted)
+    {
+      m_bStarted = true;
+      if (m_aManifest != null)
+      {
+        final DirectByteArrayOutputStream aBAOS = new DirectByteArrayOutputStream (256);
+        m_aManifest.write (aBAOS);
+        _reserveEntryName (JarFile.MANIFEST_NAME);
+        _addEntry (JarFile.MANIFEST_NAME, aBAOS.directGetBuffer (), aBAOS.size ());
+      }
+    }
+  }
+
+  @Override
+  @Nonnull
+  public OutputStream openBinary (@Nonnull final JPackage pkg, @Nonnull final String fileName) throws IOException
+  {
+    _ensureStarted ();
+
+    final String sName = pkg.isUnnamed () ? fileName : pkg.name ().replace ('.', '/') + '/' + fileName;
+    _reserveEntryName (sName);
+    return new DirectByteArrayOutputStream (Math.max (1024, getSizeHint ()))
+    {
+      private boolean m_bClosed = false;
+
+      @Override
+      public void close () throws IOException
+      {
+        if (!m_bClosed)
+        {
+          m_bClosed = true;
+          _addEntry (sName, directGetBuffer (), size ());
+        }
+      }
+    };
+  }
+
+  @Override
+  public void close () throws IOException
+  {
+    try
+    {
+      if (m_aError != null)
+        throw m_aError;
+
+      _ensureStarted ();
+      while (!m_aPending.isEmpty ())
+        _writeLocalEntry (_getCompressed (m_aPending.removeFirst ()));
+      _writeCentralDirectory ();
+    }
+    finally
+    {
+      // In case of an error
+      for (final Future <CompressedEntry> aFuture : m_aPending)
+        aFuture.cancel (true);
+      m_aPending.clear ();
+      m_aOS.close ();
+    }
+  }
+}
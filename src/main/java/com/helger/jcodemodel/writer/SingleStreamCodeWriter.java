@@ -102,6 +102,13 @@ public class SingleStreamCodeWriter extends AbstractCodeWriter
 
     return new FilterOutputStream (m_aPS)
     {
+      @Override
+      public void write (@Nonnull final byte [] b, final int off, final int len) throws IOException
+      {
+        // Avoid the byte-by-byte default implementation
+        out.write (b, off, len);
+      }
+
       @Override
       public void close ()
       {
@@ -43,10 +43,12 @@ package com.helger.jcodemodel.writer;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.helger.jcodemodel.AbstractCodeWriter;
 import com.helger.jcodemodel.JPackage;
@@ -78,11 +80,35 @@ public class ZipCodeWriter extends AbstractCodeWriter
    */
   public ZipCodeWriter (@Nonnull final OutputStream target, @Nonnull final String sNewLine)
   {
-    super (null, sNewLine);
+    this (target, null, sNewLine);
+  }
+
+  /**
+   * @param target
+   *        Zip file will be written to this stream.
+   * @param encoding
+   *        The encoding of the source files. May be <code>null</code> for the
+   *        platform default.
+   * @param sNewLine
+   *        The new line string to be used for source files
+   * @since 3.0.0
+   */
+  public ZipCodeWriter (@Nonnull final OutputStream target,
+                        @Nullable final Charset encoding,
+                        @Nonnull final String sNewLine)
+  {
+    super (encoding, sNewLine);
     m_aZOS = new ZipOutputStream (target);
     // nullify the close method.
     m_aFOS = new FilterOutputStream (m_aZOS)
     {
+      @Override
+      public void write (@Nonnull final byte [] b, final int off, final int len) throws IOException
+      {
+        // Avoid the byte-by-byte default implementation
+        out.write (b, off, len);
+      }
+
       @Override
       public void close ()
       {}
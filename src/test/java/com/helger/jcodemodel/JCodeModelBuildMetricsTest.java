@@ -0,0 +1,117 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.helger.jcodemodel.fmt.JTextFile;
+import com.helger.jcodemodel.writer.OutputStreamCodeWriter;
+import com.helger.jcodemodel.writer.PrologCodeWriter;
+
+/**
+ * Test class for class {@link JCodeModelBuildMetrics}.
+ *
+ * @author Philip Helger
+ */
+public final class JCodeModelBuildMetricsTest
+{
+  @Test
+  public void testBuild () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    for (int i = 0; i < 5; ++i)
+      cm._class ("org.example.Class" + i).javadoc ().add ("Gr\u00fc\u00dfe");
+    cm._package ("org.example").javadoc ().add ("Package doc");
+    final JTextFile aTextFile = new JTextFile ("file.txt");
+    aTextFile.setContents ("abc");
+    cm._package ("org.example").addResourceFile (aTextFile);
+
+    final JCodeModelBuildMetrics aMetrics = new JCodeModelBuildMetrics (3);
+    cm.setBuildListener (aMetrics);
+
+    for (final boolean bParallel : new boolean [] { false, true })
+    {
+      aMetrics.reset ();
+      final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+      final OutputStreamCodeWriter aWriter = new OutputStreamCodeWriter (aBAOS, StandardCharsets.US_ASCII, "\n");
+      if (bParallel)
+        cm.build (aWriter, aWriter, 2);
+      else
+        cm.build (new PrologCodeWriter (aWriter, "Generated"), aWriter);
+
+      assertEquals (1, aMetrics.getBuildCount ());
+      assertEquals (5, aMetrics.getClassCount ());
+      // Classes and package-info
+      assertEquals (6, aMetrics.getSourceFileCount ());
+      assertEquals (1, aMetrics.getResourceCount ());
+      assertEquals (3, aMetrics.getResourceBytes ());
+      assertEquals (aBAOS.size (), aMetrics.getSourceBytes () + aMetrics.getResourceBytes ());
+      // The non-ASCII chars of the Javadoc are escaped
+      assertEquals (10, aMetrics.getEscapedCharCount ());
+
+      final List <JCodeModelBuildMetrics.ClassTiming> aSlowest = aMetrics.getSlowestClasses ();
+      assertEquals (3, aSlowest.size ());
+      assertTrue (aSlowest.get (0).getTotalNanos () >= aSlowest.get (2).getTotalNanos ());
+      assertTrue (aMetrics.getBuildNanos () > 0);
+    }
+
+    // The listener is removed from the writers after building
+    final OutputStreamCodeWriter aWriter = new OutputStreamCodeWriter (new ByteArrayOutputStream (),
+                                                                       StandardCharsets.UTF_8,
+                                                                       "\n");
+    cm.build (aWriter);
+    assertEquals (null, aWriter.getBuildListener ());
+
+    // A listener set by the caller is kept
+    final JCodeModelBuildMetrics aOwnListener = new JCodeModelBuildMetrics (1);
+    aWriter.setBuildListener (aOwnListener);
+    cm.build (aWriter);
+    assertSame (aOwnListener, aWriter.getBuildListener ());
+  }
+}
@@ -0,0 +1,264 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.jcodemodel.fmt.JTextFile;
+import com.helger.jcodemodel.writer.InMemoryCodeWriter;
+
+/**
+ * Test class for class {@link JCodeModelFragment}.
+ *
+ * @author Philip Helger
+ */
+public final class JCodeModelFragmentTest
+{
+  private static void _populate (@Nonnull final JCodeModelFragment aFragment,
+                                 final int nInput) throws JClassAlreadyExistsException
+  {
+    final JCodeModel cm = aFragment.owner ();
+    for (int i = 0; i < 20; ++i)
+    {
+      final JDefinedClass aClass = aFragment._class ("org.example.p" + (i % 3) + ".Input" + nInput + "Class" + i);
+      aClass.field (JMod.PRIVATE, cm.ref (List.class).narrow (String.class), "m_aList");
+      if (i > 0)
+        aClass._extends (aFragment._getClass ("org.example.p" + ((i - 1) % 3) + ".Input" + nInput + "Class" + (i - 1)));
+    }
+    final JTextFile aFile = new JTextFile ("input" + nInput + ".txt");
+    aFile.setContents ("Input " + nInput);
+    aFragment.addResourceFile (aFragment._package ("org.example"), aFile);
+  }
+
+  @Nonnull
+  private static Map <String, byte []> _build (@Nonnull final JCodeModel cm) throws Exception
+  {
+    final InMemoryCodeWriter aWriter = new InMemoryCodeWriter (StandardCharsets.UTF_8, "\n");
+    cm.build (aWriter);
+    return aWriter.getAllFiles ();
+  }
+
+  @Test
+  public void testForkJoin () throws Exception
+  {
+    final int nInputs = 16;
+    final JCodeModel cm = new JCodeModel ();
+    final List <ForkJoinTask <JCodeModelFragment>> aTasks = new ArrayList <> ();
+    for (int n = 0; n < nInputs; ++n)
+    {
+      final int nInput = n;
+      aTasks.add (ForkJoinPool.commonPool ().submit ( () -> {
+        final JCodeModelFragment aFragment = cm.createFragment ();
+        _populate (aFragment, nInput);
+        return aFragment;
+      }));
+    }
+    for (int n = 0; n < nInputs; ++n)
+    {
+      final JCodeModelFragment aFragment = aTasks.get (n).get ();
+      assertEquals (20, aFragment.getClassCount ());
+      // Not yet part of the model
+      final String sFirstClass = "org.example.p0.Input" + n + "Class0";
+      assertNotNull (aFragment._getClass (sFirstClass));
+      assertNull (cm._getClass (sFirstClass));
+      cm.merge (aFragment);
+      assertTrue (aFragment.isMerged ());
+      assertEquals (0, aFragment.getClassCount ());
+    }
+    assertEquals (nInputs * 20, cm.countArtifacts () - nInputs);
+
+    // Same result as building the classes directly in the model
+    final JCodeModel cm2 = new JCodeModel ();
+    for (int n = 0; n < nInputs; ++n)
+    {
+      final JCodeModelFragment aFragment = cm2.createFragment ();
+      _populate (aFragment, n);
+      cm2.merge (aFragment);
+    }
+    final Map <String, byte []> aFiles = _build (cm);
+    final Map <String, byte []> aFiles2 = _build (cm2);
+    assertEquals (aFiles2.keySet (), aFiles.keySet ());
+    for (final Map.Entry <String, byte []> aEntry : aFiles2.entrySet ())
+      assertArrayEquals (aEntry.getValue (), aFiles.get (aEntry.getKey ()));
+  }
+
+  @Test
+  public void testConflicts () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aExisting = cm._class ("org.example.b.Existing");
+
+    final JCodeModelFragment aFragment = cm.createFragment ();
+    final JDefinedClass aNew = aFragment._class ("org.example.a.New");
+    assertSame (cm._package ("org.example.a"), aNew._package ());
+    assertSame (cm, aNew.owner ());
+
+    // Duplicate within the fragment
+    try
+    {
+      aFragment._class ("org.example.a.New");
+      fail ();
+    }
+    catch (final JClassAlreadyExistsException ex)
+    {
+      assertSame (aNew, ex.getExistingClass ());
+    }
+
+    // Conflict with the model - nothing is merged
+    aFragment._class ("org.example.b.Existing");
+    try
+    {
+      cm.merge (aFragment);
+      fail ();
+    }
+    catch (final JClassAlreadyExistsException ex)
+    {
+      assertSame (aExisting, ex.getExistingClass ());
+    }
+    assertFalse (aFragment.isMerged ());
+    assertNull (cm._getClass ("org.example.a.New"));
+
+    // Conflict between two fragments
+    final JCodeModelFragment aFragment2 = cm.createFragment ();
+    aFragment2._class ("org.example.c.Same");
+    final JCodeModelFragment aFragment3 = cm.createFragment ();
+    aFragment3._class ("org.example.c.Same");
+    cm.merge (aFragment2);
+    try
+    {
+      cm.merge (aFragment3);
+      fail ();
+    }
+    catch (final JClassAlreadyExistsException ex)
+    {
+      assertSame (cm._getClass ("org.example.c.Same"), ex.getExistingClass ());
+    }
+
+    // A merged fragment cannot be used any more
+    try
+    {
+      aFragment2._class ("org.example.c.Other");
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testConcurrentConflicts () throws Exception
+  {
+    for (int nRun = 0; nRun < 500; ++nRun)
+    {
+      final JCodeModel cm = new JCodeModel ();
+
+      // Both fragments conflict in all packages, created in different order
+      final JCodeModelFragment aFragment1 = cm.createFragment ();
+      final JCodeModelFragment aFragment2 = cm.createFragment ();
+      for (int i = 0; i < 20; ++i)
+      {
+        aFragment1._class ("org.example.p" + i + ".Same");
+        aFragment2._class ("org.example.p" + (19 - i) + ".Same");
+      }
+      aFragment1._class ("org.example.c.Only1");
+      aFragment2._class ("org.example.c.Only2");
+
+      final CyclicBarrier aBarrier = new CyclicBarrier (2);
+      final Callable <Boolean> aMerge1 = () -> {
+        aBarrier.await ();
+        try
+        {
+          cm.merge (aFragment1);
+          return Boolean.TRUE;
+        }
+        catch (final JClassAlreadyExistsException ex)
+        {
+          return Boolean.FALSE;
+        }
+      };
+      final ForkJoinTask <Boolean> aTask1 = ForkJoinPool.commonPool ().submit (aMerge1);
+      aBarrier.await ();
+      boolean bMerged2;
+      try
+      {
+        cm.merge (aFragment2);
+        bMerged2 = true;
+      }
+      catch (final JClassAlreadyExistsException ex)
+      {
+        bMerged2 = false;
+      }
+      final boolean bMerged1 = aTask1.get ().booleanValue ();
+
+      // Exactly one fragment is merged - completely
+      assertTrue (bMerged1 != bMerged2);
+      assertEquals (bMerged1, aFragment1.isMerged ());
+      assertEquals (bMerged2, aFragment2.isMerged ());
+      assertEquals (bMerged1, cm._getClass ("org.example.c.Only1") != null);
+      assertEquals (bMerged2, cm._getClass ("org.example.c.Only2") != null);
+      for (int i = 0; i < 20; ++i)
+        assertNotNull (cm._getClass ("org.example.p" + i + ".Same"));
+      // The other fragment is unchanged
+      assertEquals (21, (bMerged1 ? aFragment2 : aFragment1).getClassCount ());
+    }
+  }
+}
@@ -40,16 +40,34 @@
  */
 package com.helger.jcodemodel;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnull;
 
 import org.junit.Test;
 
 import com.helger.jcodemodel.util.CodeModelTestsHelper;
+import com.helger.jcodemodel.writer.InMemoryCodeWriter;
+import com.helger.jcodemodel.writer.OutputStreamCodeWriter;
+import com.helger.jcodemodel.writer.SingleStreamCodeWriter;
 
 /**
  * @author Kohsuke Kawaguchi
@@ -104,4 +122,298 @@ public final class JCodeModelTest
     jClass.field (JMod.PRIVATE, cm.ref (Map.class).narrow (String.class), "strMap", JExpr._new (hashMap));
     CodeModelTestsHelper.printCodeModel (cm);
   }
+
+  @Test
+  public void testParallelBuild () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    for (int nPkg = 0; nPkg < 5; ++nPkg)
+    {
+      final JPackage aPkg = cm._package ("org.example.pkg" + nPkg);
+      aPkg.javadoc ().add ("Package " + nPkg);
+      for (int nClass = 0; nClass < 20; ++nClass)
+      {
+        final JDefinedClass aClass = aPkg._class ("Class" + nClass);
+        aClass.field (JMod.PRIVATE, cm.ref (List.class).narrow (String.class), "m_aList");
+        aClass.method (JMod.PUBLIC, cm.ref (Map.class).narrow (String.class, Integer.class), "get" + nClass)
+              .body ()
+              ._return (JExpr._null ());
+      }
+    }
+
+    final ByteArrayOutputStream aSequential = new ByteArrayOutputStream ();
+    cm.build (new SingleStreamCodeWriter (aSequential, "\n"));
+
+    final ByteArrayOutputStream aParallel = new ByteArrayOutputStream ();
+    final SingleStreamCodeWriter aParallelWriter = new SingleStreamCodeWriter (aParallel, "\n");
+    cm.build (aParallelWriter, aParallelWriter, 4);
+
+    assertEquals (aSequential.toString ("UTF-8"), aParallel.toString ("UTF-8"));
+  }
+
+  @Test
+  public void testDirectUTF8Encoding () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aClass = cm._class ("org.example.Grüße");
+    aClass.field (JMod.PUBLIC | JMod.STATIC | JMod.FINAL, String.class, "VALUE", JExpr.lit ("\u20ac \u0001"));
+
+    final ByteArrayOutputStream aDefault = new ByteArrayOutputStream ();
+    cm.build (new OutputStreamCodeWriter (aDefault, StandardCharsets.UTF_8, "\n"));
+
+    final ByteArrayOutputStream aDirect = new ByteArrayOutputStream ();
+    cm.build (new OutputStreamCodeWriter (aDirect, StandardCharsets.UTF_8, "\n").setDirectUTF8Encoding (true));
+
+    assertArrayEquals (aDefault.toByteArray (), aDirect.toByteArray ());
+  }
+
+  @Test
+  public void testEmitAndRelease () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aEmitted = cm._class ("org.example.one.Emitted");
+    aEmitted.field (JMod.PRIVATE, String.class, "m_sValue");
+    final JDefinedClass aInner = aEmitted._class (JMod.PUBLIC | JMod.STATIC, "Inner");
+
+    final InMemoryCodeWriter aCW = new InMemoryCodeWriter (StandardCharsets.UTF_8, "\n");
+    cm.emit (aEmitted, aCW);
+    assertTrue (aEmitted.isEmitted ());
+    assertTrue (aInner.isEmitted ());
+    assertTrue (aEmitted.fields ().isEmpty ());
+    assertEquals (1, aCW.getAllFiles ().size ());
+
+    // Reference the stubs from another class
+    final JDefinedClass aOther = cm._class ("org.example.two.Other");
+    aOther.field (JMod.PRIVATE, aEmitted, "m_aEmitted");
+    aOther.field (JMod.PRIVATE, aInner, "m_aInner");
+    assertEquals (1, cm.countArtifacts ());
+    cm.build (aCW);
+
+    assertEquals (2, aCW.getAllFiles ().size ());
+    final String sEmitted = new String (aCW.getFile ("org/example/one/Emitted.java"), StandardCharsets.UTF_8);
+    assertTrue (sEmitted.contains ("m_sValue"));
+    assertTrue (sEmitted.contains ("class Inner"));
+    final String sOther = new String (aCW.getFile ("org/example/two/Other.java"), StandardCharsets.UTF_8);
+    assertTrue (sOther.contains ("import org.example.one.Emitted;"));
+    assertTrue (sOther.contains ("Emitted.Inner m_aInner"));
+  }
+
+  @Test
+  public void testEmittedClassIsReadOnly () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aEmitted = cm._class ("org.example.Emitted", EClassType.ENUM);
+    aEmitted.enumConstant ("A");
+    cm.emit (aEmitted, new InMemoryCodeWriter (StandardCharsets.UTF_8, "\n"));
+
+    final List <Runnable> aModifications = new ArrayList <> ();
+    aModifications.add ( () -> aEmitted.enumConstant ("A"));
+    aModifications.add ( () -> aEmitted.enumConstant ("B"));
+    aModifications.add ( () -> aEmitted.field (JMod.PRIVATE, String.class, "m_sValue"));
+    aModifications.add ( () -> aEmitted.method (JMod.PUBLIC, void.class, "foo"));
+    aModifications.add ( () -> aEmitted.constructor (JMod.PUBLIC));
+    aModifications.add ( () -> aEmitted.javadoc ());
+    aModifications.add ( () -> aEmitted._implements (Runnable.class));
+    aModifications.add ( () -> aEmitted.annotate (Deprecated.class));
+    aModifications.add ( () -> aEmitted.init ());
+    for (final Runnable aModification : aModifications)
+    {
+      try
+      {
+        aModification.run ();
+        fail ();
+      }
+      catch (final IllegalStateException ex)
+      {
+        // expected
+      }
+    }
+    assertTrue (aEmitted.fields ().isEmpty ());
+    assertTrue (aEmitted.methods ().isEmpty ());
+  }
+
+  @Test
+  public void testErrorTypeRefs () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aFoo = cm._class ("org.example.Foo");
+    aFoo.field (JMod.PRIVATE, String.class, "m_sValue");
+    assertFalse (cm.buildsErrorTypeRefs ());
+    CodeModelTestsHelper.getAllBytes (cm);
+    assertFalse (cm.hasBuiltErrorTypeRefs ());
+
+    // Only referenced by a hidden class
+    final JDefinedClass aHidden = cm._class ("org.example.Hidden");
+    aHidden.hide ();
+    aHidden.field (JMod.PRIVATE, cm.errorClass ("hidden"), "m_aError");
+    assertFalse (cm.buildsErrorTypeRefs ());
+    CodeModelTestsHelper.getAllBytes (cm);
+    assertFalse (cm.hasBuiltErrorTypeRefs ());
+
+    aFoo.method (JMod.PUBLIC, void.class, "foo").body ().decl (cm.errorClass ("error"), "aError");
+    assertTrue (cm.buildsErrorTypeRefs ());
+    for (final boolean bParallel : new boolean [] { false, true })
+    {
+      final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+      final OutputStreamCodeWriter aWriter = new OutputStreamCodeWriter (aBAOS, StandardCharsets.UTF_8);
+      if (bParallel)
+        cm.build (aWriter, aWriter, 2);
+      else
+        cm.build (aWriter);
+      assertTrue (cm.hasBuiltErrorTypeRefs ());
+      assertTrue (aBAOS.toString ("UTF-8").contains ("Object aError"));
+    }
+
+    // Emitted classes are considered by the next build
+    cm.emit (aFoo, new OutputStreamCodeWriter (new ByteArrayOutputStream (), StandardCharsets.UTF_8));
+    CodeModelTestsHelper.getAllBytes (cm);
+    assertTrue (cm.hasBuiltErrorTypeRefs ());
+    CodeModelTestsHelper.getAllBytes (cm);
+    assertFalse (cm.hasBuiltErrorTypeRefs ());
+  }
+
+  @Test
+  public void testInternedTypes () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final AbstractJClass aList = cm.ref (List.class);
+    final AbstractJClass aString = cm.ref (String.class);
+
+    // Narrowed classes
+    assertSame (aList.narrow (aString), aList.narrow (String.class));
+    assertSame (aList.narrow (aString), aList.narrow (Arrays.asList (aString)));
+    assertSame (cm.ref (Map.class).narrow (aString, aString),
+                cm.ref (Map.class).narrow (aString).narrow (aString));
+    assertSame (aList.narrowEmpty (), aList.narrowEmpty ());
+    assertFalse (aList.narrow (aString) == aList.narrow (Integer.class));
+
+    // Wildcards and arrays
+    assertSame (aString.wildcard (), aList.narrow (aString).getTypeParameters ().get (0).wildcard ());
+    assertSame (aString.wildcardSuper (), aString.wildcardSuper ());
+    assertFalse (aString.wildcard () == aString.wildcardSuper ());
+    assertSame (cm.ref (String [].class), aString.array ());
+    assertSame (cm.ref (int [].class), cm.INT.array ());
+
+    // Defined classes are compared by identity
+    final JDefinedClass aClass = cm._class ("org.example.Foo");
+    assertSame (aList.narrow (aClass), aList.narrow (aClass));
+  }
+
+  @Test
+  public void testCachedTypeNames () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final AbstractJClass aEntry = cm.ref (Map.Entry.class);
+    assertEquals ("Entry", aEntry.name ());
+    assertEquals ("java.util.Map.Entry", aEntry.fullName ());
+    assertSame (aEntry.fullName (), aEntry.fullName ());
+    assertSame (cm._package ("java.util"), cm.ref (List.class)._package ());
+    assertSame (cm.ref (List.class)._package (), cm.ref (List.class)._package ());
+
+    final AbstractJClass aNarrowed = cm.ref (Map.class)
+                                       .narrow (cm.ref (String.class), cm.ref (List.class).narrow (aEntry.wildcard ()));
+    assertEquals ("Map<String,List<? extends Entry>>", aNarrowed.name ());
+    assertEquals ("java.util.Map<java.lang.String,java.util.List<? extends java.util.Map.Entry>>",
+                  aNarrowed.fullName ());
+    assertSame (aNarrowed.name (), aNarrowed.name ());
+    assertSame (aNarrowed.fullName (), aNarrowed.fullName ());
+  }
+
+  @Test
+  public void testRefByNameCache ()
+  {
+    final JCodeModel cm = new JCodeModel ();
+    assertSame (cm.ref (String.class), cm.ref ("java.lang.String"));
+
+    // Classes that cannot be loaded are cached as well
+    final AbstractJClass aUnknown = cm.ref ("org.example.unknown.DoesNotExist");
+    assertTrue (aUnknown instanceof JDirectClass);
+    assertEquals ("org.example.unknown.DoesNotExist", aUnknown.fullName ());
+    assertSame (aUnknown, cm.ref ("org.example.unknown.DoesNotExist"));
+    assertSame (aUnknown, cm.parseType ("org.example.unknown.DoesNotExist"));
+
+    cm.clearRefByNameCache ();
+    final AbstractJClass aUnknown2 = cm.ref ("org.example.unknown.DoesNotExist");
+    assertFalse (aUnknown == aUnknown2);
+    assertEquals (aUnknown.fullName (), aUnknown2.fullName ());
+    assertSame (cm.ref (String.class), cm.ref ("java.lang.String"));
+  }
+
+  private static void _populate (@Nonnull final JCodeModel cm, final int nThread) throws JClassAlreadyExistsException
+  {
+    // Own package
+    final JPackage aPkg = cm._package ("org.example.t" + nThread);
+    for (int i = 0; i < 50; ++i)
+    {
+      final JDefinedClass aClass = aPkg._class ("Class" + i);
+      aClass.field (JMod.PRIVATE,
+                    cm.ref (Map.class).narrow (cm.ref (String.class), cm.ref (List.class).narrow (Integer.class)),
+                    "m_aMap");
+      aClass.method (JMod.PUBLIC, cm.ref ("org.example.unknown.Type" + (i % 5)), "get").body ()._return (JExpr._null ());
+    }
+    // Shared package
+    cm._package ("org.example.shared")._class ("Class" + nThread).field (JMod.PRIVATE, int.class, "m_n");
+  }
+
+  @Test
+  public void testConcurrentConstruction () throws Exception
+  {
+    final int nThreads = 8;
+    final JCodeModel cm = new JCodeModel ();
+    final ExecutorService aES = Executors.newFixedThreadPool (nThreads);
+    try
+    {
+      final CountDownLatch aStart = new CountDownLatch (1);
+      final List <Future <AbstractJClass>> aResults = new ArrayList <> ();
+      for (int t = 0; t < nThreads; ++t)
+      {
+        final int nThread = t;
+        aResults.add (aES.submit ( () -> {
+          aStart.await ();
+          _populate (cm, nThread);
+          // All threads try to create the same class, only one may succeed
+          try
+          {
+            return cm._package ("org.example.shared")._class ("Common");
+          }
+          catch (final JClassAlreadyExistsException ex)
+          {
+            return null;
+          }
+        }));
+      }
+      aStart.countDown ();
+
+      int nCreated = 0;
+      for (final Future <AbstractJClass> aResult : aResults)
+        if (aResult.get () != null)
+          nCreated++;
+      assertEquals (1, nCreated);
+    }
+    finally
+    {
+      aES.shutdown ();
+    }
+
+    assertEquals (nThreads + 1, cm._package ("org.example.shared").classes ().size ());
+    for (int t = 0; t < nThreads; ++t)
+      assertEquals (50, cm._package ("org.example.t" + t).classes ().size ());
+    assertSame (cm.ref (List.class).narrow (Integer.class), cm.ref (List.class).narrow (Integer.class));
+
+    // Same result as single threaded construction
+    final JCodeModel cm2 = new JCodeModel ();
+    for (int t = 0; t < nThreads; ++t)
+      _populate (cm2, t);
+    cm2._package ("org.example.shared")._class ("Common");
+
+    final InMemoryCodeWriter aWriter = new InMemoryCodeWriter (StandardCharsets.UTF_8, "\n");
+    cm.build (aWriter);
+    final InMemoryCodeWriter aWriter2 = new InMemoryCodeWriter (StandardCharsets.UTF_8, "\n");
+    cm2.build (aWriter2);
+    final Map <String, byte []> aFiles = aWriter.getAllFiles ();
+    final Map <String, byte []> aFiles2 = aWriter2.getAllFiles ();
+    assertEquals (aFiles2.keySet (), aFiles.keySet ());
+    for (final Map.Entry <String, byte []> aEntry : aFiles2.entrySet ())
+      assertArrayEquals (aEntry.getValue (), aFiles.get (aEntry.getKey ()));
+  }
 }
@@ -40,7 +40,9 @@
  */
 package com.helger.jcodemodel;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
@@ -93,4 +95,32 @@ public final class JDefinedClassTest
                                                                                                    .get (1);
     assertNotNull (initializerDeclaration);
   }
+
+  @Test
+  public void testEstimateSourceSize () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass c = cm._package ("myPackage")._class (JMod.PUBLIC, "MyClass");
+    final int nEmpty = c.estimateSourceSize ();
+    assertTrue (nEmpty > 0);
+
+    c.field (JMod.PRIVATE, String.class, "myField");
+    final int nWithField = c.estimateSourceSize ();
+    assertTrue (nWithField > nEmpty);
+
+    final JMethod m = c.method (JMod.PUBLIC, int.class, "foo");
+    m.param (int.class, "a");
+    m.body ()._return (JExpr.lit (1));
+    final int nWithMethod = c.estimateSourceSize ();
+    assertTrue (nWithMethod > nWithField);
+
+    // Inner classes count for the outer class
+    c._class (JMod.STATIC, "Inner").field (JMod.PRIVATE, int.class, "x");
+    assertTrue (c.estimateSourceSize () > nWithMethod);
+
+    // Estimating is no modification
+    final long nStamp = c.getModificationStamp ();
+    c.estimateSourceSize ();
+    assertEquals (nStamp, c.getModificationStamp ());
+  }
 }
@@ -0,0 +1,193 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link JFormatter}.
+ *
+ * @author Philip Helger
+ */
+public final class JFormatterTest
+{
+  @Nonnull
+  private static String _render (@Nonnull final JDefinedClass aClass, final boolean bFullyQualifiedNames)
+  {
+    final StringWriter aSW = new StringWriter ();
+    try (final JFormatter f = new JFormatter (aSW, JFormatter.DEFAULT_INDENT_SPACE, "\n"))
+    {
+      f.setFullyQualifiedNames (bFullyQualifiedNames);
+      f.write (aClass);
+    }
+    return aSW.toString ();
+  }
+
+  @Nonnull
+  private static String _render (@Nonnull final JDefinedClass aClass)
+  {
+    return _render (aClass, false);
+  }
+
+  @Test
+  public void testVariableNameCollision () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aClass = cm._class ("org.example.Foo");
+    aClass.field (JMod.PRIVATE, java.util.List.class, "List");
+    aClass.field (JMod.PRIVATE, java.util.Map.class, "m_aMap");
+
+    final String sRendered = _render (aClass);
+    assertFalse (sRendered.contains ("import java.util.List;"));
+    assertTrue (sRendered.contains ("private java.util.List List;"));
+    assertTrue (sRendered.contains ("import java.util.Map;"));
+    assertTrue (sRendered.contains ("private Map m_aMap;"));
+  }
+
+  @Test
+  public void testAmbiguousShortNames () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aClass = cm._class ("org.example.Foo");
+    aClass.field (JMod.PRIVATE, java.util.Date.class, "m_aDate1");
+    aClass.field (JMod.PRIVATE, java.sql.Date.class, "m_aDate2");
+    aClass.field (JMod.PRIVATE, java.util.Date.class, "m_aDate3");
+    aClass.field (JMod.PRIVATE, java.util.List.class, "m_aList");
+
+    final String sRendered = _render (aClass);
+    assertFalse (sRendered.contains ("import java.util.Date;"));
+    assertTrue (sRendered.contains ("private java.util.Date m_aDate1;"));
+    assertTrue (sRendered.contains ("private java.sql.Date m_aDate2;"));
+    assertTrue (sRendered.contains ("import java.util.List;"));
+    assertTrue (sRendered.contains ("private List m_aList;"));
+  }
+
+  @Test
+  public void testFullyQualifiedNames () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aOther = cm._class ("org.example.Other");
+    final JDefinedClass aClass = cm._class ("org.example.Foo");
+    final JDefinedClass aInner = aClass._class (JMod.PUBLIC | JMod.STATIC, "Inner");
+    aClass.field (JMod.PRIVATE, java.util.List.class, "m_aList");
+    aClass.field (JMod.PRIVATE, String.class, "m_sValue");
+    aClass.field (JMod.PRIVATE, aOther, "m_aOther");
+    aClass.field (JMod.PRIVATE, aClass, "m_aSelf");
+    aClass.field (JMod.PRIVATE, aInner, "m_aInner");
+
+    final String sRendered = _render (aClass, true);
+    assertFalse (sRendered.contains ("import"));
+    assertTrue (sRendered.contains ("private java.util.List m_aList;"));
+    assertTrue (sRendered.contains ("private String m_sValue;"));
+    assertTrue (sRendered.contains ("private org.example.Other m_aOther;"));
+    assertTrue (sRendered.contains ("private Foo m_aSelf;"));
+    assertTrue (sRendered.contains ("private Foo.Inner m_aInner;"));
+  }
+
+  @Test
+  public void testShadowedJavaLangClass () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    cm._class ("org.example.String");
+    final JDefinedClass aClass = cm._class ("org.example.Foo");
+    aClass.field (JMod.PRIVATE, String.class, "m_sValue");
+    aClass.field (JMod.PRIVATE, Integer.class, "m_aValue");
+
+    for (final boolean bFullyQualifiedNames : new boolean [] { true, false })
+    {
+      final String sRendered = _render (aClass, bFullyQualifiedNames);
+      assertTrue (sRendered, sRendered.contains ("private java.lang.String m_sValue;"));
+      assertTrue (sRendered, sRendered.contains ("private Integer m_aValue;"));
+    }
+  }
+
+  @Test
+  public void testReset () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aFoo = cm._class ("org.example.Foo");
+    aFoo.field (JMod.PRIVATE, java.util.List.class, "m_aList");
+    aFoo.method (JMod.PUBLIC, void.class, "foo").body ().decl (cm.ref (java.util.Map.class), "aMap");
+    final JDefinedClass aBar = cm._class ("org.example.Bar");
+    aBar.field (JMod.PRIVATE, java.awt.List.class, "m_aList");
+
+    final StringWriter aSW1 = new StringWriter ();
+    final StringWriter aSW2 = new StringWriter ();
+    final JFormatter f = new JFormatter (new SourcePrintWriter (aSW1, "\n"), JFormatter.DEFAULT_INDENT_SPACE);
+    f.write (aFoo);
+    f.reset (new SourcePrintWriter (aSW2, "\n")).write (aBar);
+
+    // No imports or indentation leak into the second class
+    assertEquals (_render (aFoo), aSW1.toString ());
+    assertEquals (_render (aBar), aSW2.toString ());
+    assertTrue (aSW2.toString ().contains ("import java.awt.List;"));
+    assertFalse (aSW2.toString ().contains ("java.util"));
+  }
+
+  @Test
+  public void testCompact () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aClass = cm._class ("org.example.Foo");
+    aClass.javadoc ().add ("Javadoc");
+    aClass.annotate (Deprecated.class);
+    final JMethod aMethod = aClass.method (JMod.PUBLIC, int.class, "foo");
+    aMethod.body ().add (new JSingleLineCommentStatement ("Comment"));
+    aMethod.body ()._return (JExpr.lit (1));
+
+    final StringWriter aSW = new StringWriter ();
+    try (final JFormatter f = new JFormatter (aSW, JFormatter.DEFAULT_INDENT_SPACE, "\n"))
+    {
+      f.setCompact (true);
+      f.write (aClass);
+    }
+    assertEquals ("package org.example;@Deprecated public class Foo {public int foo() {return  1;}}",
+                  aSW.toString ());
+  }
+}
@@ -0,0 +1,144 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.helger.jcodemodel.util.CodeModelTestsHelper;
+
+/**
+ * Test class for class {@link JImportPlanCache}.
+ *
+ * @author Philip Helger
+ */
+public final class JImportPlanCacheTest
+{
+  @Test
+  public void testRebuild () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aFoo = cm._class ("org.example.Foo");
+    aFoo.field (JMod.PRIVATE, List.class, "m_aList");
+    final JDefinedClass aBar = cm._class ("org.example.sub.Bar");
+    final JMethod aMethod = aBar.method (JMod.PUBLIC, aFoo, "getFoo");
+    final JBlock aBody = aMethod.body ();
+    aBody._return (JExpr._null ());
+
+    final JImportPlanCache aCache = new JImportPlanCache ();
+    cm.setImportPlanCache (aCache);
+
+    final byte [] aFirst = CodeModelTestsHelper.getAllBytes (cm);
+    assertEquals (0, aCache.getHitCount ());
+    assertEquals (2, aCache.getMissCount ());
+    assertEquals (2, aCache.size ());
+
+    // Nothing changed - same output without collecting
+    assertArrayEquals (aFirst, CodeModelTestsHelper.getAllBytes (cm));
+    assertEquals (2, aCache.getHitCount ());
+    assertEquals (2, aCache.getMissCount ());
+
+    // Tracked modification
+    aFoo.field (JMod.PRIVATE, Date.class, "m_aDate");
+    String sOutput = new String (CodeModelTestsHelper.getAllBytes (cm), StandardCharsets.UTF_8);
+    assertTrue (sOutput.contains ("import java.util.Date;"));
+    // Bar references Foo
+    assertEquals (2, aCache.getHitCount ());
+    assertEquals (4, aCache.getMissCount ());
+
+    // Modification of a retained method body
+    aBody.decl (cm.ref (StringBuilder.class), "aSB");
+    aBody.decl (cm.ref (java.util.Map.class), "aMap");
+    sOutput = new String (CodeModelTestsHelper.getAllBytes (cm), StandardCharsets.UTF_8);
+    assertTrue (sOutput.contains ("import java.util.Map;"));
+    assertEquals (3, aCache.getHitCount ());
+    assertEquals (5, aCache.getMissCount ());
+
+    // A modified inner class invalidates the outer class and all referencing
+    // classes
+    final JDefinedClass aInner = aFoo._class (JMod.PUBLIC | JMod.STATIC, "Inner");
+    CodeModelTestsHelper.getAllBytes (cm);
+    final long nMisses = aCache.getMissCount ();
+    aInner.field (JMod.PRIVATE, java.util.Set.class, "m_aSet");
+    sOutput = new String (CodeModelTestsHelper.getAllBytes (cm), StandardCharsets.UTF_8);
+    assertTrue (sOutput.contains ("import java.util.Set;"));
+    // Foo and Bar
+    assertEquals (nMisses + 2, aCache.getMissCount ());
+
+    // Modifying the referenced class Foo invalidates Bar as well
+    final long nMisses2 = aCache.getMissCount ();
+    aFoo.markModified ();
+    CodeModelTestsHelper.getAllBytes (cm);
+    assertEquals (nMisses2 + 2, aCache.getMissCount ());
+
+    aCache.clear ();
+    assertEquals (0, aCache.size ());
+    assertEquals (0, aCache.getHitCount ());
+  }
+
+  @Test
+  public void testPackageModification () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aFoo = cm._class ("org.example.Foo");
+    aFoo.field (JMod.PRIVATE, String.class, "m_sValue");
+    cm.setImportPlanCache (new JImportPlanCache ());
+
+    final JImportPlanCache aCache = cm.getImportPlanCache ();
+    CodeModelTestsHelper.getAllBytes (cm);
+    CodeModelTestsHelper.getAllBytes (cm);
+    assertEquals (1, aCache.getHitCount ());
+    assertEquals (1, aCache.getMissCount ());
+
+    // A new class in the same package may collide with a referenced class
+    cm._class ("org.example.Bar");
+    CodeModelTestsHelper.getAllBytes (cm);
+    assertEquals (1, aCache.getHitCount ());
+    assertEquals (3, aCache.getMissCount ());
+  }
+}
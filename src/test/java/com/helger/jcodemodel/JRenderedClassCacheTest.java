@@ -0,0 +1,266 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.jcodemodel.writer.OutputStreamCodeWriter;
+
+/**
+ * Test class for class {@link JRenderedClassCache}.
+ *
+ * @author Philip Helger
+ */
+public final class JRenderedClassCacheTest
+{
+  private static byte [] _build (@Nonnull final JCodeModel cm, final boolean bParallel) throws Exception
+  {
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    final OutputStreamCodeWriter aWriter = new OutputStreamCodeWriter (aBAOS, StandardCharsets.UTF_8, "\n");
+    if (bParallel)
+      cm.build (aWriter, aWriter, 2);
+    else
+      cm.build (aWriter);
+    return aBAOS.toByteArray ();
+  }
+
+  @Test
+  public void testRebuild () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aFoo = cm._class ("org.example.Foo");
+    aFoo.javadoc ().add ("Foo");
+    final JFieldVar aField = aFoo.field (JMod.PRIVATE, cm.ref (List.class).narrow (String.class), "m_aList");
+    aField.init (JExpr._new (cm.ref (ArrayList.class).narrowEmpty ()));
+    final JMethod aMethod = aFoo.method (JMod.PUBLIC, int.class, "size");
+    aMethod.javadoc ().addReturn ().add ("The size");
+    aMethod.body ()._return (aField.invoke ("size"));
+    aFoo._class (JMod.PUBLIC | JMod.STATIC, "Inner").init ().assign (JExpr.ref ("x"), JExpr.lit (1));
+    final JDefinedClass aEnum = cm._package ("org.example")._enum ("EColor");
+    aEnum.enumConstant ("RED");
+    aEnum.enumConstant ("GREEN");
+    final JDefinedClass aBar = cm._class ("org.example.sub.Bar");
+    aBar.method (JMod.PUBLIC, aFoo, "getFoo").body ()._return (JExpr._new (aFoo));
+
+    final byte [] aUncached = _build (cm, false);
+
+    final JRenderedClassCache aCache = new JRenderedClassCache ();
+    cm.setRenderedClassCache (aCache);
+    for (final boolean bParallel : new boolean [] { false, true })
+    {
+      aCache.clear ();
+      assertArrayEquals (aUncached, _build (cm, bParallel));
+      assertEquals (0, aCache.getHitCount ());
+      assertEquals (3, aCache.getMissCount ());
+      assertEquals (3, aCache.size ());
+
+      // Building does not modify anything
+      assertArrayEquals (aUncached, _build (cm, bParallel));
+      assertEquals (3, aCache.getHitCount ());
+      assertEquals (3, aCache.getMissCount ());
+    }
+
+    // Modifying a method body re-renders the class and all referencing classes
+    aMethod.body ().directStatement ("// changed");
+    String sOutput = new String (_build (cm, false), StandardCharsets.UTF_8);
+    assertTrue (sOutput.contains ("// changed"));
+    assertEquals (4, aCache.getHitCount ());
+    assertEquals (5, aCache.getMissCount ());
+
+    // Modification of a retained block
+    final JBlock aBody = aMethod.body ();
+    _build (cm, false);
+    aBody.directStatement ("// retained");
+    sOutput = new String (_build (cm, false), StandardCharsets.UTF_8);
+    assertTrue (sOutput.contains ("// retained"));
+
+    // A different newline requires rendering
+    final long nMisses = aCache.getMissCount ();
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    cm.build (new OutputStreamCodeWriter (aBAOS, StandardCharsets.UTF_8, "\r\n"));
+    assertTrue (new String (aBAOS.toByteArray (), StandardCharsets.UTF_8).contains ("\r\n"));
+    assertEquals (nMisses + 3, aCache.getMissCount ());
+  }
+
+  private static void _assertRendered (@Nonnull final JCodeModel cm, @Nonnull final String sExpected) throws Exception
+  {
+    final String sOutput = new String (_build (cm, false), StandardCharsets.UTF_8);
+    assertTrue (sExpected, sOutput.contains (sExpected));
+  }
+
+  @Test
+  public void testRetainedParts () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aFoo = cm._class ("org.example.Foo");
+    final JDocComment aHeader = aFoo.headerComment ();
+    final JAnnotationUse aAnnotation = aFoo.annotate (SuppressWarnings.class);
+    final JMethod aMethod = aFoo.method (JMod.PUBLIC, void.class, "run");
+    final JVar aParam = aMethod.param (int.class, "n");
+    final JCommentPart aReturn = aMethod.javadoc ().addReturn ();
+    final JBlock aBody = aMethod.body ();
+    final JVar aLocal = aBody.decl (cm.INT, "x");
+    final JConditional aIf = aBody._if (aParam.gt (JExpr.lit (0)));
+    final JWhileLoop aLoop = aIf._then ()._while (JExpr.TRUE);
+    final JInvocation aInvocation = aBody.invoke ("foo");
+    final JDefinedClass aEnum = cm._package ("org.example")._enum ("EColor");
+    final JEnumConstant aRed = aEnum.enumConstant ("RED");
+
+    final JRenderedClassCache aCache = new JRenderedClassCache ();
+    cm.setRenderedClassCache (aCache);
+    _build (cm, false);
+    _build (cm, false);
+    assertEquals (2, aCache.getHitCount ());
+
+    aHeader.add ("License header");
+    _assertRendered (cm, "License header");
+
+    aAnnotation.param ("value", "unchecked");
+    _assertRendered (cm, "\"unchecked\"");
+
+    aMethod.mods ().setFinal (true);
+    _assertRendered (cm, "public final void run(");
+
+    aParam.annotate (Deprecated.class);
+    _assertRendered (cm, "@Deprecated");
+
+    aReturn.add ("Nothing");
+    _assertRendered (cm, "Nothing");
+
+    aLocal.init (JExpr.lit (42));
+    _assertRendered (cm, "int x = 42;");
+
+    aLoop.body ().directStatement ("// nested");
+    _assertRendered (cm, "// nested");
+
+    aIf._else ().directStatement ("// else");
+    _assertRendered (cm, "// else");
+
+    aInvocation.arg ("late");
+    _assertRendered (cm, "foo(\"late\")");
+
+    aRed.arg (JExpr.lit (7));
+    _assertRendered (cm, "RED(7)");
+  }
+
+  @Test
+  public void testAnonymousClass () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aClass = cm._class ("org.example.A");
+    final JBlock aBody = aClass.method (JMod.PUBLIC, void.class, "f").body ();
+    final JAnonymousClass aRunnable = cm.anonymousClass (Runnable.class);
+    aBody.decl (cm.ref (Runnable.class), "r", JExpr._new (aRunnable));
+    final JAnonymousClass aCallable = cm.anonymousClass (cm.ref (Callable.class).narrow (String.class));
+    aBody.invoke ("submit").arg (JExpr._new (aCallable));
+
+    cm.setImportPlanCache (new JImportPlanCache ());
+    cm.setRenderedClassCache (new JRenderedClassCache ());
+    _build (cm, false);
+
+    aRunnable.method (JMod.PUBLIC, void.class, "run").body ().directStatement ("// in run");
+    _assertRendered (cm, "// in run");
+
+    aCallable.method (JMod.PUBLIC, String.class, "call").param (Map.class, "aMap");
+    _assertRendered (cm, "import java.util.Map;");
+  }
+
+  @Test
+  public void testRemovedClassIsEvicted () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aFoo = cm._class ("org.example.Foo");
+    cm._class ("org.example.Bar");
+    final JRenderedClassCache aCache = new JRenderedClassCache ();
+    cm.setRenderedClassCache (aCache);
+    _build (cm, false);
+    assertEquals (2, aCache.size ());
+
+    aFoo._package ().remove (aFoo);
+    assertEquals (1, aCache.size ());
+  }
+
+  @Test
+  public void testFullyQualifiedNames () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    cm.setBuildingFullyQualifiedNames (true);
+    final JDefinedClass aFoo = cm._class ("org.example.Foo");
+    final JDefinedClass aBar = cm._class ("org.example.sub.Bar");
+    aBar.field (JMod.PRIVATE, aFoo, "m_aFoo");
+    final JRenderedClassCache aCache = new JRenderedClassCache ();
+    cm.setRenderedClassCache (aCache);
+    _build (cm, false);
+    assertEquals (2, aCache.getMissCount ());
+
+    // Bar references Foo, so both are rendered again
+    aFoo.markModified ();
+    _build (cm, false);
+    assertEquals (4, aCache.getMissCount ());
+  }
+
+  @Test
+  public void testEmitted () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    cm.setRenderedClassCache (new JRenderedClassCache ());
+    final JDefinedClass aFoo = cm._class ("org.example.Foo");
+    aFoo.method (JMod.PUBLIC, void.class, "foo");
+
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    final OutputStreamCodeWriter aWriter = new OutputStreamCodeWriter (aBAOS, StandardCharsets.UTF_8, "\n");
+    cm.emit (aFoo, aWriter);
+    assertTrue (new String (aBAOS.toByteArray (), StandardCharsets.UTF_8).contains ("public void foo()"));
+  }
+}
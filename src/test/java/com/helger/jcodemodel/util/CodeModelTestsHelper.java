@@ -46,6 +46,7 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.nio.charset.Charset;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 import com.github.javaparser.JavaParser;
@@ -54,8 +55,12 @@ import com.helger.jcodemodel.IJDeclaration;
 import com.helger.jcodemodel.IJExpression;
 import com.helger.jcodemodel.IJGenerable;
 import com.helger.jcodemodel.IJStatement;
+import com.helger.jcodemodel.JClassAlreadyExistsException;
 import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JDefinedClass;
 import com.helger.jcodemodel.JFormatter;
+import com.helger.jcodemodel.JMod;
+import com.helger.jcodemodel.fmt.JTextFile;
 import com.helger.jcodemodel.writer.OutputStreamCodeWriter;
 import com.helger.jcodemodel.writer.SingleStreamCodeWriter;
 
@@ -174,6 +179,31 @@ public final class CodeModelTestsHelper
     }
   }
 
+  /**
+   * Create a model with classes in 3 packages and a resource file
+   * <code>org/example/file.txt</code>, e.g. to test code writers.
+   *
+   * @param nClasses
+   *        The number of classes to create.
+   * @return The new code model. Never <code>null</code>.
+   * @throws JClassAlreadyExistsException
+   *         Never
+   */
+  @Nonnull
+  public static JCodeModel createMultiPackageModel (@Nonnegative final int nClasses) throws JClassAlreadyExistsException
+  {
+    final JCodeModel cm = new JCodeModel ();
+    for (int i = 0; i < nClasses; ++i)
+    {
+      final JDefinedClass aClass = cm._class ("org.example.p" + (i % 3) + ".Class" + i);
+      aClass.field (JMod.PRIVATE, String.class, "m_sValue" + i);
+    }
+    final JTextFile aTextFile = new JTextFile ("file.txt");
+    aTextFile.setContents ("abc");
+    cm._package ("org.example").addResourceFile (aTextFile);
+    return cm;
+  }
+
   @Nonnull
   public static CompilationUnit parseCodeModel (@Nonnull final JCodeModel cm) throws IOException
   {
@@ -0,0 +1,102 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link JavaUnicodeEscapeWriter}.
+ *
+ * @author Philip Helger
+ */
+public final class JavaUnicodeEscapeWriterTest
+{
+  @Nonnull
+  private static String _escape (@Nonnull final String s, @Nonnull final Charset aCharset) throws IOException
+  {
+    final StringWriter aSW = new StringWriter ();
+    try (final JavaUnicodeEscapeWriter w = new JavaUnicodeEscapeWriter (aSW, aCharset))
+    {
+      w.write (s);
+    }
+    return aSW.toString ();
+  }
+
+  @Test
+  public void testAscii () throws IOException
+  {
+    assertEquals ("", _escape ("", StandardCharsets.US_ASCII));
+    assertEquals ("abc\tdef\r\n", _escape ("abc\tdef\r\n", StandardCharsets.US_ASCII));
+    assertEquals ("a\\u0000b\\u001f", _escape ("a\u0000b\u001f", StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void testNonAscii () throws IOException
+  {
+    final String s = "Grüße €";
+    assertEquals ("Gr\\u00fc\\u00dfe \\u20ac", _escape (s, StandardCharsets.US_ASCII));
+    assertEquals ("Grüße \\u20ac", _escape (s, StandardCharsets.ISO_8859_1));
+    assertEquals (s, _escape (s, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testSlices () throws IOException
+  {
+    final StringWriter aSW = new StringWriter ();
+    try (final JavaUnicodeEscapeWriter w = new JavaUnicodeEscapeWriter (aSW, StandardCharsets.US_ASCII))
+    {
+      w.write ("xxäbc\u0001yy", 2, 5);
+      w.write ("äbc".toCharArray (), 0, 2);
+      w.write ('ä');
+      w.write ('z');
+    }
+    assertEquals ("\\u00e4bc\\u0001y\\u00e4b\\u00e4z", aSW.toString ());
+  }
+}
@@ -0,0 +1,91 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link UTF8EscapeByteArrayWriter}.
+ *
+ * @author Philip Helger
+ */
+public final class UTF8EscapeByteArrayWriterTest
+{
+  @Nonnull
+  private static byte [] _encodeWithWriterStack (@Nonnull final String s) throws IOException
+  {
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    try (final Writer w = new JavaUnicodeEscapeWriter (new OutputStreamWriter (aBAOS, StandardCharsets.UTF_8),
+                                                       StandardCharsets.UTF_8))
+    {
+      w.write (s);
+    }
+    return aBAOS.toByteArray ();
+  }
+
+  @Test
+  public void testSameAsWriterStack () throws IOException
+  {
+    final String s = "class Grüße { String s = \"\u0001\t€😀߿ࠀ￿\"; }\r\n";
+    try (final UTF8EscapeByteArrayWriter w = new UTF8EscapeByteArrayWriter (4))
+    {
+      w.write (s);
+      assertArrayEquals (_encodeWithWriterStack (s), w.toByteArray ());
+
+      w.reset ();
+      assertEquals (0, w.size ());
+      w.write (s.toCharArray ());
+      w.write ('\u0002');
+      assertArrayEquals (_encodeWithWriterStack (s + '\u0002'), w.toByteArray ());
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.jcodemodel.AbstractCodeWriter;
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JPackage;
+import com.helger.jcodemodel.util.CodeModelTestsHelper;
+
+/**
+ * Test class for class {@link AsyncCodeWriter}.
+ *
+ * @author Philip Helger
+ */
+public final class AsyncCodeWriterTest
+{
+  @Test
+  public void testSameContentAsCore () throws Exception
+  {
+    final JCodeModel cm = CodeModelTestsHelper.createMultiPackageModel (50);
+
+    final InMemoryCodeWriter aExpected = new InMemoryCodeWriter (StandardCharsets.UTF_8, "\n");
+    cm.build (aExpected);
+
+    final InMemoryCodeWriter aCore = new InMemoryCodeWriter (StandardCharsets.UTF_8, "\n");
+    // Small queue to test the blocking
+    cm.build (new AsyncCodeWriter (aCore, 2));
+
+    final Map <String, byte []> aExpectedFiles = aExpected.getAllFiles ();
+    final Map <String, byte []> aFiles = aCore.getAllFiles ();
+    // Same order
+    assertEquals (aExpectedFiles.keySet ().toString (), aFiles.keySet ().toString ());
+    for (final Map.Entry <String, byte []> aEntry : aExpectedFiles.entrySet ())
+      assertArrayEquals (aEntry.getValue (), aFiles.get (aEntry.getKey ()));
+  }
+
+  @Test
+  public void testErrorOnClose () throws Exception
+  {
+    final JCodeModel cm = CodeModelTestsHelper.createMultiPackageModel (50);
+    final boolean [] aCoreClosed = { false };
+    final AbstractCodeWriter aFailingCore = new InMemoryCodeWriter (StandardCharsets.UTF_8, "\n")
+    {
+      @Override
+      public OutputStream openBinary (@Nonnull final JPackage pkg, @Nonnull final String fileName) throws IOException
+      {
+        throw new IOException ("Failed to open " + fileName);
+      }
+
+      @Override
+      public void close ()
+      {
+        aCoreClosed[0] = true;
+      }
+    };
+
+    try
+    {
+      cm.build (new AsyncCodeWriter (aFailingCore, 2));
+      fail ();
+    }
+    catch (final IOException ex)
+    {
+      assertTrue (ex.getMessage ().startsWith ("Failed to open "));
+    }
+    assertTrue (aCoreClosed[0]);
+  }
+
+  @Test
+  public void testInterruptedClose () throws Exception
+  {
+    final CountDownLatch aRelease = new CountDownLatch (1);
+    final AtomicBoolean aWriting = new AtomicBoolean (false);
+    final AtomicBoolean aClosedWhileWriting = new AtomicBoolean (false);
+    final AbstractCodeWriter aSlowCore = new InMemoryCodeWriter (StandardCharsets.UTF_8, "\n")
+    {
+      @Override
+      public OutputStream openBinary (@Nonnull final JPackage pkg, @Nonnull final String fileName) throws IOException
+      {
+        aWriting.set (true);
+        // Like blocking IO, that ignores interrupts
+        while (true)
+          try
+          {
+            aRelease.await ();
+            break;
+          }
+          catch (final InterruptedException ex)
+          {
+            // ignore
+          }
+        aWriting.set (false);
+        return super.openBinary (pkg, fileName);
+      }
+
+      @Override
+      public void close ()
+      {
+        aClosedWhileWriting.set (aWriting.get ());
+      }
+    };
+
+    final AsyncCodeWriter aCW = new AsyncCodeWriter (aSlowCore, 2);
+    aCW.openBinary (new JCodeModel ().rootPackage (), "file.txt").close ();
+
+    final Thread aReleaser = new Thread ( () -> {
+      try
+      {
+        Thread.sleep (100);
+      }
+      catch (final InterruptedException ex)
+      {
+        // ignore
+      }
+      aRelease.countDown ();
+    });
+    aReleaser.start ();
+
+    Thread.currentThread ().interrupt ();
+    try
+    {
+      aCW.close ();
+      fail ();
+    }
+    catch (final InterruptedIOException ex)
+    {
+      // expected
+    }
+    finally
+    {
+      // Clears the flag as well
+      assertTrue (Thread.interrupted ());
+      aReleaser.join ();
+    }
+    // The core was only closed after the background thread finished
+    assertFalse (aClosedWhileWriting.get ());
+  }
+}
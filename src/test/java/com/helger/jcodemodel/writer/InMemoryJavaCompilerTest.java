@@ -0,0 +1,195 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JDefinedClass;
+import com.helger.jcodemodel.JExpr;
+import com.helger.jcodemodel.JMethod;
+import com.helger.jcodemodel.JMod;
+import com.helger.jcodemodel.JSingleLineCommentStatement;
+import com.helger.jcodemodel.JVar;
+import com.helger.jcodemodel.fmt.JTextFile;
+
+/**
+ * Test class for class {@link InMemoryJavaCompiler}.
+ *
+ * @author Philip Helger
+ */
+public final class InMemoryJavaCompilerTest
+{
+  @Nonnull
+  private static String _readAll (@Nonnull final InputStream aIS) throws IOException
+  {
+    try (final InputStream aCloseable = aIS)
+    {
+      final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+      final byte [] aBuffer = new byte [1024];
+      int nRead;
+      while ((nRead = aCloseable.read (aBuffer)) >= 0)
+        aBAOS.write (aBuffer, 0, nRead);
+      return new String (aBAOS.toByteArray (), StandardCharsets.UTF_8);
+    }
+  }
+
+  @Test
+  public void testCompileAndLoad () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aHelper = cm._class ("org.example.Helper");
+    aHelper.method (JMod.PUBLIC | JMod.STATIC, String.class, "getValue").body ()._return (JExpr.lit ("Hello"));
+
+    final JDefinedClass aClass = cm._class ("org.example.Greeter");
+    aClass._implements (cm.ref (Callable.class).narrow (String.class));
+    final JMethod aCall = aClass.method (JMod.PUBLIC, String.class, "call");
+    aCall.body ()._return (aHelper.staticInvoke ("getValue").plus (JExpr.lit (" World")));
+
+    final JTextFile aTextFile = new JTextFile ("data.txt");
+    aTextFile.setContents ("abc");
+    cm._package ("org.example").addResourceFile (aTextFile);
+
+    final ClassLoader aCL = InMemoryJavaCompiler.compile (cm, getClass ().getClassLoader ());
+    @SuppressWarnings ("unchecked")
+    final Callable <String> aCallable = (Callable <String>) aCL.loadClass ("org.example.Greeter").newInstance ();
+    assertEquals ("Hello World", aCallable.call ());
+    assertNotNull (aCL.getResourceAsStream ("org/example/data.txt"));
+  }
+
+  @Test
+  public void testResources () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    cm._class ("org.example.Dummy");
+    final JTextFile aTextFile = new JTextFile ("data.txt");
+    aTextFile.setContents ("abc");
+    cm._package ("org.example").addResourceFile (aTextFile);
+
+    final ClassLoader aCL = InMemoryJavaCompiler.compile (cm, getClass ().getClassLoader ());
+    assertEquals ("abc", _readAll (aCL.getResourceAsStream ("org/example/data.txt")));
+
+    final URL aURL = aCL.getResource ("org/example/data.txt");
+    assertNotNull (aURL);
+    assertEquals ("abc", _readAll (aURL.openStream ()));
+
+    final Enumeration <URL> aURLs = aCL.getResources ("org/example/data.txt");
+    assertTrue (aURLs.hasMoreElements ());
+    assertEquals ("abc", _readAll (aURLs.nextElement ().openStream ()));
+    assertFalse (aURLs.hasMoreElements ());
+
+    assertNull (aCL.getResource ("org/example/other.txt"));
+    assertNull (aCL.getResourceAsStream ("org/example/other.txt"));
+    assertFalse (aCL.getResources ("org/example/other.txt").hasMoreElements ());
+  }
+
+  @Test
+  public void testCompileFullyQualifiedNames () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    cm.setBuildingFullyQualifiedNames (true);
+    final JDefinedClass aClass = cm._class ("org.example.Greeter");
+    aClass._implements (cm.ref (Callable.class).narrow (String.class));
+    final JMethod aCall = aClass.method (JMod.PUBLIC, String.class, "call");
+    final JVar aList = aCall.body ().decl (cm.ref (List.class).narrow (String.class),
+                                           "aList",
+                                           JExpr._new (cm.ref (ArrayList.class).narrowEmpty ()));
+    aCall.body ().add (aList.invoke ("add").arg ("Hello"));
+    aCall.body ()._return (aList.invoke ("get").arg (0));
+
+    final ClassLoader aCL = InMemoryJavaCompiler.compile (cm, getClass ().getClassLoader ());
+    @SuppressWarnings ("unchecked")
+    final Callable <String> aCallable = (Callable <String>) aCL.loadClass ("org.example.Greeter").newInstance ();
+    assertEquals ("Hello", aCallable.call ());
+  }
+
+  @Test
+  public void testCompileCompactSources () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    cm.setBuildingCompactSources (true);
+    final JDefinedClass aClass = cm._class ("org.example.Compact");
+    aClass.javadoc ().add ("Javadoc");
+    aClass.annotate (Deprecated.class);
+    aClass._implements (cm.ref (Callable.class).narrow (String.class));
+    final JMethod aCall = aClass.method (JMod.PUBLIC, String.class, "call");
+    aCall.annotate (Override.class);
+    aCall.body ().add (new JSingleLineCommentStatement ("Comment"));
+    aCall.body ().directStatement ("int x = 4; // line comment");
+    final JVar aList = aCall.body ().decl (cm.ref (List.class).narrow (String.class),
+                                           "aList",
+                                           JExpr._new (cm.ref (ArrayList.class).narrowEmpty ()));
+    aCall.body ()._if (JExpr.ref ("x").gt (JExpr.lit (3)))._then ().add (aList.invoke ("add").arg ("Hello"));
+    aCall.body ()._return (aList.invoke ("get").arg (0));
+
+    final ClassLoader aCL = InMemoryJavaCompiler.compile (cm, getClass ().getClassLoader ());
+    @SuppressWarnings ("unchecked")
+    final Callable <String> aCallable = (Callable <String>) aCL.loadClass ("org.example.Compact").newInstance ();
+    assertEquals ("Hello", aCallable.call ());
+  }
+
+  @Test (expected = InMemoryJavaCompiler.CompilationException.class)
+  public void testCompileError () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aClass = cm._class ("org.example.Broken");
+    aClass.method (JMod.PUBLIC, int.class, "get").body ()._return (JExpr.lit ("not an int"));
+    InMemoryJavaCompiler.compile (cm, null);
+  }
+}
@@ -0,0 +1,129 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JDefinedClass;
+import com.helger.jcodemodel.JMod;
+
+/**
+ * Test class for class {@link IncrementalFileCodeWriter}.
+ *
+ * @author Philip Helger
+ */
+public final class IncrementalFileCodeWriterTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempDir = new TemporaryFolder ();
+
+  @Test
+  public void testIncrementalBuild () throws Exception
+  {
+    final File aDir = m_aTempDir.getRoot ();
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aClass1 = cm._class ("org.example.Class1");
+    cm._class ("org.example.Class2");
+
+    // Initial build writes everything
+    IncrementalFileCodeWriter aCW = new IncrementalFileCodeWriter (aDir, StandardCharsets.UTF_8, "\n");
+    cm.build (aCW);
+    assertEquals (2, aCW.getWrittenFileCount ());
+    assertEquals (0, aCW.getUnchangedFileCount ());
+
+    // Stale files
+    final File aStale = new File (aDir, "org/example/Old.java");
+    Files.write (aStale.toPath (), "class Old {}".getBytes (StandardCharsets.UTF_8));
+    final File aStaleDir = new File (aDir, "org/example/old");
+    assertTrue (aStaleDir.mkdirs ());
+    Files.write (new File (aStaleDir, "Older.java").toPath (), "class Older {}".getBytes (StandardCharsets.UTF_8));
+
+    // Modify one class
+    aClass1.field (JMod.PRIVATE, int.class, "m_nValue");
+    aCW = new IncrementalFileCodeWriter (aDir, StandardCharsets.UTF_8, "\n").setDeleteStaleFiles (true);
+    cm.build (aCW);
+    assertEquals (1, aCW.getWrittenFileCount ());
+    assertEquals (1, aCW.getUnchangedFileCount ());
+    assertEquals (2, aCW.getDeletedFileCount ());
+    assertFalse (aStale.exists ());
+    // Directories that became empty are removed as well
+    assertFalse (aStaleDir.exists ());
+    assertTrue (aDir.isDirectory ());
+    assertTrue (new String (Files.readAllBytes (new File (aDir, "org/example/Class1.java").toPath ()),
+                            StandardCharsets.UTF_8).contains ("m_nValue"));
+  }
+
+  @Test
+  public void testWriteErrorIsThrownOnClose () throws Exception
+  {
+    final File aDir = m_aTempDir.getRoot ();
+    final JCodeModel cm = new JCodeModel ();
+    cm._class ("org.example.Class1");
+
+    // A non-empty directory in place of the target file can't be replaced
+    assertTrue (new File (aDir, "org/example/Class1.java/sub").mkdirs ());
+
+    final IncrementalFileCodeWriter aCW = new IncrementalFileCodeWriter (aDir, StandardCharsets.UTF_8, "\n");
+    try
+    {
+      cm.build (aCW);
+      fail ();
+    }
+    catch (final IOException ex)
+    {
+      // expected
+    }
+    assertEquals (0, aCW.getWrittenFileCount ());
+  }
+}
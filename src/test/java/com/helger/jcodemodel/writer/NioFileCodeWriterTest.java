@@ -0,0 +1,120 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.JDefinedClass;
+import com.helger.jcodemodel.JMod;
+import com.helger.jcodemodel.fmt.JTextFile;
+
+/**
+ * Test class for class {@link NioFileCodeWriter}.
+ *
+ * @author Philip Helger
+ */
+public final class NioFileCodeWriterTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempDir = new TemporaryFolder ();
+
+  @Test
+  public void testBuild () throws Exception
+  {
+    final Path aDir = m_aTempDir.getRoot ().toPath ();
+    final JCodeModel cm = new JCodeModel ();
+    final JDefinedClass aClass = cm._class ("org.example.Class1");
+    cm._class ("org.example.sub.Class2");
+    final JTextFile aTextFile = new JTextFile ("file.txt");
+    aTextFile.setContents ("abc");
+    cm._package ("org.example").addResourceFile (aTextFile);
+
+    for (final boolean bAtomic : new boolean [] { false, true })
+    {
+      aClass.field (JMod.PRIVATE, int.class, "m_nValue" + bAtomic);
+      cm.build (new NioFileCodeWriter (aDir, true, bAtomic, StandardCharsets.UTF_8, "\n"));
+
+      final Path aFile = aDir.resolve ("org/example/Class1.java");
+      assertTrue (new String (Files.readAllBytes (aFile), StandardCharsets.UTF_8).contains ("m_nValue" + bAtomic));
+      assertTrue (Files.exists (aDir.resolve ("org/example/sub/Class2.java")));
+      assertEquals ("abc", new String (Files.readAllBytes (aDir.resolve ("org/example/file.txt")),
+                                       StandardCharsets.UTF_8));
+    }
+
+    // No temporary files left
+    try (final Stream <Path> aStream = Files.list (aDir.resolve ("org/example")))
+    {
+      assertEquals (3, aStream.count ());
+    }
+  }
+
+  @Test
+  public void testAtomicWriteKeepsDefaultPermissions () throws Exception
+  {
+    final Path aDir = m_aTempDir.getRoot ().toPath ();
+    if (Files.getFileAttributeView (aDir, PosixFileAttributeView.class) == null)
+      return;
+
+    final JCodeModel cm = new JCodeModel ();
+    cm._class ("org.example.Class1");
+
+    final Path aDirect = Files.createDirectory (aDir.resolve ("direct"));
+    cm.build (new NioFileCodeWriter (aDirect, false, false, StandardCharsets.UTF_8, "\n"));
+    final Path aAtomic = Files.createDirectory (aDir.resolve ("atomic"));
+    cm.build (new NioFileCodeWriter (aAtomic, false, true, StandardCharsets.UTF_8, "\n"));
+
+    // Same permissions as a regularly created file
+    assertEquals (Files.getPosixFilePermissions (aDirect.resolve ("org/example/Class1.java")),
+                  Files.getPosixFilePermissions (aAtomic.resolve ("org/example/Class1.java")));
+  }
+}
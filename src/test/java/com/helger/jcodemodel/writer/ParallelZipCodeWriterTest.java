@@ -0,0 +1,214 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 1997-2010 Oracle and/or its affiliates. All rights reserved.
+ * Portions Copyright 2013-2017 Philip Helger + contributors
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.helger.jcodemodel.writer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.jar.Attributes;
+import java.util.jar.JarInputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.jcodemodel.JCodeModel;
+import com.helger.jcodemodel.util.CodeModelTestsHelper;
+
+/**
+ * Test class for class {@link ParallelZipCodeWriter}.
+ *
+ * @author Philip Helger
+ */
+public final class ParallelZipCodeWriterTest
+{
+  @Nonnull
+  private static Map <String, byte []> _readZip (@Nonnull final byte [] aZip) throws IOException
+  {
+    final Map <String, byte []> ret = new TreeMap <> ();
+    try (final ZipInputStream aZIS = new ZipInputStream (new ByteArrayInputStream (aZip)))
+    {
+      ZipEntry aEntry;
+      while ((aEntry = aZIS.getNextEntry ()) != null)
+      {
+        final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+        final byte [] aBuf = new byte [1024];
+        int nRead;
+        while ((nRead = aZIS.read (aBuf)) > 0)
+          aBAOS.write (aBuf, 0, nRead);
+        ret.put (aEntry.getName (), aBAOS.toByteArray ());
+      }
+    }
+    return ret;
+  }
+
+  @Nonnull
+  private static byte [] _buildParallel (@Nonnull final JCodeModel cm, final int nMethod) throws IOException
+  {
+    final ExecutorService aES = Executors.newFixedThreadPool (4);
+    try
+    {
+      final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+      cm.build (new ParallelZipCodeWriter (aBAOS, aES, null, "\n").setMethod (nMethod).setMaxPendingEntries (3));
+      return aBAOS.toByteArray ();
+    }
+    finally
+    {
+      aES.shutdown ();
+    }
+  }
+
+  @Test
+  public void testSameContentAsZipCodeWriter () throws Exception
+  {
+    final JCodeModel cm = CodeModelTestsHelper.createMultiPackageModel (20);
+
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    cm.build (new ZipCodeWriter (aBAOS, "\n"));
+    final Map <String, byte []> aExpected = _readZip (aBAOS.toByteArray ());
+    assertEquals (21, aExpected.size ());
+
+    for (final int nMethod : new int [] { ZipEntry.DEFLATED, ZipEntry.STORED })
+    {
+      final Map <String, byte []> aActual = _readZip (_buildParallel (cm, nMethod));
+      assertEquals (aExpected.keySet (), aActual.keySet ());
+      for (final Map.Entry <String, byte []> aEntry : aExpected.entrySet ())
+        assertArrayEquals (aEntry.getValue (), aActual.get (aEntry.getKey ()));
+    }
+  }
+
+  @Test
+  public void testDeterministic () throws Exception
+  {
+    final JCodeModel cm = CodeModelTestsHelper.createMultiPackageModel (20);
+    assertArrayEquals (_buildParallel (cm, ZipEntry.DEFLATED), _buildParallel (cm, ZipEntry.DEFLATED));
+  }
+
+  @Test
+  public void testManifest () throws Exception
+  {
+    final Manifest aManifest = new Manifest ();
+    aManifest.getMainAttributes ().put (Attributes.Name.MANIFEST_VERSION, "1.0");
+    aManifest.getMainAttributes ().put (Attributes.Name.MAIN_CLASS, "org.example.p0.Class0");
+
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    CodeModelTestsHelper.createMultiPackageModel (20).build (new ParallelZipCodeWriter (aBAOS).setManifest (aManifest));
+
+    try (final JarInputStream aJIS = new JarInputStream (new ByteArrayInputStream (aBAOS.toByteArray ())))
+    {
+      assertNotNull (aJIS.getManifest ());
+      assertEquals ("org.example.p0.Class0", aJIS.getManifest ().getMainAttributes ().getValue (Attributes.Name.MAIN_CLASS));
+      assertNotNull (aJIS.getNextEntry ());
+    }
+
+    // No manifest by default
+    aBAOS.reset ();
+    CodeModelTestsHelper.createMultiPackageModel (20).build (new ParallelZipCodeWriter (aBAOS));
+    try (final JarInputStream aJIS = new JarInputStream (new ByteArrayInputStream (aBAOS.toByteArray ())))
+    {
+      assertNull (aJIS.getManifest ());
+    }
+  }
+
+  @Test
+  public void testDuplicateEntry () throws Exception
+  {
+    final JCodeModel cm = new JCodeModel ();
+    try (final ParallelZipCodeWriter aCW = new ParallelZipCodeWriter (new ByteArrayOutputStream ()))
+    {
+      aCW.openBinary (cm.rootPackage (), "a.txt").close ();
+      try
+      {
+        // Must fail when opening, not only when closing the stream
+        aCW.openBinary (cm.rootPackage (), "a.txt");
+        fail ();
+      }
+      catch (final ZipException ex)
+      {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testWriteErrorIsThrownOnClose () throws Exception
+  {
+    final OutputStream aFailingOS = new OutputStream ()
+    {
+      @Override
+      public void write (final int b) throws IOException
+      {
+        throw new IOException ("write");
+      }
+    };
+    final ExecutorService aES = Executors.newFixedThreadPool (2);
+    try
+    {
+      // The errors of the source writers are swallowed - close must throw
+      CodeModelTestsHelper.createMultiPackageModel (20)
+                          .build (new ParallelZipCodeWriter (aFailingOS, aES, null, "\n").setMaxPendingEntries (1));
+      fail ();
+    }
+    catch (final IOException ex)
+    {
+      assertEquals ("write", ex.getMessage ());
+    }
+    finally
+    {
+      aES.shutdown ();
+    }
+  }
+}